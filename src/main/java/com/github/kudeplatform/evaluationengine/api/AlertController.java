@@ -2,8 +2,6 @@ package com.github.kudeplatform.evaluationengine.api;
 
 import com.github.kudeplatform.evaluationengine.domain.EvaluationEvent;
 import com.github.kudeplatform.evaluationengine.domain.EvaluationStatus;
-import com.github.kudeplatform.evaluationengine.mapper.EvaluationEventMapper;
-import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventRepository;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultEntity;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultRepository;
 import com.github.kudeplatform.evaluationengine.service.EvaluationService;
@@ -34,12 +32,8 @@ public class AlertController {
 
     private final EvaluationResultRepository evaluationResultRepository;
 
-    private final EvaluationEventRepository evaluationEventRepository;
-
     private final EvaluationService evaluationService;
 
-    private final EvaluationEventMapper evaluationEventMapper;
-
     /**
      * {
      * "version": "4",
@@ -123,7 +117,7 @@ public class AlertController {
 
         final EvaluationEvent evaluationEvent = new EvaluationEvent(evaluationId, ZonedDateTime.now(), EvaluationStatus.FAILED,
                 (String) alert.getAnnotations().get("description"), "all", "LOW_CPU_USAGE_ON_ONE_INSTANCE", LEVEL_ERROR);
-        this.evaluationEventRepository.save(evaluationEventMapper.toEntity(evaluationEvent));
+        this.evaluationService.evaluationEventCallback(evaluationEvent);
     }
 
     private void handleLowCpuUsageAlert(final String evaluationId, final Alert alert) {
@@ -136,7 +130,7 @@ public class AlertController {
 
         final EvaluationEvent evaluationEvent = new EvaluationEvent(evaluationId, ZonedDateTime.now(), EvaluationStatus.FAILED,
                 (String) alert.getAnnotations().get("description"), "all", "LOW_CPU_USAGE_ON_ALL_INSTANCES", LEVEL_FATAL);
-        this.evaluationEventRepository.save(evaluationEventMapper.toEntity(evaluationEvent));
+        this.evaluationService.evaluationEventCallback(evaluationEvent);
 
         this.evaluationService.failEvaluationTask(evaluationId, true);
     }
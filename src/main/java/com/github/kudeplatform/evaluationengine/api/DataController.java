@@ -1,14 +1,14 @@
 package com.github.kudeplatform.evaluationengine.api;
 
 import com.github.kudeplatform.evaluationengine.domain.Dataset;
+import com.github.kudeplatform.evaluationengine.domain.NotificationTopic;
 import com.github.kudeplatform.evaluationengine.mapper.DatasetMapper;
 import com.github.kudeplatform.evaluationengine.mapper.DatasetMapperImpl;
 import com.github.kudeplatform.evaluationengine.persistence.DatasetRepository;
-import com.github.kudeplatform.evaluationengine.view.NotifiableComponent;
+import com.github.kudeplatform.evaluationengine.service.NotificationBus;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -30,15 +30,15 @@ public class DataController {
 
     private final DatasetMapper datasetMapper;
 
-    final List<NotifiableComponent> activeDatasetViewComponents;
+    final NotificationBus notificationBus;
 
     @Getter
     private final HashMap<String, String> lastUpdatedByNode = new HashMap<>();
 
     public DataController(final DatasetRepository datasetRepository,
-                          @Qualifier(value = "activeDatasetViewComponents") final List<NotifiableComponent> activeDatasetViewComponents) {
+                          final NotificationBus notificationBus) {
         this.datasetRepository = datasetRepository;
-        this.activeDatasetViewComponents = activeDatasetViewComponents;
+        this.notificationBus = notificationBus;
         this.datasetMapper = new DatasetMapperImpl();
     }
 
@@ -47,7 +47,7 @@ public class DataController {
     @Transactional
     public List<Dataset> getDatasets(final HttpServletRequest request) {
         this.lastUpdatedByNode.put(request.getRemoteAddr(), DateTimeFormatter.ofPattern("hh:mm:ss").format(ZonedDateTime.now()));
-        this.activeDatasetViewComponents.forEach(NotifiableComponent::dataChanged);
+        this.notificationBus.publishAll(NotificationTopic.DATASETS);
 
         return datasetRepository.findAll().stream().map(datasetMapper::toDomainObject).toList();
     }
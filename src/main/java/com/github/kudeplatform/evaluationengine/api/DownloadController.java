@@ -1,16 +1,29 @@
 package com.github.kudeplatform.evaluationengine.api;
 
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
+import com.github.kudeplatform.evaluationengine.service.ArchiveService;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.io.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static com.github.kudeplatform.evaluationengine.service.FileSystemService.*;
 
@@ -26,42 +39,95 @@ public class DownloadController {
 
     public static final String PLAGIARISM_RESULTS_DOWNLOAD_PATH_FULL = "/api/files" + PLAGIARISM_RESULTS_DOWNLOAD_PATH;
 
+    public static final String PLAGIARISM_COMPARISONS_DOWNLOAD_PATH = "/download/plagiarismComparisons";
+
+    public static final String PLAGIARISM_COMPARISONS_DOWNLOAD_PATH_FULL = "/api/files" + PLAGIARISM_COMPARISONS_DOWNLOAD_PATH;
+
+    private final ArchiveService archiveService;
+
+    public DownloadController(final ArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
     @RequestMapping(value = "/download/single/{file_name}", method = RequestMethod.GET)
-    public void getFile(
-            @PathVariable("file_name") String fileName,
-            HttpServletResponse response) {
-        getFile(fileName, response, KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR);
+    public ResponseEntity<Resource> getFile(@PathVariable("file_name") String fileName) {
+        return getFile(fileName, KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR);
     }
 
     @RequestMapping(value = "/download/data/{file_name}", method = RequestMethod.GET)
-    public void getDataset(
-            @PathVariable("file_name") String fileName,
-            HttpServletResponse response) {
-        getFile(fileName, response, KUDE_DATA_PATH);
+    public ResponseEntity<Resource> getDataset(@PathVariable("file_name") String fileName) {
+        return getFile(fileName, KUDE_DATA_PATH);
     }
 
-    @RequestMapping(value = "/download/plagiarismResults", method = RequestMethod.GET)
-    public void getPlagirismResult(final HttpServletResponse response) {
-        getFile(KUDE_PLAGIARISM_RESULTS_FILE, response, KUDE_PLAGIARISM_PATH);
+    @RequestMapping(value = PLAGIARISM_RESULTS_DOWNLOAD_PATH, method = RequestMethod.GET)
+    public ResponseEntity<Resource> getPlagirismResult() {
+        return getFile(getPlagiarismResultsFile(PlagiarismLanguage.JAVA), KUDE_PLAGIARISM_PATH);
     }
 
-    private void getFile(@PathVariable("file_name") String fileName, HttpServletResponse response, String dataPath) {
+    @RequestMapping(value = PLAGIARISM_RESULTS_DOWNLOAD_PATH + "/{language}", method = RequestMethod.GET)
+    public ResponseEntity<Resource> getPlagiarismResult(@PathVariable("language") String language) {
+        final PlagiarismLanguage plagiarismLanguage;
         try {
-            final InputStream is = new FileInputStream(dataPath + fileName);
-            IOUtils.copy(is, response.getOutputStream());
-            response.flushBuffer();
-        } catch (FileNotFoundException ex) {
-            log.info("File not found. Filename was '{}'", fileName, ex);
-            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            plagiarismLanguage = PlagiarismLanguage.fromIdentifier(language);
+        } catch (final IllegalArgumentException e) {
+            log.info("Plagiarism language not found. Language was '{}'", language);
+            return ResponseEntity.notFound().build();
+        }
+        return getFile(getPlagiarismResultsFile(plagiarismLanguage), KUDE_PLAGIARISM_PATH);
+    }
+
+    @RequestMapping(value = PLAGIARISM_COMPARISONS_DOWNLOAD_PATH, method = RequestMethod.GET)
+    public ResponseEntity<Resource> getPlagiarismComparisons() {
+        return getFile(KUDE_PLAGIARISM_COMPARISONS_FILE, KUDE_PLAGIARISM_PATH);
+    }
+
+    /**
+     * Serves a file as {@link FileSystemResource}. Spring MVC answers Range requests with the requested regions and
+     * handles If-None-Match / If-Modified-Since based on the ETag and Last-Modified headers set here.
+     */
+    private ResponseEntity<Resource> getFile(String fileName, String dataPath) {
+        final Path basePath = Paths.get(dataPath).toAbsolutePath().normalize();
+        final Path filePath = basePath.resolve(fileName).normalize();
+        if (!filePath.startsWith(basePath) || !Files.isRegularFile(filePath)) {
+            log.info("File not found. Filename was '{}'", fileName);
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            final FileSystemResource resource = new FileSystemResource(filePath);
+            return ResponseEntity.ok()
+                    .eTag(getETag(attributes))
+                    .lastModified(attributes.lastModifiedTime().toMillis())
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .contentType(MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                    .body(resource);
         } catch (IOException ex) {
-            log.info("Error writing file to output stream. Filename was '{}'", fileName, ex);
-            throw new RuntimeException("IOError writing file to output stream");
+            log.info("Error reading file attributes. Filename was '{}'", fileName, ex);
+            throw new RuntimeException("IOError reading file attributes");
         }
     }
 
+    /**
+     * Files are only ever replaced as a whole, so size and modification time identify the content.
+     */
+    private static String getETag(final BasicFileAttributes attributes) {
+        final long lastModifiedInNanos = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        return "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModifiedInNanos) + "\"";
+    }
+
+    /**
+     * Streams a ZIP archive of all tmp files whose name contains the given pattern. The archive is written directly to
+     * the response with chunked transfer encoding.
+     *
+     * @param compressionLevel 0 (stored) to 9, defaults to DOWNLOAD_ZIP_COMPRESSION_LEVEL
+     * @param parallel         forces or disables parallel deflation, by default it is used for large archives
+     */
     @RequestMapping(value = "/download/pattern/{file_name_pattern}", method = RequestMethod.GET, produces = "application/zip")
     public void getMultipleFilesUsingPattern(
             @PathVariable("file_name_pattern") String fileNamePattern,
+            @RequestParam(value = "level", required = false) Integer compressionLevel,
+            @RequestParam(value = "parallel", required = false) Boolean parallel,
             HttpServletResponse response) {
         final File folder = new File(KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR);
         final File[] files = folder.listFiles((dir, name) -> name.contains(fileNamePattern));
@@ -71,24 +137,20 @@ public class DownloadController {
             return;
         }
 
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-             BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(byteArrayOutputStream);
-             ZipOutputStream zipOutputStream = new ZipOutputStream(bufferedOutputStream)) {
-
-            for (final File file : files) {
-                try (InputStream is = new FileInputStream(file)) {
-                    zipOutputStream.putNextEntry(new ZipEntry(file.getName()));
-                    IOUtils.copy(is, zipOutputStream);
-                    zipOutputStream.closeEntry();
-                }
-            }
-            zipOutputStream.finish();
-            zipOutputStream.flush();
-            response.getOutputStream().write(byteArrayOutputStream.toByteArray());
-            response.addHeader("Content-Disposition", "attachment; filename=\"" + fileNamePattern + ".zip\"");
+        if (compressionLevel != null && (compressionLevel < 0 || compressionLevel > 9)) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        response.setContentType("application/zip");
+        response.addHeader("Content-Disposition", "attachment; filename=\"" + fileNamePattern + ".zip\"");
+        try {
+            archiveService.writeZip(Stream.of(files).map(File::toPath).toList(), response.getOutputStream(),
+                    compressionLevel, parallel);
             response.flushBuffer();
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            log.info("Error writing archive to output stream. Pattern was '{}'", fileNamePattern, e);
+            throw new RuntimeException("IOError writing archive to output stream");
         }
     }
 }
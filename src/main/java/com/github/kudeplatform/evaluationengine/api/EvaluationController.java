@@ -1,6 +1,8 @@
 package com.github.kudeplatform.evaluationengine.api;
 
+import com.github.kudeplatform.evaluationengine.domain.ResultCacheMetrics;
 import com.github.kudeplatform.evaluationengine.service.EvaluationService;
+import com.github.kudeplatform.evaluationengine.service.ResultCacheService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -17,8 +19,11 @@ public class EvaluationController {
 
     private final EvaluationService evaluationService;
 
-    public EvaluationController(final EvaluationService evaluationService) {
+    private final ResultCacheService resultCacheService;
+
+    public EvaluationController(final EvaluationService evaluationService, final ResultCacheService resultCacheService) {
         this.evaluationService = evaluationService;
+        this.resultCacheService = resultCacheService;
     }
 
     @RequestMapping(value = "/allPodsReadyToRun/{evaluation_id}", method = RequestMethod.GET)
@@ -35,4 +40,9 @@ public class EvaluationController {
         return !evaluationService.isNoJobRunning();
     }
 
+    @RequestMapping(value = "/resultCache/metrics", method = RequestMethod.GET)
+    public ResultCacheMetrics getResultCacheMetrics() {
+        return resultCacheService.getMetrics();
+    }
+
 }
@@ -1,12 +1,23 @@
 package com.github.kudeplatform.evaluationengine.api;
 
-import com.github.kudeplatform.evaluationengine.service.EvaluationService;
+import com.fasterxml.jackson.core.JacksonException;
+import com.github.kudeplatform.evaluationengine.domain.EventIngestionMetrics;
+import com.github.kudeplatform.evaluationengine.service.EventIngestionBuffer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author timo.buechert
  */
@@ -14,15 +25,62 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class EventIngestionController {
 
-    private final EvaluationService evaluationService;
+    private final EventIngestionBuffer eventIngestionBuffer;
+
+    private final IngestedEventBatchReader ingestedEventBatchReader;
 
-    public EventIngestionController(final EvaluationService evaluationService) {
-        this.evaluationService = evaluationService;
+    public EventIngestionController(final EventIngestionBuffer eventIngestionBuffer,
+                                    final IngestedEventBatchReader ingestedEventBatchReader) {
+        this.eventIngestionBuffer = eventIngestionBuffer;
+        this.ingestedEventBatchReader = ingestedEventBatchReader;
     }
 
     @RequestMapping(value = "/ingest/event", method = RequestMethod.POST)
-    public void ingestEvent(@RequestBody IngestedEvent ingestedEvent) {
-        this.evaluationService.saveIngestedEventAndNotifyView(ingestedEvent);
+    public ResponseEntity<Void> ingestEvent(@RequestBody IngestedEvent ingestedEvent) {
+        if (this.eventIngestionBuffer.offer(ingestedEvent)) {
+            return ResponseEntity.accepted().build();
+        }
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    /**
+     * Bulk ingestion of events of possibly several evaluations. The body is either newline delimited JSON or a JSON
+     * array of ingested events and may be gzip compressed (Content-Encoding: gzip). The whole batch is parsed before
+     * any event is offered, so a malformed batch is rejected without ingesting part of it. After the first rejected
+     * event the remaining events of the batch are counted as rejected without being offered.
+     */
+    @RequestMapping(value = "/ingest/events:batch", method = RequestMethod.POST)
+    public ResponseEntity<IngestionBatchResponse> ingestEvents(final InputStream body,
+                                                               @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) final String contentEncoding) throws IOException {
+        final List<IngestedEvent> ingestedEvents = new ArrayList<>();
+        try {
+            this.ingestedEventBatchReader.read(body, "gzip".equalsIgnoreCase(contentEncoding), ingestedEvents::add);
+        } catch (final JacksonException e) {
+            log.warn("Received malformed event batch after {} events, none of them were ingested", ingestedEvents.size(), e);
+            return ResponseEntity.badRequest().body(new IngestionBatchResponse(0, 0));
+        }
+
+        int accepted = 0;
+        for (final IngestedEvent ingestedEvent : ingestedEvents) {
+            // once the buffer rejected an event the rest of the batch is rejected as well, so a blocking buffer
+            // does not wait for the offer timeout again for every remaining event
+            if (!this.eventIngestionBuffer.offer(ingestedEvent)) {
+                break;
+            }
+            accepted++;
+        }
+
+        final IngestionBatchResponse response = new IngestionBatchResponse(accepted, ingestedEvents.size() - accepted);
+        if (response.rejected() > 0) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @RequestMapping(value = "/ingest/metrics", method = RequestMethod.GET)
+    public EventIngestionMetrics getMetrics() {
+        return this.eventIngestionBuffer.getMetrics();
     }
 
 }
@@ -1,8 +1,10 @@
 package com.github.kudeplatform.evaluationengine.api;
 
 import com.github.kudeplatform.evaluationengine.service.EvaluationService;
+import com.github.kudeplatform.evaluationengine.service.FileSystemService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -10,12 +12,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-
-import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
+ * Receives results and log files of evaluation pods. Uploads are never materialised in the heap: multipart uploads are
+ * spooled to disk by the servlet container and their spool file is moved into place, raw request bodies are streamed
+ * to disk through NIO channels.
+ *
  * @author timo.buechert
  */
 @RestController
@@ -25,35 +31,50 @@ public class FileIngestionController {
 
     private final EvaluationService evaluationService;
 
+    private final FileSystemService fileSystemService;
+
     @Autowired
-    public FileIngestionController(final EvaluationService evaluationService) {
+    public FileIngestionController(final EvaluationService evaluationService, final FileSystemService fileSystemService) {
         this.evaluationService = evaluationService;
+        this.fileSystemService = fileSystemService;
     }
 
-    @RequestMapping(value = "/results/{jobId}", method = RequestMethod.POST)
+    @RequestMapping(value = "/results/{jobId}", method = RequestMethod.POST, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public void saveResults(@PathVariable String jobId, @RequestParam("file") MultipartFile file) throws IOException {
-        final String results = new String(file.getBytes());
+        saveResults(jobId, fileName -> this.fileSystemService.saveMultipartUpload(file, fileName));
+    }
+
+    @RequestMapping(value = "/results/{jobId}", method = RequestMethod.POST, consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public void saveResults(@PathVariable String jobId, InputStream body) throws IOException {
+        saveResults(jobId, fileName -> this.fileSystemService.saveUpload(body, fileName));
+    }
 
-        final String fileName = "results-" + jobId;
-        final File resultsFile = new File(KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR + fileName + ".txt");
+    @RequestMapping(value = "/logs/{jobId}/{instanceId}", method = RequestMethod.POST, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public void saveLogs(@PathVariable String jobId, @PathVariable String instanceId, @RequestParam("file") MultipartFile file) {
+        saveLogs(jobId, instanceId, file.getOriginalFilename(), fileName -> this.fileSystemService.saveMultipartUpload(file, fileName));
+    }
 
+    @RequestMapping(value = "/logs/{jobId}/{instanceId}", method = RequestMethod.POST, consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public void saveLogs(@PathVariable String jobId, @PathVariable String instanceId,
+                         @RequestParam(value = "fileName", required = false) String originalFileName, InputStream body) {
+        saveLogs(jobId, instanceId, originalFileName, fileName -> this.fileSystemService.saveUpload(body, fileName));
+    }
+
+    private void saveResults(final String jobId, final Upload upload) throws IOException {
+        final Path resultsFile;
         try {
-            file.transferTo(resultsFile);
+            resultsFile = upload.saveAs("results-" + jobId + ".txt");
         } catch (Exception e) {
             log.error("Failed to save results file.", e);
             throw new RuntimeException("Failed to save results file.");
         }
 
-        this.evaluationService.updateResults(jobId, results);
+        this.evaluationService.updateResults(jobId, resultsFile);
     }
 
-    @RequestMapping(value = "/logs/{jobId}/{instanceId}", method = RequestMethod.POST)
-    public void saveLogs(@PathVariable String jobId, @PathVariable String instanceId, @RequestParam("file") MultipartFile file) {
-        final String fileName = "logs-" + jobId + "-" + instanceId + file.getOriginalFilename();
-        final File resultsFile = new File(KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR + fileName);
-
+    private void saveLogs(final String jobId, final String instanceId, final String originalFileName, final Upload upload) {
         try {
-            file.transferTo(resultsFile);
+            upload.saveAs("logs-" + jobId + "-" + instanceId + getLogFileSuffix(originalFileName));
         } catch (Exception e) {
             log.error("Failed to save logs file.", e);
             throw new RuntimeException("Failed to save logs file.");
@@ -62,4 +83,26 @@ public class FileIngestionController {
         this.evaluationService.updateLogsAvailableAndNotifyView(jobId);
     }
 
+    /**
+     * Only the last path segment of the client supplied name is used, so it cannot escape the tmp folder.
+     */
+    private static String getLogFileSuffix(final String originalFileName) {
+        if (originalFileName == null || originalFileName.isBlank()) {
+            return ".log";
+        }
+
+        final Path fileName = Paths.get(originalFileName).getFileName();
+        return fileName == null ? ".log" : fileName.toString();
+    }
+
+    /**
+     * Stores the body of a request in the KUDE tmp folder under the given name.
+     */
+    @FunctionalInterface
+    private interface Upload {
+
+        Path saveAs(String fileName) throws IOException;
+
+    }
+
 }
@@ -0,0 +1,62 @@
+package com.github.kudeplatform.evaluationengine.api;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming reader for bulk event ingestion. Accepts either newline delimited JSON (one {@link IngestedEvent} per
+ * line) or a JSON array of {@link IngestedEvent}s, optionally gzip compressed. Events are bound one by one, so the
+ * request body is never materialized as a whole.
+ *
+ * @author timo.buechert
+ */
+@Component
+public class IngestedEventBatchReader {
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader ingestedEventReader;
+
+    public IngestedEventBatchReader(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.ingestedEventReader = objectMapper.readerFor(IngestedEvent.class);
+    }
+
+    /**
+     * @return the number of events that were read
+     */
+    public int read(final InputStream inputStream, final boolean gzip, final Consumer<IngestedEvent> consumer) throws IOException {
+        final InputStream body = gzip ? new GZIPInputStream(inputStream) : inputStream;
+
+        int count = 0;
+        try (final JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            final boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token == JsonToken.START_OBJECT) {
+                consumer.accept(ingestedEventReader.readValue(parser));
+                count++;
+                token = parser.nextToken();
+            }
+
+            if (array ? token != JsonToken.END_ARRAY : token != null) {
+                throw new JsonParseException(parser, "Unexpected token " + token + " in event batch after " + count + " events");
+            }
+        }
+
+        return count;
+    }
+
+}
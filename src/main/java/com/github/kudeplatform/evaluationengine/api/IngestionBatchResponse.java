@@ -0,0 +1,7 @@
+package com.github.kudeplatform.evaluationengine.api;
+
+/**
+ * @author timo.buechert
+ */
+public record IngestionBatchResponse(int accepted, int rejected) {
+}
@@ -44,7 +44,9 @@ public class EvaluationFinishedEvaluator extends SimpleEvaluator {
         try {
             jobStatus = kubernetesService.waitForJobCompletion(evaluationTask.taskId(), settingsService.getReplicationFactor());
         } catch (Exception e) {
-            if (e.getCause() != null && e.getCause() instanceof InterruptedIOException) {
+            if (e instanceof InterruptedException || e.getCause() instanceof InterruptedIOException) {
+                // the interrupt is turned into a cancelled result, the caller still has to see it
+                Thread.currentThread().interrupt();
                 log.debug("Evaluation was cancelled.");
                 return new SingleEvaluationResult(evaluationTask, EvaluationStatus.CANCELLED, new ArrayList<>());
             }
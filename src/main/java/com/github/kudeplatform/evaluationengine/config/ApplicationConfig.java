@@ -1,9 +1,10 @@
 package com.github.kudeplatform.evaluationengine.config;
 
-import com.github.kudeplatform.evaluationengine.domain.EvaluationTask;
 import com.github.kudeplatform.evaluationengine.mapper.EvaluationEventMapper;
 import com.github.kudeplatform.evaluationengine.mapper.EvaluationEventMapperImpl;
-import com.github.kudeplatform.evaluationengine.view.NotifiableComponent;
+import com.github.kudeplatform.evaluationengine.service.EvaluationTaskQueue;
+import com.github.kudeplatform.evaluationengine.service.FairShareEvaluationTaskQueue;
+import com.github.kudeplatform.evaluationengine.service.FifoEvaluationTaskQueue;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.apis.BatchV1Api;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
@@ -11,17 +12,19 @@ import io.kubernetes.client.openapi.apis.CustomObjectsApi;
 import io.kubernetes.client.openapi.apis.EventsV1Api;
 import io.kubernetes.client.util.Config;
 import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.IOException;
+import java.time.Clock;
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.*;
 
 /**
@@ -68,8 +71,15 @@ public class ApplicationConfig {
     }
 
     @Bean
-    BlockingQueue<EvaluationTask> evaluationTaskQueue() {
-        return new ArrayBlockingQueue<>(500);
+    EvaluationTaskQueue evaluationTaskQueue(@Value("${" + EvaluationTaskQueue.QUEUE_MODE_PROPERTY + ":fair-share}") final String queueMode,
+                                            @Value("${EVALUATION_QUEUE_CAPACITY:500}") final int capacity,
+                                            @Value("${EVALUATION_QUEUE_AGING_SECONDS:1800}") final long agingIntervalInSeconds) {
+        return switch (queueMode) {
+            case "fifo" -> new FifoEvaluationTaskQueue(capacity);
+            case "fair-share" -> new FairShareEvaluationTaskQueue(capacity, Duration.ofSeconds(agingIntervalInSeconds),
+                    Clock.systemUTC());
+            default -> throw new IllegalArgumentException("Unknown queue mode " + queueMode);
+        };
     }
 
     @Bean
@@ -77,23 +87,18 @@ public class ApplicationConfig {
         return new EvaluationEventMapperImpl();
     }
 
-    @Bean(name = "activeEvaluationViewComponents")
-    List<NotifiableComponent> activeEvaluationViewComponents() {
-        return new ArrayList<>();
-    }
-
-    @Bean(name = "activeDatasetViewComponents")
-    List<NotifiableComponent> activeDatasetViewComponents() {
-        return new ArrayList<>();
-    }
-
-    @Bean(name = "activePlagiarismViewComponents")
-    List<NotifiableComponent> activePlagiarismViewComponents() {
-        return new ArrayList<>();
-    }
-
+    /**
+     * Each evaluation runnable blocks for the whole lifetime of a job, so with virtual threads enabled every runnable
+     * gets its own virtual thread instead of occupying a pooled platform thread.
+     */
     @Bean(name = "evaluationTaskExecutor")
-    ThreadPoolTaskExecutor taskExecutor() {
+    AsyncTaskExecutor taskExecutor(@Value("${EVALUATION_VIRTUAL_THREADS:false}") final boolean virtualThreads) {
+        if (virtualThreads) {
+            final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("EvaluationTaskExecutor-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(12);
         executor.setMaxPoolSize(36);
@@ -103,9 +108,22 @@ public class ApplicationConfig {
         return executor;
     }
 
-    @Bean(name = "asyncEvaluatorExecutorService")
-    ExecutorService executorService() {
+    @Bean(name = "asyncEvaluatorExecutorService", destroyMethod = "shutdown")
+    ExecutorService executorService(@Value("${EVALUATION_VIRTUAL_THREADS:false}") final boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("AsyncEvaluator-", 0).factory());
+        }
         return Executors.newCachedThreadPool();
     }
 
+    /**
+     * Deflates the entries of large ZIP downloads. The pool is shared by all downloads, so concurrent downloads queue
+     * for the same threads instead of starting a pool each.
+     */
+    @Bean(name = "archiveExecutorService", destroyMethod = "shutdown")
+    ExecutorService archiveExecutorService(@Value("${DOWNLOAD_ZIP_PARALLEL_THREADS:0}") final int parallelThreads) {
+        final int threads = parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("ArchiveDeflater-", 0).factory());
+    }
+
 }
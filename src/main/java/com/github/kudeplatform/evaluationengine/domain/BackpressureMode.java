@@ -0,0 +1,25 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+/**
+ * Defines how the event ingestion buffer behaves when it is full.
+ *
+ * @author timo.buechert
+ */
+public enum BackpressureMode {
+
+    /**
+     * Block the submitting request until space is available or the offer timeout elapses.
+     */
+    BLOCK,
+
+    /**
+     * Reject the event immediately, the caller receives a 503 and is expected to retry.
+     */
+    REJECT,
+
+    /**
+     * Persist the event synchronously on the submitting thread.
+     */
+    CALLER_RUNS
+
+}
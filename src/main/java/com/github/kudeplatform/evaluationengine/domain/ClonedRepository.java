@@ -0,0 +1,11 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+import java.nio.file.Path;
+
+/**
+ * A repository materialised for a plagiarism check at the commit its default branch pointed to.
+ *
+ * @author timo.buechert
+ */
+public record ClonedRepository(String name, String commitId, Path directory) {
+}
@@ -0,0 +1,20 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+/**
+ * Priority class of a queued evaluation, earlier constants are taken first.
+ *
+ * @author timo.buechert
+ */
+public enum EvaluationPriority {
+
+    /**
+     * A single evaluation submitted through the evaluation form.
+     */
+    INTERACTIVE,
+
+    /**
+     * One of the evaluations of a mass upload.
+     */
+    MASS
+
+}
@@ -0,0 +1,75 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+import java.util.BitSet;
+import java.util.Optional;
+
+/**
+ * In-memory aggregate of the hot status fields of a running evaluation. It is updated incrementally as events arrive,
+ * so that status reads do not need a database round trip.
+ *
+ * @author timo.buechert
+ */
+public class EvaluationState {
+
+    public static final String TYPE_BUILD_COMPLETED = "BUILD_COMPLETED";
+
+    public static final String TYPE_JOB_COMPLETED = "JOB_COMPLETED";
+
+    private final int replicas;
+
+    private final BitSet readyPods = new BitSet();
+
+    private String lastFatalEventType;
+
+    private String lastErrorEventType;
+
+    private boolean released = true;
+
+    public EvaluationState(final int replicas) {
+        this.replicas = replicas;
+    }
+
+    public synchronized void apply(final String type, final String level, final String index) {
+        if (EvaluationEvent.LEVEL_FATAL.equals(level)) {
+            lastFatalEventType = type;
+        } else if (EvaluationEvent.LEVEL_ERROR.equals(level)) {
+            lastErrorEventType = type;
+        }
+
+        final int podIndex = parsePodIndex(index);
+        if (podIndex >= 0 && TYPE_BUILD_COMPLETED.equals(type)) {
+            readyPods.set(podIndex);
+        }
+    }
+
+    /**
+     * @return the type of the latest fatal event, or of the latest error event if there is no fatal one, or an empty
+     * string if neither occurred
+     */
+    public synchronized String getMostImportantErrorEventType() {
+        return Optional.ofNullable(lastFatalEventType).or(() -> Optional.ofNullable(lastErrorEventType)).orElse("");
+    }
+
+    /**
+     * Keeps the pods of a prepared evaluation waiting at the readiness barrier until it gets a run slot.
+     */
+    public synchronized void hold() {
+        released = false;
+    }
+
+    public synchronized void release() {
+        released = true;
+    }
+
+    public synchronized boolean areAllPodsReadyToRun() {
+        return released && readyPods.cardinality() >= replicas;
+    }
+
+    private static int parsePodIndex(final String index) {
+        if (index == null || index.isEmpty() || !index.chars().allMatch(Character::isDigit)) {
+            return -1;
+        }
+        return Integer.parseInt(index);
+    }
+
+}
@@ -10,12 +10,21 @@ public enum EvaluationStatus {
     SUCCEEDED,
     FAILED,
     CANCELLED,
-    TIMEOUT;
+    TIMEOUT,
+    /**
+     * Deployed ahead of a free run slot and held at the readiness barrier. Appended last, as the status is persisted
+     * by its ordinal.
+     */
+    PREPARING;
 
     public boolean isPending() {
         return this == PENDING;
     }
 
+    public boolean isPreparing() {
+        return this == PREPARING;
+    }
+
     public boolean isRunning() {
         return this == RUNNING || this == DEPLOYING;
     }
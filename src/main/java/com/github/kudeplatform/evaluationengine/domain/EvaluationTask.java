@@ -1,5 +1,6 @@
 package com.github.kudeplatform.evaluationengine.domain;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
 /**
@@ -15,6 +16,12 @@ public class EvaluationTask {
 
     private final String datasetName;
 
+    private EvaluationPriority priority = EvaluationPriority.INTERACTIVE;
+
+    private ZonedDateTime submittedTimestamp = ZonedDateTime.now();
+
+    private boolean forceRerun;
+
     public EvaluationTask(String taskId, List<String> instanceStartCommands, String name, String datasetName) {
         this.taskId = taskId;
         this.instanceStartCommands = instanceStartCommands;
@@ -46,4 +53,28 @@ public class EvaluationTask {
         return datasetName;
     }
 
+    public EvaluationPriority priority() {
+        return priority;
+    }
+
+    public void setPriority(EvaluationPriority priority) {
+        this.priority = priority;
+    }
+
+    public ZonedDateTime submittedTimestamp() {
+        return submittedTimestamp;
+    }
+
+    public void setSubmittedTimestamp(ZonedDateTime submittedTimestamp) {
+        this.submittedTimestamp = submittedTimestamp;
+    }
+
+    public boolean forceRerun() {
+        return forceRerun;
+    }
+
+    public void setForceRerun(boolean forceRerun) {
+        this.forceRerun = forceRerun;
+    }
+
 }
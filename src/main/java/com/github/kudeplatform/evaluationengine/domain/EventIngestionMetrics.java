@@ -0,0 +1,10 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+/**
+ * @author timo.buechert
+ */
+public record EventIngestionMetrics(int bufferSize, int bufferCapacity, BackpressureMode backpressureMode,
+                                    long accepted, long rejected, long callerRuns,
+                                    long flushedEvents, long flushedBatches, long failedBatches,
+                                    long largestBatch, long lastFlushDurationInMillis) {
+}
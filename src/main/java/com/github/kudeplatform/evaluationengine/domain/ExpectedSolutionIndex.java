@@ -0,0 +1,104 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled form of the expected solution. Every distinct, trimmed, non-blank line is mapped to a dense index, so that
+ * uploaded results can be checked line by line in a single pass with one hash lookup per line.
+ *
+ * @author timo.buechert
+ */
+public final class ExpectedSolutionIndex {
+
+    private static final ExpectedSolutionIndex EMPTY = compile("");
+
+    private final Map<String, Integer> lineIndices;
+
+    private final String fingerprint;
+
+    private ExpectedSolutionIndex(final Map<String, Integer> lineIndices, final String fingerprint) {
+        this.lineIndices = lineIndices;
+        this.fingerprint = fingerprint;
+    }
+
+    public static ExpectedSolutionIndex empty() {
+        return EMPTY;
+    }
+
+    public static ExpectedSolutionIndex compile(final String solution) {
+        final Map<String, Integer> lineIndices = new HashMap<>();
+        final MessageDigest digest = sha256();
+        solution.lines()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .forEach(line -> {
+                    if (lineIndices.putIfAbsent(line, lineIndices.size()) == null) {
+                        digest.update(line.getBytes(StandardCharsets.UTF_8));
+                        digest.update((byte) '\n');
+                    }
+                });
+
+        return new ExpectedSolutionIndex(Map.copyOf(lineIndices), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    public int size() {
+        return lineIndices.size();
+    }
+
+    /**
+     * @return hex encoded SHA-256 over the distinct normalised lines in their original order
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Reads the results line by line and compares them against the expected solution. Only distinct lines that are not
+     * part of the solution are kept in memory, correct lines are tracked in a bit set.
+     */
+    public ResultsEvaluation evaluate(final BufferedReader results) throws IOException {
+        final BitSet matchedLines = new BitSet(lineIndices.size());
+        final Set<String> unexpectedLines = new HashSet<>();
+
+        String line;
+        while ((line = results.readLine()) != null) {
+            final String trimmedLine = line.trim();
+            if (trimmedLine.isEmpty()) {
+                continue;
+            }
+
+            final Integer lineIndex = lineIndices.get(trimmedLine);
+            if (lineIndex != null) {
+                matchedLines.set(lineIndex);
+            } else {
+                unexpectedLines.add(trimmedLine);
+            }
+        }
+
+        final int totalCorrect = matchedLines.cardinality();
+        final int totalActual = totalCorrect + unexpectedLines.size();
+        final boolean allCorrect = unexpectedLines.isEmpty() && totalCorrect == lineIndices.size();
+        final String resultProportion = String.format("%d/%d/%d", totalCorrect, totalActual, lineIndices.size());
+
+        return new ResultsEvaluation(totalActual, totalCorrect, lineIndices.size(), allCorrect, resultProportion);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
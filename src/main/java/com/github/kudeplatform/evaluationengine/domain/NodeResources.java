@@ -0,0 +1,9 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+/**
+ * Resources of a worker node that are available to evaluation pods.
+ *
+ * @author timo.buechert
+ */
+public record NodeResources(String nodeName, long cpuMillis, long memoryBytes) {
+}
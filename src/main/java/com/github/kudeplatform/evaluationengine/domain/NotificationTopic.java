@@ -0,0 +1,10 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+/**
+ * @author timo.buechert
+ */
+public enum NotificationTopic {
+    EVALUATIONS,
+    DATASETS,
+    PLAGIARISM
+}
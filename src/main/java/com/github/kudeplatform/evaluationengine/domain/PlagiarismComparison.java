@@ -0,0 +1,11 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+/**
+ * Similarity of two submissions of a plagiarism check in one language, as fraction between 0 and 1.
+ *
+ * @param reused whether the comparison was taken over from an earlier check instead of being computed again
+ * @author timo.buechert
+ */
+public record PlagiarismComparison(PlagiarismLanguage language, String firstSubmission, String secondSubmission,
+                                   double similarity, double maximumSimilarity, int matchedTokens, boolean reused) {
+}
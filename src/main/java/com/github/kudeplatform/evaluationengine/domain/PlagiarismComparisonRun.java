@@ -0,0 +1,15 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of comparing the changed submissions of a plagiarism check.
+ *
+ * @param numberOfPrunedComparisons comparisons skipped because the pre-filter deemed the pair dissimilar
+ * @param failedSubmissionKeys      submissions that JPlag could not parse or whose shard failed
+ * @author timo.buechert
+ */
+public record PlagiarismComparisonRun(List<PlagiarismComparison> comparisons, int numberOfShards,
+                                      long numberOfPrunedComparisons, Set<String> failedSubmissionKeys) {
+}
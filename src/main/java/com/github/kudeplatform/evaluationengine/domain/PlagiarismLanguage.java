@@ -0,0 +1,87 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Languages the submissions of a plagiarism check are compared in, each with a separate JPlag pass over the files
+ * with the given suffixes. Build files are compared as plain text, they are matched by the names of the Gradle, sbt and
+ * Maven build files, so that other XML or configuration files are not mistaken for them.
+ *
+ * @author timo.buechert
+ */
+public enum PlagiarismLanguage {
+
+    JAVA("java", "Java", true, List.of(".java"), Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "continue", "default",
+            "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "if", "implements", "import",
+            "instanceof", "int", "interface", "long", "new", "package", "private", "protected", "public", "record",
+            "return", "short", "static", "super", "switch", "synchronized", "this", "throw", "throws", "try", "var",
+            "void", "volatile", "while", "yield")),
+    SCALA("scala", "Scala", true, List.of(".scala", ".sc"), Set.of(
+            "abstract", "case", "catch", "class", "def", "do", "else", "enum", "extends", "final", "finally", "for",
+            "given", "if", "implicit", "import", "lazy", "match", "new", "object", "override", "package", "private",
+            "protected", "return", "sealed", "super", "then", "this", "throw", "trait", "try", "type", "val", "var",
+            "while", "with", "yield")),
+    BUILD_FILES("text", "Build files", false, List.of(".gradle", ".gradle.kts", ".sbt", "pom.xml", "gradle.properties",
+            "build.properties"), Set.of());
+
+    private final String identifier;
+
+    private final String displayName;
+
+    private final boolean programmingLanguage;
+
+    private final List<String> fileSuffixes;
+
+    private final Set<String> keywords;
+
+    PlagiarismLanguage(final String identifier, final String displayName, final boolean programmingLanguage,
+                       final List<String> fileSuffixes, final Set<String> keywords) {
+        this.identifier = identifier;
+        this.displayName = displayName;
+        this.programmingLanguage = programmingLanguage;
+        this.fileSuffixes = fileSuffixes;
+        this.keywords = keywords;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return whether names in the files are arbitrary and can be renamed without changing the meaning
+     */
+    public boolean isProgrammingLanguage() {
+        return programmingLanguage;
+    }
+
+    public List<String> getFileSuffixes() {
+        return fileSuffixes;
+    }
+
+    /**
+     * @return the reserved words of the language, they are kept when the names in the files are normalised
+     */
+    public Set<String> getKeywords() {
+        return keywords;
+    }
+
+    public boolean matches(final String fileName) {
+        return fileSuffixes.stream().anyMatch(fileName::endsWith);
+    }
+
+    public static PlagiarismLanguage fromIdentifier(final String identifier) {
+        for (final PlagiarismLanguage language : values()) {
+            if (language.getIdentifier().equalsIgnoreCase(identifier)) {
+                return language;
+            }
+        }
+        throw new IllegalArgumentException("No plagiarism language found for identifier: " + identifier);
+    }
+
+}
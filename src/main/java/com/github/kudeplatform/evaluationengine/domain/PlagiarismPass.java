@@ -0,0 +1,18 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comparison of the submissions of a plagiarism check in one language. Only submissions with files of the language
+ * take part.
+ *
+ * @param useBaseCode    whether the base code has files of the language
+ * @param submissionKeys the key of every submission by name, see
+ *                       {@link com.github.kudeplatform.evaluationengine.persistence.PlagiarismSubmissionEntity}
+ * @author timo.buechert
+ */
+public record PlagiarismPass(PlagiarismLanguage language, boolean useBaseCode,
+                             List<ClonedRepository> changedSubmissions, List<ClonedRepository> unchangedSubmissions,
+                             Map<String, String> submissionKeys) {
+}
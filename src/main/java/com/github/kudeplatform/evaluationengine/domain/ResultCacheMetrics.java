@@ -0,0 +1,8 @@
+package com.github.kudeplatform.evaluationengine.domain;
+
+/**
+ * @author timo.buechert
+ */
+public record ResultCacheMetrics(boolean enabled, long lookups, long hits, long misses, long bypassed,
+                                 long failedLookups, double hitRate) {
+}
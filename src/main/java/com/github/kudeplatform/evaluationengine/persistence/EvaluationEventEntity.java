@@ -4,7 +4,9 @@ import com.github.kudeplatform.evaluationengine.domain.EvaluationStatus;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,6 +17,10 @@ import java.time.ZonedDateTime;
  * @author timo.buechert
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_event_task_type", columnList = "taskId, type"),
+        @Index(name = "idx_event_task_level_timestamp", columnList = "taskId, level, timestamp, type")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -0,0 +1,38 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Occurrence of an event type on a single pod of an evaluation. The composite primary key makes recording an
+ * occurrence idempotent, the timestamp is the time the pod reported the event type for the first time.
+ *
+ * @author timo.buechert
+ */
+@Entity
+@Table(name = EvaluationEventInstanceEntity.TABLE_NAME)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EvaluationEventInstanceEntity {
+
+    public static final String TABLE_NAME = "evaluation_event_instance";
+
+    @EmbeddedId
+    private EvaluationEventInstanceId id;
+
+    @Column(name = "timestamp")
+    private ZonedDateTime timestamp;
+
+    public EvaluationEventInstanceEntity(final String taskId, final String type, final String podIndex, final ZonedDateTime timestamp) {
+        this(new EvaluationEventInstanceId(taskId, type, podIndex), timestamp);
+    }
+
+}
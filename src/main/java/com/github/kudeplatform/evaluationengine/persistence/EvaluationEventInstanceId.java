@@ -0,0 +1,29 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author timo.buechert
+ */
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EvaluationEventInstanceId implements Serializable {
+
+    @Column(name = "task_id")
+    private String taskId;
+
+    @Column(name = "type")
+    private String type;
+
+    @Column(name = "pod_index")
+    private String podIndex;
+
+}
@@ -0,0 +1,17 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * @author timo.buechert
+ */
+public interface EvaluationEventInstanceRepository extends JpaRepository<EvaluationEventInstanceEntity, EvaluationEventInstanceId>,
+        EvaluationEventInstanceRepositoryCustom {
+
+    List<EvaluationEventInstanceEntity> findByIdTaskIdOrderByTimestampAsc(String taskId);
+
+    void deleteByIdTaskId(String taskId);
+
+}
@@ -0,0 +1,15 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import java.util.Collection;
+
+/**
+ * @author timo.buechert
+ */
+public interface EvaluationEventInstanceRepositoryCustom {
+
+    /**
+     * Inserts all instances that do not exist yet with a single JDBC batch, existing instances are left untouched.
+     */
+    void insertIfAbsent(Collection<EvaluationEventInstanceEntity> instances);
+
+}
@@ -0,0 +1,37 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+
+/**
+ * @author timo.buechert
+ */
+@RequiredArgsConstructor
+public class EvaluationEventInstanceRepositoryCustomImpl implements EvaluationEventInstanceRepositoryCustom {
+
+    private static final String INSERT_IF_ABSENT = "MERGE INTO " + EvaluationEventInstanceEntity.TABLE_NAME + " target "
+            + "USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP WITH TIME ZONE))) "
+            + "AS source (task_id, type, pod_index, timestamp) "
+            + "ON target.task_id = source.task_id AND target.type = source.type AND target.pod_index = source.pod_index "
+            + "WHEN NOT MATCHED THEN INSERT (task_id, type, pod_index, timestamp) "
+            + "VALUES (source.task_id, source.type, source.pod_index, source.timestamp)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertIfAbsent(final Collection<EvaluationEventInstanceEntity> instances) {
+        if (instances.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, instances, instances.size(), (preparedStatement, instance) -> {
+            preparedStatement.setString(1, instance.getId().getTaskId());
+            preparedStatement.setString(2, instance.getId().getType());
+            preparedStatement.setString(3, instance.getId().getPodIndex());
+            preparedStatement.setObject(4, instance.getTimestamp().toOffsetDateTime());
+        });
+    }
+
+}
@@ -1,8 +1,11 @@
 package com.github.kudeplatform.evaluationengine.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * @author timo.buechert
@@ -16,5 +19,12 @@ public interface EvaluationEventRepository extends JpaRepository<EvaluationEvent
     List<EvaluationEventEntity> findByTaskIdAndType(String taskid, String type);
 
     void deleteByTaskId(String taskid);
+
+    /**
+     * Returns the type of the latest event of the given level. Served from the (taskId, level, timestamp, type) index
+     * without touching the table rows.
+     */
+    @Query("select e.type from EvaluationEventEntity e where e.taskId = :taskId and e.level = :level order by e.timestamp desc, e.id desc limit 1")
+    Optional<String> findLatestEventTypeByLevel(@Param("taskId") String taskId, @Param("level") String level);
     
 }
@@ -1,11 +1,13 @@
 package com.github.kudeplatform.evaluationengine.persistence;
 
+import com.github.kudeplatform.evaluationengine.domain.EvaluationPriority;
 import com.github.kudeplatform.evaluationengine.domain.EvaluationStatus;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
+import jakarta.persistence.OrderColumn;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -53,10 +55,30 @@ public class EvaluationResultEntity {
 
     private String firstWorkerStartCommand;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
+    @OrderColumn
+    private List<String> instanceStartCommands;
+
+    private EvaluationPriority priority;
+
+    private ZonedDateTime submittedTimestamp;
+
+    @ElementCollection(fetch = FetchType.LAZY)
     private List<Integer> podIndicesCompleted;
 
     @Lob
     private String message;
 
+    /**
+     * Identifies the commit and the configuration the evaluation ran with, see {@code ResultCacheService}.
+     */
+    private String resultCacheKey;
+
+    /**
+     * Id of the evaluation whose result was reused instead of running this one, null if it ran itself.
+     */
+    private String cachedFromTaskId;
+
+    private boolean forceRerun;
+
 }
@@ -1,11 +1,27 @@
 package com.github.kudeplatform.evaluationengine.persistence;
 
+import com.github.kudeplatform.evaluationengine.domain.EvaluationStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * @author timo.buechert
  */
 public interface EvaluationResultRepository extends JpaRepository<EvaluationResultEntity, String> {
 
+    Optional<EvaluationResultEntity> findFirstByResultCacheKeyAndStatusAndTaskIdNotOrderByEndTimestampDesc(
+            String resultCacheKey, EvaluationStatus status, String taskId);
+
+    /**
+     * Returns a page as a list, so this query does not count the matching rows. The evaluation grid counts them
+     * separately with {@link #countByNameContainingIgnoreCaseOrTaskIdContaining(String, String)} whenever it is
+     * refreshed completely or the filter changes.
+     */
+    List<EvaluationResultEntity> findByNameContainingIgnoreCaseOrTaskIdContaining(String name, String taskId, Pageable pageable);
+
+    long countByNameContainingIgnoreCaseOrTaskIdContaining(String name, String taskId);
 
 }
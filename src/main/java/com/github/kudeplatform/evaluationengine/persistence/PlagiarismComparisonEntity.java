@@ -0,0 +1,43 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of comparing two analysed submissions, see {@link PlagiarismSubmissionEntity}.
+ *
+ * @author timo.buechert
+ */
+@Entity
+@Table(name = PlagiarismComparisonEntity.TABLE_NAME)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlagiarismComparisonEntity {
+
+    public static final String TABLE_NAME = "plagiarism_comparison";
+
+    @EmbeddedId
+    private PlagiarismComparisonId id;
+
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "second_name")
+    private String secondName;
+
+    @Column(name = "similarity")
+    private double similarity;
+
+    @Column(name = "maximum_similarity")
+    private double maximumSimilarity;
+
+    @Column(name = "matched_tokens")
+    private int matchedTokens;
+
+}
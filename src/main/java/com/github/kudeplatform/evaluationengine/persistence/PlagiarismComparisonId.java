@@ -0,0 +1,35 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author timo.buechert
+ */
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlagiarismComparisonId implements Serializable {
+
+    @Column(name = "first_submission_key")
+    private String firstSubmissionKey;
+
+    @Column(name = "second_submission_key")
+    private String secondSubmissionKey;
+
+    /**
+     * @return the id of the pair, independent of the order of the two submissions
+     */
+    public static PlagiarismComparisonId of(final String submissionKey, final String otherSubmissionKey) {
+        return submissionKey.compareTo(otherSubmissionKey) <= 0
+                ? new PlagiarismComparisonId(submissionKey, otherSubmissionKey)
+                : new PlagiarismComparisonId(otherSubmissionKey, submissionKey);
+    }
+
+}
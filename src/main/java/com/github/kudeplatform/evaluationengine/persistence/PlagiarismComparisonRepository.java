@@ -0,0 +1,19 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author timo.buechert
+ */
+public interface PlagiarismComparisonRepository extends JpaRepository<PlagiarismComparisonEntity, PlagiarismComparisonId> {
+
+    List<PlagiarismComparisonEntity> findByIdFirstSubmissionKeyInAndIdSecondSubmissionKeyIn(Collection<String> firstSubmissionKeys,
+                                                                                           Collection<String> secondSubmissionKeys);
+
+    void deleteByIdFirstSubmissionKeyInOrIdSecondSubmissionKeyIn(Collection<String> firstSubmissionKeys,
+                                                                 Collection<String> secondSubmissionKeys);
+
+}
@@ -0,0 +1,51 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Submission that was part of a plagiarism check. The key identifies the analysed state of the submission: its name,
+ * its commit, the commit of the base code and the language. The check id is the last check the submission was part
+ * of, all submissions of a check were compared with each other or their comparison was pruned.
+ *
+ * @author timo.buechert
+ */
+@Entity
+@Table(name = PlagiarismSubmissionEntity.TABLE_NAME)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlagiarismSubmissionEntity {
+
+    public static final String TABLE_NAME = "plagiarism_submission";
+
+    @Id
+    @Column(name = "submission_key")
+    private String submissionKey;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "commit_id")
+    private String commitId;
+
+    @Column(name = "base_code_commit_id")
+    private String baseCodeCommitId;
+
+    @Column(name = "language")
+    private String language;
+
+    @Column(name = "check_id")
+    private String checkId;
+
+    @Column(name = "analyzed_timestamp")
+    private ZonedDateTime analyzedTimestamp;
+
+}
@@ -0,0 +1,15 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author timo.buechert
+ */
+public interface PlagiarismSubmissionRepository extends JpaRepository<PlagiarismSubmissionEntity, String> {
+
+    List<PlagiarismSubmissionEntity> findByNameIn(Collection<String> names);
+
+}
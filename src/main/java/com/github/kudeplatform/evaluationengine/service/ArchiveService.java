@@ -0,0 +1,234 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.DefaultBackingStoreSupplier;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
+import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes ZIP archives directly to an output stream. Entries are streamed from disk, so memory usage does not depend on
+ * the number or size of the archived files. Large archives can be deflated in parallel on a pool shared by all
+ * downloads, in which case the compressed entries are spooled to temporary files before they are written to the
+ * output stream.
+ *
+ * @author timo.buechert
+ */
+@Service
+@Slf4j
+public class ArchiveService {
+
+    private final int defaultCompressionLevel;
+
+    private final long parallelThresholdInBytes;
+
+    private final ExecutorService archiveExecutorService;
+
+    public ArchiveService(@Value("${DOWNLOAD_ZIP_COMPRESSION_LEVEL:6}") final int defaultCompressionLevel,
+                          @Value("${DOWNLOAD_ZIP_PARALLEL_THRESHOLD_BYTES:67108864}") final long parallelThresholdInBytes,
+                          @Qualifier("archiveExecutorService") final ExecutorService archiveExecutorService) {
+        this.defaultCompressionLevel = defaultCompressionLevel;
+        this.parallelThresholdInBytes = parallelThresholdInBytes;
+        this.archiveExecutorService = archiveExecutorService;
+    }
+
+    /**
+     * @param compressionLevel 0 stores the entries without compression, 1-9 deflates them, null uses the configured
+     *                         default
+     * @param parallel         whether to deflate entries in parallel, null decides based on the total size of the files
+     */
+    public void writeZip(final List<Path> files, final OutputStream out, final Integer compressionLevel,
+                         final Boolean parallel) throws IOException {
+        final int level = compressionLevel == null ? defaultCompressionLevel : compressionLevel;
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9 but was " + level);
+        }
+
+        final boolean deflateInParallel = level != Deflater.NO_COMPRESSION && files.size() > 1
+                && (parallel != null ? parallel : getTotalSize(files) >= parallelThresholdInBytes);
+
+        try (ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(out)) {
+            if (deflateInParallel) {
+                writeDeflatedInParallel(files, zipOutputStream, level);
+            } else if (level == Deflater.NO_COMPRESSION) {
+                writeStored(files, zipOutputStream);
+            } else {
+                writeDeflated(files, zipOutputStream, level);
+            }
+            zipOutputStream.finish();
+        }
+    }
+
+    private void writeDeflated(final List<Path> files, final ZipArchiveOutputStream zipOutputStream,
+                               final int level) throws IOException {
+        zipOutputStream.setMethod(ZipEntry.DEFLATED);
+        zipOutputStream.setLevel(level);
+        for (final Path file : files) {
+            final ZipArchiveEntry entry = new ZipArchiveEntry(file, file.getFileName().toString());
+            zipOutputStream.putArchiveEntry(entry);
+            try (InputStream in = Files.newInputStream(file)) {
+                IOUtils.copy(in, zipOutputStream);
+            }
+            zipOutputStream.closeArchiveEntry();
+        }
+    }
+
+    /**
+     * Stored entries on a non-seekable stream need size and CRC up front, so every file is read twice. This is still
+     * cheaper than deflating already compressed logs.
+     */
+    private void writeStored(final List<Path> files, final ZipArchiveOutputStream zipOutputStream) throws IOException {
+        zipOutputStream.setMethod(ZipEntry.STORED);
+        for (final Path file : files) {
+            final ZipArchiveEntry entry = new ZipArchiveEntry(file, file.getFileName().toString());
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(Files.size(file));
+            entry.setCrc(calculateCrc(file));
+            zipOutputStream.putArchiveEntry(entry);
+            try (InputStream in = Files.newInputStream(file)) {
+                IOUtils.copy(in, zipOutputStream);
+            }
+            zipOutputStream.closeArchiveEntry();
+        }
+    }
+
+    private void writeDeflatedInParallel(final List<Path> files, final ZipArchiveOutputStream zipOutputStream,
+                                         final int level) throws IOException {
+        final ExecutorService executorService = new ArchiveExecutor(archiveExecutorService);
+        final ParallelScatterZipCreator creator = new ParallelScatterZipCreator(executorService,
+                new DefaultBackingStoreSupplier(null), level);
+        log.debug("Deflating {} files in parallel with level {}", files.size(), level);
+
+        for (final Path file : files) {
+            final ZipArchiveEntry entry = new ZipArchiveEntry(file, file.getFileName().toString());
+            entry.setMethod(ZipEntry.DEFLATED);
+            creator.addArchiveEntry(entry, openFile(file));
+        }
+
+        try {
+            creator.writeTo(zipOutputStream);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing archive", e);
+        } catch (final ExecutionException e) {
+            throw new IOException("Failed to deflate archive entry", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * View of the shared pool for a single archive. The {@link ParallelScatterZipCreator} shuts down its executor after
+     * writing, which must only end the tasks of this archive and not the shared pool.
+     */
+    private static final class ArchiveExecutor extends AbstractExecutorService {
+
+        private final ExecutorService sharedExecutorService;
+
+        private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+
+        private volatile boolean shutdown;
+
+        private ArchiveExecutor(final ExecutorService sharedExecutorService) {
+            this.sharedExecutorService = sharedExecutorService;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("The archive has already been written");
+            }
+            tasks.add(sharedExecutorService.submit(command));
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            tasks.forEach(task -> task.cancel(true));
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && tasks.stream().allMatch(Future::isDone);
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            for (final Future<?> task : tasks) {
+                try {
+                    task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (final ExecutionException | CancellationException e) {
+                    // the task is done, its failure is reported by the creator
+                } catch (final TimeoutException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    private static InputStreamSupplier openFile(final Path file) {
+        return () -> {
+            try {
+                return Files.newInputStream(file);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static long calculateCrc(final Path file) throws IOException {
+        try (CheckedInputStream in = new CheckedInputStream(Files.newInputStream(file), new CRC32())) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return in.getChecksum().getValue();
+        }
+    }
+
+    private static long getTotalSize(final List<Path> files) throws IOException {
+        long totalSize = 0;
+        for (final Path file : files) {
+            totalSize += Files.size(file);
+        }
+        return totalSize;
+    }
+
+}
@@ -7,31 +7,45 @@ import com.github.kudeplatform.evaluationengine.async.MultiEvaluator;
 import com.github.kudeplatform.evaluationengine.domain.*;
 import com.github.kudeplatform.evaluationengine.mapper.EvaluationEventMapper;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceId;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceRepository;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventRepository;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultEntity;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultRepository;
+import com.github.kudeplatform.evaluationengine.util.StripedLock;
 import com.github.kudeplatform.evaluationengine.util.TextUtil;
-import com.github.kudeplatform.evaluationengine.view.NotifiableComponent;
+import io.kubernetes.client.custom.Quantity;
 import io.kubernetes.client.openapi.ApiException;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR;
@@ -42,16 +56,18 @@ import static com.github.kudeplatform.evaluationengine.service.FileSystemService
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class EvaluationService implements ApplicationContextAware {
+public class EvaluationService implements ApplicationContextAware, SettingsChangeListener {
 
     @Qualifier("evaluationTaskExecutor")
-    final ThreadPoolTaskExecutor taskExecutor;
+    final AsyncTaskExecutor taskExecutor;
 
     @Qualifier(value = "asyncEvaluatorExecutorService")
     final ExecutorService asyncEvaluatorExecutorService;
 
     final EvaluationEventRepository evaluationEventRepository;
 
+    final EvaluationEventInstanceRepository evaluationEventInstanceRepository;
+
     final EvaluationResultRepository evaluationResultRepository;
 
     final MultiEvaluator multiEvaluator;
@@ -66,26 +82,75 @@ public class EvaluationService implements ApplicationContextAware {
 
     final FileSystemService fileSystemService;
 
-    final BlockingQueue<EvaluationTask> evaluationTaskQueue;
+    final EvaluationTaskQueue evaluationTaskQueue;
 
     final EvaluationFinishedEvaluator evaluationFinishedEvaluator;
 
-    @Qualifier(value = "activeEvaluationViewComponents")
-    final List<NotifiableComponent> activeEvaluationViewComponents;
+    final NotificationBus notificationBus;
+
+    final TransactionTemplate transactionTemplate;
+
+    final EvaluationStateStore evaluationStateStore;
+
+    final OrchestrationService orchestrationService;
+
+    final ResultCacheService resultCacheService;
+
+    final Map<String, Future<Result>> evaluationFutures = new ConcurrentHashMap<>();
+
+    final Map<String, EvaluationRunnable> evaluationIdsToRunnables = new ConcurrentHashMap<>();
+
+    final List<Future<?>> activeEvaluationThreads = new CopyOnWriteArrayList<>();
+
+    static final int TASK_LOCK_STRIPES = 64;
+
+    private final StripedLock taskLocks = new StripedLock(TASK_LOCK_STRIPES);
+
+    /**
+     * Admits evaluations based on the resources their replicas request. There are as many evaluation threads as
+     * evaluations fit on the empty worker nodes at the same time, so the planner alone decides how many of them run.
+     */
+    private volatile PlacementPlanner placementPlanner;
+
+    /**
+     * Number of queued evaluations that are deployed ahead of a free run slot, 0 deploys an evaluation only once it
+     * got a run slot. Prepared evaluations do not reserve resources in the placement planner, this is their budget.
+     */
+    @Value("${EVALUATION_PREPARE_AHEAD:0}")
+    private int prepareAhead;
+
+    private Semaphore preparationPermits;
+
+    /**
+     * Ids of the evaluations that are being prepared or wait in {@link #preparedTasks}. Whoever removes an id owns
+     * the prepared deployment and its preparation permit.
+     */
+    final Set<String> tasksInPreparation = ConcurrentHashMap.newKeySet();
 
-    final Map<String, Future<Result>> evaluationFutures = new HashMap<>();
+    final BlockingQueue<EvaluationTask> preparedTasks = new LinkedBlockingQueue<>();
 
-    final Map<String, EvaluationRunnable> evaluationIdsToRunnables = new HashMap<>();
+    @Value("${" + OrchestrationService.RECONCILE_ON_STARTUP_PROPERTY + ":false}")
+    private boolean reconcileOnStartup;
 
-    final List<Future<?>> activeEvaluationThreads = new ArrayList<>();
+    /**
+     * Evaluations that were running before a restart and are taken by the evaluation threads before any queued one.
+     */
+    final BlockingQueue<ResumedEvaluation> resumedEvaluations = new LinkedBlockingQueue<>();
 
-    private Semaphore evaluationLock;
+    private volatile int maxNumberOfParallelJobs;
 
+    /**
+     * Guards resizing of the evaluation threads. A ReentrantLock instead of a monitor, so that a virtual thread does
+     * not pin its carrier while holding it.
+     */
+    private final ReentrantLock parallelJobsLock = new ReentrantLock();
+
+    /**
+     * Number of worker nodes the placement planner plans on.
+     */
     @Getter
     private int numberOfNodes;
 
-    private final HashMap<String, List<Integer>> podIndicesReadyToRun = new HashMap<>();
-
     private ApplicationContext context;
 
     @Override
@@ -100,128 +165,260 @@ public class EvaluationService implements ApplicationContextAware {
     @PostConstruct
     @Transactional
     public void init() throws ApiException {
-        this.numberOfNodes = kubernetesService.getNumberOfNodes();
-        final int maxNumberOfParallelJobs = calculateMaxNumberOfParallelJobs(this.settingsService.getReplicationFactor(),
-                this.settingsService.getMaxJobsPerNode());
-
-        this.evaluationLock = new Semaphore(maxNumberOfParallelJobs);
-        this.cancelAllEvaluationTasks();
-        this.deleteAllPreviousResults();
+        this.placementPlanner = createPlacementPlanner(this.settingsService.getMaxJobsPerNode());
+        this.maxNumberOfParallelJobs = calculateMaxNumberOfParallelJobs(this.placementPlanner);
+        if (reconcileOnStartup) {
+            this.reattachStartedEvaluationTasks();
+        } else {
+            this.cancelStartedEvaluationTasks();
+            this.deleteAllPreviousResults();
+        }
+        this.restoreQueuedEvaluationTasks();
 
         for (int i = 0; i < maxNumberOfParallelJobs; i++) {
             final EvaluationRunnable evaluationRunnable = new EvaluationRunnable();
             activeEvaluationThreads.add(taskExecutor.submit(evaluationRunnable));
         }
 
+        if (prepareAhead > 0) {
+            this.preparationPermits = new Semaphore(prepareAhead);
+            taskExecutor.submit(new PreparationRunnable());
+        }
+
+        this.settingsService.addSettingsChangeListener(this);
     }
 
-    public synchronized void saveIngestedEventAndNotifyView(final IngestedEvent ingestedEvent) {
-        getSelfReference().saveIngestedEvent(ingestedEvent);
+    @Override
+    public void settingsChanged(final Set<String> changedKeys) {
+        if (changedKeys.contains(SettingsService.KEY_REPLICATION_FACTOR) || changedKeys.contains(SettingsService.KEY_MAX_JOBS_PER_NODE)
+                || changedKeys.contains(SettingsService.KEY_CPU_REQUEST) || changedKeys.contains(SettingsService.KEY_MEMORY_REQUEST)) {
+            updateNumberOfParallelJobs();
+        }
+    }
+
+    /**
+     * Applies an ingested event to the in-memory state of its evaluation once the ingestion buffer accepted it. Persisting the event
+     * happens later through {@link #saveIngestedEvents(List)}.
+     */
+    public void applyToState(final IngestedEvent ingestedEvent) {
+        evaluationStateStore.get(ingestedEvent.getEvaluationId()).ifPresent(evaluationState -> {
+            for (final Event event : ingestedEvent.getEvents()) {
+                evaluationState.apply(event.getType(), event.getLevel(), ingestedEvent.getIndex());
+            }
+        });
+    }
+
+    public void saveIngestedEventAndNotifyView(final IngestedEvent ingestedEvent) {
+        saveIngestedEvent(ingestedEvent);
         this.notifyView(ingestedEvent.getEvaluationId());
     }
 
-    // TODO: Check if both @Transactional and synchronized are needed here - this combination is not recommended
-    // Some kind of thread synchronization is required here to prevent race conditions when multiple threads submit events concurrently
-    @Transactional
-    public synchronized void saveIngestedEvent(final IngestedEvent ingestedEvent) {
-        for (final Event event : ingestedEvent.getEvents()) {
-            handleEvent(ingestedEvent, event);
-        }
+    // Updates of the same task are serialized by the task lock, the lock is held until the transaction is committed
+    public void saveIngestedEvent(final IngestedEvent ingestedEvent) {
+        inTaskTransaction(ingestedEvent.getEvaluationId(), () -> {
+            final EvaluationResultEntity resultEntity = evaluationResultRepository.findById(ingestedEvent.getEvaluationId()).orElse(null);
+            if (resultEntity == null) {
+                log.warn("Dropping {} ingested events for unknown evaluation {}", ingestedEvent.getEvents().size(), ingestedEvent.getEvaluationId());
+                return;
+            }
 
-        final boolean fatal = ingestedEvent.getEvents().stream().anyMatch(Event::isFatal);
-        if (fatal) {
-            failEvaluationTask(ingestedEvent.getEvaluationId(), false);
-        }
+            for (final Event event : ingestedEvent.getEvents()) {
+                handleEvent(resultEntity, ingestedEvent, event);
+            }
+            evaluationResultRepository.save(resultEntity);
+
+            final boolean fatal = ingestedEvent.getEvents().stream().anyMatch(Event::isFatal);
+            if (fatal) {
+                failEvaluationTask(ingestedEvent.getEvaluationId(), false);
+            }
+        });
     }
 
-    private synchronized void handleEvent(final IngestedEvent ingestedEvent, final Event event) {
-        final List<EvaluationEventEntity> byTaskIdAndCategory =
-                evaluationEventRepository.findByTaskIdAndType(ingestedEvent.getEvaluationId(), event.getType());
+    public void saveIngestedEventsAndNotifyView(final List<IngestedEvent> ingestedEvents) {
+        final Set<String> taskIds = saveIngestedEvents(ingestedEvents);
+        taskIds.forEach(this::notifyView);
+    }
 
-        if (!byTaskIdAndCategory.isEmpty()) {
-            final EvaluationEventEntity evaluationEventEntity = byTaskIdAndCategory.get(0);
-            evaluationEventEntity.setTimestamp(ZonedDateTime.now());
+    /**
+     * Persists a batch of ingested events. Events are coalesced per (taskId, type) so that every event entity and
+     * every result entity is written at most once, the writes are flushed as JDBC batches on commit. The pods that
+     * reported an event type are recorded as event instances with one insert-if-absent batch.
+     *
+     * @return the ids of the evaluation tasks that were updated
+     */
+    public Set<String> saveIngestedEvents(final List<IngestedEvent> ingestedEvents) {
+        final Map<String, List<IngestedEvent>> ingestedEventsByTaskId = ingestedEvents.stream()
+                .collect(Collectors.groupingBy(IngestedEvent::getEvaluationId, LinkedHashMap::new, Collectors.toList()));
+
+        return taskLocks.callWithLocks(ingestedEventsByTaskId.keySet(),
+                () -> transactionTemplate.execute(status -> saveGroupedIngestedEvents(ingestedEventsByTaskId)));
+    }
 
-            // TODO: maybe rework database design to avoid concatenation of indices or move to the db level
-            evaluationEventEntity.setIndex(concatIndexIfNotYetContained(ingestedEvent, byTaskIdAndCategory));
-            evaluationEventRepository.save(evaluationEventEntity);
-        } else {
-            final EvaluationEvent evaluationEvent = new EvaluationEvent(ingestedEvent.getEvaluationId(),
-                    ZonedDateTime.now(),
-                    EvaluationStatus.RUNNING,
-                    event.getMessage(), ingestedEvent.getIndex(),
-                    event.getType(), event.getLevel());
+    private Set<String> saveGroupedIngestedEvents(final Map<String, List<IngestedEvent>> ingestedEventsByTaskId) {
+        final Map<String, EvaluationResultEntity> resultEntities = evaluationResultRepository.findAllById(ingestedEventsByTaskId.keySet())
+                .stream()
+                .collect(Collectors.toMap(EvaluationResultEntity::getTaskId, resultEntity -> resultEntity));
+
+        final List<EvaluationEventEntity> newEventEntities = new ArrayList<>();
+        final Map<EvaluationEventInstanceId, EvaluationEventInstanceEntity> eventInstances = new LinkedHashMap<>();
+        final Set<String> fatalTaskIds = new HashSet<>();
+
+        for (final Map.Entry<String, List<IngestedEvent>> entry : ingestedEventsByTaskId.entrySet()) {
+            final String taskId = entry.getKey();
+            final EvaluationResultEntity resultEntity = resultEntities.get(taskId);
+            if (resultEntity == null) {
+                log.warn("Dropping {} ingested events for unknown evaluation {}", entry.getValue().size(), taskId);
+                continue;
+            }
 
-            evaluationEventRepository.save(evaluationEventMapper.toEntity(evaluationEvent));
-        }
-        final EvaluationResultEntity resultEntity = evaluationResultRepository.findById(ingestedEvent.getEvaluationId()).orElseThrow();
-        resultEntity.setMessage(getSelfReference().findLastMostImportantErrorEvent(ingestedEvent.getEvaluationId()));
+            final Map<String, EvaluationEventEntity> eventEntitiesByType = new LinkedHashMap<>();
+            evaluationEventRepository.findByTaskId(taskId).forEach(eventEntity -> eventEntitiesByType.putIfAbsent(eventEntity.getType(), eventEntity));
+
+            for (final IngestedEvent ingestedEvent : entry.getValue()) {
+                for (final Event event : ingestedEvent.getEvents()) {
+                    if (!eventEntitiesByType.containsKey(event.getType())) {
+                        final EvaluationEventEntity newEventEntity = createEventEntity(ingestedEvent, event);
+                        eventEntitiesByType.put(event.getType(), newEventEntity);
+                        newEventEntities.add(newEventEntity);
+                    }
+                    createEventInstance(ingestedEvent, event)
+                            .ifPresent(eventInstance -> eventInstances.putIfAbsent(eventInstance.getId(), eventInstance));
 
-        if (event.getType().equals("BUILD_COMPLETED")) {
-            synchronized (podIndicesReadyToRun) {
-                podIndicesReadyToRun.get(ingestedEvent.getEvaluationId()).add(Integer.parseInt(ingestedEvent.getIndex()));
+                    applyEventToResult(resultEntity, ingestedEvent, event);
+                    if (event.isFatal()) {
+                        fatalTaskIds.add(taskId);
+                    }
+                }
             }
 
+            resultEntity.setMessage(evaluationStateStore.get(taskId)
+                    .map(EvaluationState::getMostImportantErrorEventType)
+                    .orElseGet(() -> findLastMostImportantErrorEvent(eventEntitiesByType.values())));
         }
 
-        if (event.getType().equals("JOB_COMPLETED")) {
+        evaluationEventRepository.saveAll(newEventEntities);
+        evaluationEventInstanceRepository.insertIfAbsent(eventInstances.values());
+        evaluationResultRepository.saveAll(resultEntities.values());
+
+        fatalTaskIds.forEach(taskId -> failEvaluationTask(taskId, false));
+        return resultEntities.keySet();
+    }
+
+    private void applyEventToResult(final EvaluationResultEntity resultEntity, final IngestedEvent ingestedEvent, final Event event) {
+        if (event.getType().equals(EvaluationState.TYPE_JOB_COMPLETED)) {
             resultEntity.getPodIndicesCompleted().add(Integer.parseInt(ingestedEvent.getIndex()));
             if (Objects.equals(ingestedEvent.getIndex(), "0")) {
                 resultEntity.setNetEvaluationDurationInSeconds(event.getDurationInSeconds());
             }
         }
-        evaluationResultRepository.save(resultEntity);
     }
 
-    private String concatIndexIfNotYetContained(final IngestedEvent ingestedEvent,
-                                                final List<EvaluationEventEntity> byTaskIdAndCategory) {
-        if (Arrays.stream(byTaskIdAndCategory.get(0).getIndex().split(","))
-                .anyMatch(index -> index.equals(ingestedEvent.getIndex()))) {
-            return byTaskIdAndCategory.get(0).getIndex();
+    private void handleEvent(final EvaluationResultEntity resultEntity, final IngestedEvent ingestedEvent, final Event event) {
+        final List<EvaluationEventEntity> byTaskIdAndCategory =
+                evaluationEventRepository.findByTaskIdAndType(ingestedEvent.getEvaluationId(), event.getType());
+
+        if (byTaskIdAndCategory.isEmpty()) {
+            evaluationEventRepository.save(createEventEntity(ingestedEvent, event));
+        }
+        createEventInstance(ingestedEvent, event)
+                .ifPresent(eventInstance -> evaluationEventInstanceRepository.insertIfAbsent(List.of(eventInstance)));
+
+        resultEntity.setMessage(getCurrentMessage(ingestedEvent.getEvaluationId()));
+        applyEventToResult(resultEntity, ingestedEvent, event);
+    }
+
+    /**
+     * Creates the row of an event type, it keeps the message, level and pod of the first occurrence.
+     */
+    private EvaluationEventEntity createEventEntity(final IngestedEvent ingestedEvent, final Event event) {
+        final EvaluationEvent evaluationEvent = new EvaluationEvent(ingestedEvent.getEvaluationId(),
+                ZonedDateTime.now(),
+                EvaluationStatus.RUNNING,
+                event.getMessage(), ingestedEvent.getIndex(),
+                event.getType(), event.getLevel());
+        return evaluationEventMapper.toEntity(evaluationEvent);
+    }
+
+    private Optional<EvaluationEventInstanceEntity> createEventInstance(final IngestedEvent ingestedEvent, final Event event) {
+        if (!StringUtils.hasText(ingestedEvent.getIndex())) {
+            return Optional.empty();
         }
-        return byTaskIdAndCategory.get(0).getIndex() + "," + ingestedEvent.getIndex();
+        return Optional.of(new EvaluationEventInstanceEntity(ingestedEvent.getEvaluationId(), event.getType(),
+                ingestedEvent.getIndex(), ZonedDateTime.now()));
     }
 
     public boolean areAllPodsReadyToRun(final String taskId) {
-        return podIndicesReadyToRun.containsKey(taskId) && podIndicesReadyToRun.get(taskId).size() == settingsService.getReplicationFactor();
+        return evaluationStateStore.get(taskId).map(EvaluationState::areAllPodsReadyToRun).orElse(false);
     }
 
     public boolean isNoJobRunning() {
-        return this.evaluationLock.availablePermits() == calculateMaxNumberOfParallelJobs(
-                this.settingsService.getReplicationFactor(), this.settingsService.getMaxJobsPerNode());
+        return this.placementPlanner.isIdle();
     }
 
-    public void updateNumberOfParallelJobs(final int newReplicationFactor, final int newMaxJobsPerNode) {
-        if (isNoJobRunning()) {
-            this.evaluationLock = new Semaphore(calculateMaxNumberOfParallelJobs(newReplicationFactor, newMaxJobsPerNode));
+    /**
+     * The planner only plans on the nodes labelled as workers, the number of nodes is taken from them.
+     */
+    private PlacementPlanner createPlacementPlanner(final int maxJobsPerNode) throws ApiException {
+        final List<NodeResources> workerNodeResources = kubernetesService.getWorkerNodeResources();
+        log.info("Planning evaluations on worker nodes {}", workerNodeResources);
+        final int numberOfNodesWithoutReserved = kubernetesService.getNumberOfNodes();
+        if (numberOfNodesWithoutReserved != workerNodeResources.size()) {
+            log.warn("Found {} worker nodes labelled {}, but {} nodes that are not reserved for the system. Evaluations are only planned on the labelled nodes.",
+                    workerNodeResources.size(), KubernetesService.WORKER_NODE_SELECTOR, numberOfNodesWithoutReserved);
+        }
+        this.numberOfNodes = workerNodeResources.size();
+        return new PlacementPlanner(workerNodeResources, maxJobsPerNode);
+    }
+
+    /**
+     * Re-plans the worker nodes with the current settings and restarts the evaluation threads.
+     *
+     * @throws IllegalStateException if evaluations are running or the worker nodes cannot be read
+     */
+    public void updateNumberOfParallelJobs() {
+        parallelJobsLock.lock();
+        try {
+            if (!isNoJobRunning()) {
+                log.error("Cannot update number of parallel jobs while jobs are running");
+                throw new IllegalStateException("Cannot update number of parallel jobs while jobs are running");
+            }
+
+            final PlacementPlanner newPlacementPlanner;
+            try {
+                newPlacementPlanner = createPlacementPlanner(settingsService.getMaxJobsPerNode());
+            } catch (final ApiException e) {
+                throw new IllegalStateException("Failed to read the resources of the worker nodes", e);
+            }
+            final int newMaxNumberOfParallelJobs = calculateMaxNumberOfParallelJobs(newPlacementPlanner);
+            this.placementPlanner = newPlacementPlanner;
+            this.maxNumberOfParallelJobs = newMaxNumberOfParallelJobs;
             this.activeEvaluationThreads.forEach(future -> future.cancel(true));
             this.activeEvaluationThreads.clear();
 
-            for (int i = 0; i < calculateMaxNumberOfParallelJobs(newReplicationFactor, newMaxJobsPerNode); i++) {
+            for (int i = 0; i < newMaxNumberOfParallelJobs; i++) {
                 final EvaluationRunnable evaluationRunnable = new EvaluationRunnable();
                 activeEvaluationThreads.add(taskExecutor.submit(evaluationRunnable));
             }
-        } else {
-            log.error("Cannot update number of parallel jobs while jobs are running");
-            throw new IllegalStateException("Cannot update number of parallel jobs while jobs are running");
+        } finally {
+            parallelJobsLock.unlock();
         }
     }
 
     public int getPositionInQueue(final String taskId) {
-        int positionInQueue = 1;
-        for (final EvaluationTask taskInQueue : evaluationTaskQueue) {
-            if (taskInQueue.taskId().equals(taskId)) {
-                return positionInQueue;
-            }
-            positionInQueue++;
-        }
-
-        return -1;
+        return evaluationTaskQueue.getPositionInQueue(taskId);
     }
 
     public void submitEvaluationTask(final EvaluationTask evaluationTask, final boolean notifyView) {
         getSelfReference().saveEvaluationEntity(evaluationTask);
+        addGitCredentials(evaluationTask);
 
+        evaluationTaskQueue.add(evaluationTask);
+        if (notifyView) {
+            notifyView(evaluationTask.taskId());
+        }
+    }
+
+    private void addGitCredentials(final EvaluationTask evaluationTask) {
         if (evaluationTask instanceof GitEvaluationTask gitEvaluationTask) {
             final String gitUser = settingsService.getGitUsername();
             final String gitToken = settingsService.getGitToken();
@@ -230,11 +427,109 @@ public class EvaluationService implements ApplicationContextAware {
                 gitEvaluationTask.setGitUrl(gitUrl.replace("https://", "https://" + gitUser + ":" + gitToken + "@"));
             }
         }
+    }
 
-        evaluationTaskQueue.add(evaluationTask);
-        if (notifyView) {
-            notifyView(evaluationTask.taskId());
+    /**
+     * Evaluations that had been started before the restart lost their deployment and their evaluation thread.
+     */
+    private void cancelStartedEvaluationTasks() {
+        findStartedEvaluationEntities().forEach(entity -> updateTaskStatus(entity.getTaskId(), EvaluationStatus.CANCELLED));
+    }
+
+    /**
+     * Re-attaches to the evaluations that were started before the restart and still have a deployment. Their
+     * in-memory state is rebuilt from the persisted events, the evaluation threads pick them up before any queued
+     * evaluation and continue with the remaining part of their timeout. Deployments that do not belong to a started
+     * evaluation are deleted, queued evaluations are deployed again when they are taken.
+     */
+    private void reattachStartedEvaluationTasks() {
+        final Set<String> deployedTaskIds = new HashSet<>(orchestrationService.getDeployedTaskIds());
+
+        for (final EvaluationResultEntity entity : findStartedEvaluationEntities()) {
+            if (!deployedTaskIds.remove(entity.getTaskId()) || entity.getGitUrl() == null) {
+                log.info("Deployment of task {} is gone, cancelling it", entity.getTaskId());
+                updateTaskStatus(entity.getTaskId(), EvaluationStatus.CANCELLED);
+                continue;
+            }
+
+            final GitEvaluationTask gitEvaluationTask = toGitEvaluationTask(entity);
+            final int replicas = entity.getInstanceStartCommands() == null || entity.getInstanceStartCommands().isEmpty()
+                    ? settingsService.getReplicationFactor()
+                    : entity.getInstanceStartCommands().size();
+            restoreEvaluationState(entity, replicas);
+
+            resumedEvaluations.add(new ResumedEvaluation(gitEvaluationTask, replicas, entity.getStartTimestamp()));
+        }
+        log.info("Re-attached to {} running evaluations", resumedEvaluations.size());
+
+        for (final String orphanedTaskId : deployedTaskIds) {
+            log.info("Deleting deployment of task {} that is not running anymore", orphanedTaskId);
+            orchestrationService.deleteTask(orphanedTaskId);
+        }
+    }
+
+    /**
+     * Rebuilds the in-memory state of a started evaluation. The event rows only keep the pod of the first occurrence
+     * of a type, so they provide the types and levels, while the pods that reported a type come from the event
+     * instances.
+     */
+    EvaluationState restoreEvaluationState(final EvaluationResultEntity entity, final int replicas) {
+        final String taskId = entity.getTaskId();
+        final EvaluationState evaluationState = evaluationStateStore.create(taskId, replicas);
+
+        final List<Map.Entry<ZonedDateTime, Runnable>> updates = new ArrayList<>();
+        for (final EvaluationEventEntity event : evaluationEventRepository.findByTaskId(taskId)) {
+            updates.add(new AbstractMap.SimpleImmutableEntry<>(event.getTimestamp(),
+                    () -> evaluationState.apply(event.getType(), event.getLevel(), null)));
         }
+        for (final EvaluationEventInstanceEntity eventInstance : evaluationEventInstanceRepository.findByIdTaskIdOrderByTimestampAsc(taskId)) {
+            updates.add(new AbstractMap.SimpleImmutableEntry<>(eventInstance.getTimestamp(),
+                    () -> evaluationState.apply(eventInstance.getId().getType(), null, eventInstance.getId().getPodIndex())));
+        }
+
+        updates.stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(update -> update.getValue().run());
+        return evaluationState;
+    }
+
+    private List<EvaluationResultEntity> findStartedEvaluationEntities() {
+        return evaluationResultRepository.findAll().stream()
+                .filter(entity -> !entity.getStatus().isFinal() && !entity.getStatus().isPending() && !entity.getStatus().isPreparing())
+                .toList();
+    }
+
+    private GitEvaluationTask toGitEvaluationTask(final EvaluationResultEntity entity) {
+        final List<String> instanceStartCommands = entity.getInstanceStartCommands() == null || entity.getInstanceStartCommands().isEmpty()
+                ? List.of(entity.getMasterStartCommand(), entity.getFirstWorkerStartCommand())
+                : List.copyOf(entity.getInstanceStartCommands());
+        final GitEvaluationTask gitEvaluationTask = new GitEvaluationTask(entity.getGitUrl(), entity.getTaskId(),
+                instanceStartCommands, entity.getName(), entity.getGitBranch(), entity.getDatasetName());
+        Optional.ofNullable(entity.getPriority()).ifPresent(gitEvaluationTask::setPriority);
+        gitEvaluationTask.setSubmittedTimestamp(entity.getSubmittedTimestamp());
+        gitEvaluationTask.setForceRerun(entity.isForceRerun());
+        addGitCredentials(gitEvaluationTask);
+        return gitEvaluationTask;
+    }
+
+    /**
+     * Puts the evaluations that were queued before the restart back into the queue in their submission order. Queued
+     * evaluations are persisted with everything needed to deploy them, the credentials are added again from the
+     * settings.
+     */
+    private void restoreQueuedEvaluationTasks() {
+        final List<EvaluationResultEntity> queuedEntities = evaluationResultRepository.findAll().stream()
+                .filter(entity -> entity.getStatus().isPending() || entity.getStatus().isPreparing())
+                .filter(entity -> entity.getGitUrl() != null)
+                .sorted(Comparator.comparing(EvaluationResultEntity::getSubmittedTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+
+        for (final EvaluationResultEntity entity : queuedEntities) {
+            final GitEvaluationTask gitEvaluationTask = toGitEvaluationTask(entity);
+            updateTaskStatus(entity.getTaskId(), EvaluationStatus.PENDING);
+            evaluationTaskQueue.add(gitEvaluationTask);
+        }
+        log.info("Restored {} queued evaluations", queuedEntities.size());
     }
 
     @Transactional
@@ -246,6 +541,10 @@ public class EvaluationService implements ApplicationContextAware {
         evaluationResultEntity.setDatasetName(evaluationTask.datasetName());
         evaluationResultEntity.setMasterStartCommand(evaluationTask.instanceStartCommands().get(0));
         evaluationResultEntity.setFirstWorkerStartCommand(evaluationTask.instanceStartCommands().size() > 1 ? evaluationTask.instanceStartCommands().get(1) : "");
+        evaluationResultEntity.setInstanceStartCommands(new ArrayList<>(evaluationTask.instanceStartCommands()));
+        evaluationResultEntity.setPriority(evaluationTask.priority());
+        evaluationResultEntity.setSubmittedTimestamp(evaluationTask.submittedTimestamp());
+        evaluationResultEntity.setForceRerun(evaluationTask.forceRerun());
 
         if (evaluationTask instanceof GitEvaluationTask gitEvaluationTask) {
             evaluationResultEntity.setGitUrl(gitEvaluationTask.repositoryUrl());
@@ -254,15 +553,16 @@ public class EvaluationService implements ApplicationContextAware {
         evaluationResultRepository.save(evaluationResultEntity);
     }
 
-    public synchronized void failEvaluationTask(final String taskId, final boolean notifyView) {
-        evaluationTaskQueue.removeIf(task -> task.taskId().equals(taskId));
-
-        if (evaluationIdsToRunnables.containsKey(taskId)) {
-            evaluationIdsToRunnables.get(taskId).fail();
-        }
+    public void failEvaluationTask(final String taskId, final boolean notifyView) {
+        final boolean taskPrepared = taskLocks.callWithLock(taskId, () -> {
+            evaluationTaskQueue.remove(taskId);
+            Optional.ofNullable(evaluationIdsToRunnables.get(taskId)).ifPresent(EvaluationRunnable::fail);
+            Optional.ofNullable(evaluationFutures.get(taskId)).ifPresent(future -> future.cancel(true));
+            return withdrawPreparedTask(taskId);
+        });
 
-        if (evaluationFutures.containsKey(taskId)) {
-            evaluationFutures.get(taskId).cancel(true);
+        if (taskPrepared) {
+            taskExecutor.execute(() -> discardPreparedTask(taskId, EvaluationStatus.FAILED));
         }
 
         if (notifyView) {
@@ -270,15 +570,22 @@ public class EvaluationService implements ApplicationContextAware {
         }
     }
 
-    public synchronized void cancelEvaluationTaskAndNotifyView(final String taskId, final boolean notifyView) {
-        final boolean taskNotYetStarted = evaluationTaskQueue.stream().anyMatch(task -> task.taskId().equals(taskId));
-        if (taskNotYetStarted) {
-            evaluationTaskQueue.removeIf(task -> task.taskId().equals(taskId));
-            getSelfReference().updateTaskStatus(taskId, EvaluationStatus.CANCELLED);
-        } else {
-            if (evaluationFutures.containsKey(taskId)) {
-                evaluationFutures.get(taskId).cancel(true);
+    public void cancelEvaluationTaskAndNotifyView(final String taskId, final boolean notifyView) {
+        final boolean taskPrepared = taskLocks.callWithLock(taskId, () -> {
+            final boolean taskNotYetStarted = evaluationTaskQueue.remove(taskId);
+            if (taskNotYetStarted) {
+                updateTaskStatus(taskId, EvaluationStatus.CANCELLED);
+                return false;
+            }
+            if (withdrawPreparedTask(taskId)) {
+                return true;
             }
+            Optional.ofNullable(evaluationFutures.get(taskId)).ifPresent(future -> future.cancel(true));
+            return false;
+        });
+
+        if (taskPrepared) {
+            taskExecutor.execute(() -> discardPreparedTask(taskId, EvaluationStatus.CANCELLED));
         }
 
         if (notifyView) {
@@ -299,6 +606,7 @@ public class EvaluationService implements ApplicationContextAware {
         deleteFilesInTmpDirByPattern(taskId);
 
         evaluationEventRepository.deleteByTaskId(taskId);
+        evaluationEventInstanceRepository.deleteByIdTaskId(taskId);
         evaluationResultRepository.deleteById(taskId);
         notifyView();
     }
@@ -314,6 +622,7 @@ public class EvaluationService implements ApplicationContextAware {
         cancelAllEvaluationTasks();
         deleteAllPreviousResults();
         evaluationEventRepository.deleteAll();
+        evaluationEventInstanceRepository.deleteAllInBatch();
         evaluationResultRepository.deleteAll();
         notifyView();
     }
@@ -330,12 +639,15 @@ public class EvaluationService implements ApplicationContextAware {
         });
     }
 
-    public void submitMassEvaluationTask(final String value, final List<String> instanceStartCommands, String branchName, String datasetName) {
+    public void submitMassEvaluationTask(final String value, final List<String> instanceStartCommands, String branchName, String datasetName,
+                                         final boolean forceRerun) {
         final List<Repository> repositories = TextUtil.parseRepositoriesFromMassInput(value, settingsService.getGitUsername(), settingsService.getGitToken());
 
         for (final Repository repository : repositories) {
             final GitEvaluationTask gitEvaluationTask = new GitEvaluationTask(repository.url(), UUID.randomUUID().toString(),
                     instanceStartCommands, repository.name(), branchName, datasetName);
+            gitEvaluationTask.setPriority(EvaluationPriority.MASS);
+            gitEvaluationTask.setForceRerun(forceRerun);
             getSelfReference().submitEvaluationTask(gitEvaluationTask, false);
         }
 
@@ -386,28 +698,172 @@ public class EvaluationService implements ApplicationContextAware {
                 .collect(Collectors.toList());
     }
 
-    private int calculateMaxNumberOfParallelJobs(final int replicationFactor, final int maxJobsPerNode) {
-        return (this.numberOfNodes * maxJobsPerNode) / replicationFactor;
+    /**
+     * Must be called while holding the lock of the task.
+     *
+     * @return whether the task was being prepared or waited for a run slot, in which case the caller has to discard
+     * it
+     */
+    private boolean withdrawPreparedTask(final String taskId) {
+        if (!tasksInPreparation.remove(taskId)) {
+            return false;
+        }
+        preparedTasks.removeIf(task -> task.taskId().equals(taskId));
+        return true;
     }
 
-    public ResultsEvaluation areResultsCorrect(final String results) {
-        final List<String> solutionList = Arrays.asList(settingsService.getExpectedSolution().split("\n"));
-        final List<String> resultList = Arrays.asList(results.split("\n"));
+    private void discardPreparedTask(final String taskId, final EvaluationStatus evaluationStatus) {
+        try {
+            getSelfReference().updateTaskStatusAndMessage(taskId, evaluationStatus, getCurrentMessage(taskId));
+            evaluationStateStore.remove(taskId);
+            preparationPermits.release();
+            orchestrationService.deleteTask(taskId);
+        } catch (final Exception e) {
+            log.error("Failed to discard prepared task {}", taskId, e);
+        } finally {
+            notifyView(taskId);
+        }
+    }
 
-        final List<String> cleanedSolutionList = solutionList.stream().filter(StringUtils::hasText).map(String::trim).distinct().toList();
-        final List<String> cleanedResultList = resultList.stream().filter(StringUtils::hasText).map(String::trim).distinct().toList();
+    /**
+     * Completes the task with the result of an earlier evaluation of the same commit with the same configuration if
+     * there is one. The cache key is stored with the task either way, so that its own result can be reused once it
+     * succeeded.
+     *
+     * @return whether the task was completed from the result cache and must not be run
+     */
+    private boolean completeFromResultCache(final EvaluationTask task) {
+        if (!(task instanceof GitEvaluationTask gitEvaluationTask) || !resultCacheService.isEnabled()) {
+            return false;
+        }
 
-        int totalCorrect = 0;
-        for (final String cleanedResult : cleanedResultList) {
-            if (cleanedSolutionList.contains(cleanedResult)) {
-                totalCorrect++;
+        final String taskId = task.taskId();
+        try {
+            final Optional<String> cacheKey = resultCacheService.computeCacheKey(gitEvaluationTask);
+            if (cacheKey.isEmpty()) {
+                return false;
             }
+
+            final boolean completed = taskLocks.callWithLock(taskId, () -> transactionTemplate.execute(status -> {
+                final EvaluationResultEntity resultEntity = evaluationResultRepository.findById(taskId).orElseThrow();
+                resultEntity.setResultCacheKey(cacheKey.get());
+                final Optional<EvaluationResultEntity> cachedResult = resultCacheService.findCachedResult(cacheKey.get(),
+                        taskId, task.forceRerun());
+                if (cachedResult.isEmpty()) {
+                    evaluationResultRepository.save(resultEntity);
+                    return false;
+                }
+
+                try {
+                    resultCacheService.copyCachedResult(cachedResult.get(), resultEntity);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                log.info("Reused the result of task {} for task {}", cachedResult.get().getTaskId(), taskId);
+                return true;
+            }));
+
+            if (completed) {
+                notifyView(taskId);
+            }
+            return completed;
+        } catch (final Exception e) {
+            log.warn("Result cache lookup failed for task {}, evaluating it", taskId, e);
+            return false;
         }
+    }
 
-        final boolean allCorrect = new HashSet<>(cleanedResultList).containsAll(cleanedSolutionList) && new HashSet<>(cleanedSolutionList).containsAll(cleanedResultList);
-        final String resultProportion = String.format("%d/%d/%d", totalCorrect, cleanedResultList.size(), cleanedSolutionList.size());
+    /**
+     * Deploys a queued evaluation ahead of a free run slot. The preparation permits bound the number of prepared
+     * evaluations, the placement planner is only asked once an evaluation thread picks the task up, so that tasks are
+     * prepared while all run slots are busy. The pods build the submission on the spare capacity of the cluster and
+     * then wait at the readiness barrier, since the state of the evaluation is held until it is admitted.
+     */
+    void prepare(final EvaluationTask task) {
+        final String taskId = task.taskId();
+        final int replicas = settingsService.getReplicationFactor();
+        tasksInPreparation.add(taskId);
+        evaluationStateStore.create(taskId, replicas).hold();
+
+        try {
+            getSelfReference().updateTaskStatus(taskId, EvaluationStatus.PREPARING);
+            notifyView(taskId);
+            deploy(task);
+        } catch (final Exception e) {
+            log.error("Preparing evaluation failed", e);
+            getSelfReference().evaluationEventCallback(new EvaluationEvent(taskId, ZonedDateTime.now(),
+                    EvaluationStatus.FAILED, e.getMessage(), "", "EVALUATION_FAILED", EvaluationEvent.LEVEL_FATAL));
+            if (taskLocks.callWithLock(taskId, () -> withdrawPreparedTask(taskId))) {
+                discardPreparedTask(taskId, EvaluationStatus.FAILED);
+            }
+            return;
+        }
 
-        return new ResultsEvaluation(cleanedResultList.size(), totalCorrect, cleanedSolutionList.size(), allCorrect, resultProportion);
+        final boolean withdrawnWhileDeploying = taskLocks.callWithLock(taskId, () -> {
+            if (!tasksInPreparation.contains(taskId)) {
+                return true;
+            }
+            preparedTasks.add(task);
+            return false;
+        });
+        if (withdrawnWhileDeploying) {
+            // the deployment may have been created after the withdrawing call deleted it
+            try {
+                orchestrationService.deleteTask(taskId);
+            } catch (final Exception e) {
+                log.error("Failed to delete withdrawn task {}", taskId, e);
+            }
+        }
+    }
+
+    /**
+     * Blocks until the replicas of the task fit on the worker nodes. The data manager synchronization is disabled while
+     * any resources are reserved.
+     *
+     * @return the names of the nodes the replicas were planned on
+     */
+    private List<String> reserveResources(final PlacementPlanner planner, final String taskId, final int replicas) throws InterruptedException {
+        if (isNoJobRunning()) {
+            dataManagerService.disableDataManagerSynchronization();
+            log.info("Disabled data manager synchronization");
+        }
+        return planner.acquire(taskId, replicas, getCpuRequestInMillis(), getMemoryRequestInBytes());
+    }
+
+    private void releaseResources(final PlacementPlanner planner, final String taskId) {
+        planner.release(taskId);
+        if (isNoJobRunning()) {
+            dataManagerService.enableDataManagerSynchronization();
+            log.info("Enabled data manager synchronization");
+        }
+    }
+
+    /**
+     * @return the number of evaluations with the configured replicas and requests that fit on the empty worker nodes at
+     * the same time, at least one so that an evaluation that does not fit at all fails instead of waiting forever
+     */
+    private int calculateMaxNumberOfParallelJobs(final PlacementPlanner planner) {
+        return Math.max(1, planner.getCapacity(settingsService.getReplicationFactor(), getCpuRequestInMillis(), getMemoryRequestInBytes()));
+    }
+
+    private long getCpuRequestInMillis() {
+        return KubernetesService.toCpuMillis(Quantity.fromString(settingsService.getCpuRequest()));
+    }
+
+    private long getMemoryRequestInBytes() {
+        return KubernetesService.toBytes(Quantity.fromString(settingsService.getMemoryRequest()));
+    }
+
+    public ResultsEvaluation areResultsCorrect(final String results) {
+        try {
+            return areResultsCorrect(new BufferedReader(new StringReader(results)));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ResultsEvaluation areResultsCorrect(final BufferedReader results) throws IOException {
+        return settingsService.getExpectedSolutionIndex().evaluate(results);
     }
 
     public String getTemplateStartCommand(final int instanceId, String datasetName) {
@@ -449,26 +905,48 @@ public class EvaluationService implements ApplicationContextAware {
             try {
                 while (!Thread.currentThread().isInterrupted() && !interrupted) {
 
-                    EvaluationTask task = evaluationTaskQueue.take();
+                    final ResumedEvaluation resumedEvaluation = resumedEvaluations.poll();
+                    final boolean resumed = resumedEvaluation != null;
+                    final boolean prepared = !resumed && prepareAhead > 0;
+                    final EvaluationTask task;
+                    if (resumed) {
+                        task = resumedEvaluation.task();
+                    } else {
+                        task = prepared ? takePreparedTask() : evaluationTaskQueue.take();
+                    }
+                    if (!prepared && !resumed && completeFromResultCache(task)) {
+                        continue;
+                    }
+                    final int replicas = resumed ? resumedEvaluation.replicas() : settingsService.getReplicationFactor();
+                    final PlacementPlanner planner = placementPlanner;
                     evaluationIdsToRunnables.put(task.taskId(), this);
-                    podIndicesReadyToRun.put(task.taskId(), new ArrayList<>());
+                    if (!prepared && !resumed) {
+                        evaluationStateStore.create(task.taskId(), replicas);
+                    }
 
                     try {
-                        if (isNoJobRunning()) {
-                            dataManagerService.disableDataManagerSynchronization();
-                            log.info("Disabled data manager synchronization");
+                        final List<String> nodeNames = reserveResources(planner, task.taskId(), replicas);
+                        log.info("Admitted task {} with replicas planned on nodes {}", task.taskId(), nodeNames);
+                        if (prepared) {
+                            // the pods of a prepared task wait at the readiness barrier until it is admitted
+                            evaluationStateStore.get(task.taskId()).ifPresent(EvaluationState::release);
                         }
 
-                        evaluationLock.acquire();
-
-                        getSelfReference().setStartTimestampNow(task.taskId());
+                        if (resumed) {
+                            // the job may have finished while the engine was down
+                            kubernetesService.waitForJobStatus(task.taskId(), replicas, status -> status.isRunning() || status.isFinal());
+                        } else {
+                            getSelfReference().setStartTimestampNow(task.taskId());
 
-                        getSelfReference().updateTaskStatus(task.taskId(), EvaluationStatus.DEPLOYING);
-                        notifyView(task.taskId());
+                            getSelfReference().updateTaskStatus(task.taskId(), EvaluationStatus.DEPLOYING);
+                            notifyView(task.taskId());
 
-                        deploy(task);
+                            if (!prepared) {
+                                deploy(task);
+                            }
 
-                        kubernetesService.waitForJobRunning(task.taskId(), settingsService.getReplicationFactor());
+                            kubernetesService.waitForJobRunning(task.taskId(), replicas);
+                        }
                         getSelfReference().updateTaskStatus(task.taskId(), EvaluationStatus.RUNNING);
                         notifyView(task.taskId());
 
@@ -478,7 +956,10 @@ public class EvaluationService implements ApplicationContextAware {
 
                         Result result;
                         try {
-                            result = evaluationFuture.get(settingsService.getTimeoutInSeconds(), TimeUnit.SECONDS);
+                            final long timeoutInSeconds = resumed
+                                    ? resumedEvaluation.getRemainingTimeoutInSeconds(settingsService.getTimeoutInSeconds())
+                                    : settingsService.getTimeoutInSeconds();
+                            result = evaluationFuture.get(timeoutInSeconds, TimeUnit.SECONDS);
                         } catch (CancellationException exception) {
                             if (failed) {
                                 log.info("Evaluation cancelled because of failed task {}", task.taskId());
@@ -501,7 +982,7 @@ public class EvaluationService implements ApplicationContextAware {
 
                         evaluationFutures.remove(task.taskId());
                         getSelfReference().updateTaskStatusAndMessage(task.taskId(), result.getEvaluationStatus(),
-                                getSelfReference().findLastMostImportantErrorEvent(task.taskId()));
+                                getCurrentMessage(task.taskId()));
 
                     } catch (final Exception e) {
                         log.error("Evaluation failed", e);
@@ -511,20 +992,15 @@ public class EvaluationService implements ApplicationContextAware {
                         
                         final Result result = new SingleEvaluationResult(task, EvaluationStatus.FAILED, List.of());
                         getSelfReference().updateTaskStatusAndMessage(task.taskId(), result.getEvaluationStatus(),
-                                getSelfReference().findLastMostImportantErrorEvent(task.taskId()));
+                                getCurrentMessage(task.taskId()));
                     } finally {
                         evaluationFutures.remove(task.taskId());
-                        evaluationLock.release();
-                        kubernetesService.deleteTask(task.taskId());
+                        releaseResources(planner, task.taskId());
+                        orchestrationService.deleteTask(task.taskId());
                         evaluationIdsToRunnables.remove(task.taskId());
                         notifyView(task.taskId());
                         this.failed = false;
-                        podIndicesReadyToRun.remove(task.taskId());
-
-                        if (isNoJobRunning()) {
-                            dataManagerService.enableDataManagerSynchronization();
-                            log.info("Enabled data manager synchronization");
-                        }
+                        evaluationStateStore.remove(task.taskId());
                     }
 
                 }
@@ -546,87 +1022,171 @@ public class EvaluationService implements ApplicationContextAware {
             log.info("Evaluation thread with id {} stopped", Thread.currentThread().threadId());
         }
 
+        /**
+         * @return the next prepared task that has not been withdrawn in the meantime
+         */
+        private EvaluationTask takePreparedTask() throws InterruptedException {
+            while (true) {
+                final EvaluationTask task = preparedTasks.take();
+                if (taskLocks.callWithLock(task.taskId(), () -> tasksInPreparation.remove(task.taskId()))) {
+                    preparationPermits.release();
+                    return task;
+                }
+            }
+        }
+
+    }
+
+    record ResumedEvaluation(EvaluationTask task, int replicas, ZonedDateTime startTimestamp) {
+
+        /**
+         * @return the part of the timeout that was not used up before the restart, counted from the start timestamp
+         */
+        long getRemainingTimeoutInSeconds(final long timeoutInSeconds) {
+            if (startTimestamp == null) {
+                return timeoutInSeconds;
+            }
+            return Math.max(0, timeoutInSeconds - Duration.between(startTimestamp, ZonedDateTime.now()).toSeconds());
+        }
+
+    }
+
+    /**
+     * Keeps up to {@code EVALUATION_PREPARE_AHEAD} queued evaluations deployed ahead of a free run slot.
+     */
+    class PreparationRunnable implements Runnable {
+
+        @Override
+        public void run() {
+            log.info("Preparation thread with id {} started", Thread.currentThread().threadId());
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    preparationPermits.acquire();
+                    final EvaluationTask task = evaluationTaskQueue.take();
+                    if (completeFromResultCache(task)) {
+                        preparationPermits.release();
+                        continue;
+                    }
+                    prepare(task);
+                }
+            } catch (final InterruptedException e) {
+                log.info("Preparation thread with id {} interrupted", Thread.currentThread().threadId());
+            }
+
+            log.info("Preparation thread with id {} stopped", Thread.currentThread().threadId());
+        }
+
     }
 
     @Transactional // TODO: @Transactional needed here?
     public void evaluationEventCallback(final EvaluationEvent result) {
+        evaluationStateStore.get(result.taskId()).ifPresent(evaluationState ->
+                evaluationState.apply(result.type(), result.level(), result.index()));
         evaluationEventRepository.save(evaluationEventMapper.toEntity(result));
     }
 
-    public synchronized void updateLogsAvailableAndNotifyView(final String jobId) {
-        getSelfReference().updateLogsAvailable(jobId);
+    public void updateLogsAvailableAndNotifyView(final String jobId) {
+        updateLogsAvailable(jobId);
         this.notifyView(jobId);
     }
 
-    public synchronized void updateResults(final String jobId, final String results) {
+    public void updateResults(final String jobId, final String results) {
         final ResultsEvaluation resultsEvaluation = areResultsCorrect(results);
-        getSelfReference().updateResults(resultsEvaluation, jobId);
+        updateResults(resultsEvaluation, jobId);
         this.notifyView(jobId);
     }
 
-    // TODO: Check if both @Transactional and synchronized are needed here - this combination is not recommended
-    @Transactional
-    public synchronized void updateLogsAvailable(final String taskId) {
-        final Optional<EvaluationResultEntity> evaluationResultEntityOptional = this.evaluationResultRepository.findById(taskId);
-        if (evaluationResultEntityOptional.isEmpty()) {
-            return;
+    public void updateResults(final String jobId, final Path resultsFile) throws IOException {
+        final ResultsEvaluation resultsEvaluation;
+        try (final BufferedReader results = Files.newBufferedReader(resultsFile, StandardCharsets.UTF_8)) {
+            resultsEvaluation = areResultsCorrect(results);
         }
+        updateResults(resultsEvaluation, jobId);
+        this.notifyView(jobId);
+    }
 
-        final EvaluationResultEntity evaluationResultEntity = evaluationResultEntityOptional.get();
-        evaluationResultEntity.setLogsAvailable(true);
-        evaluationResultRepository.save(evaluationResultEntity);
+    public void updateLogsAvailable(final String taskId) {
+        inTaskTransaction(taskId, () -> evaluationResultRepository.findById(taskId).ifPresent(evaluationResultEntity -> {
+            evaluationResultEntity.setLogsAvailable(true);
+            evaluationResultRepository.save(evaluationResultEntity);
+        }));
     }
 
+    public void updateResults(final ResultsEvaluation resultsEvaluation, final String jobId) {
+        inTaskTransaction(jobId, () -> evaluationResultRepository.findById(jobId).ifPresent(evaluationResultEntity -> {
+            evaluationResultEntity.setResultsAvailable(true);
+            evaluationResultEntity.setResultsCorrect(resultsEvaluation.correct());
+            evaluationResultEntity.setResultProportion(resultsEvaluation.resultProportion());
+            this.evaluationResultRepository.save(evaluationResultEntity);
+        }));
+    }
 
-    // TODO: Check if both @Transactional and synchronized are needed here - this combination is not recommended
-    @Transactional
-    public synchronized void updateResults(final ResultsEvaluation resultsEvaluation, final String jobId) {
-        final Optional<EvaluationResultEntity> evaluationResultEntityOptional = this.evaluationResultRepository.findById(jobId);
-        if (evaluationResultEntityOptional.isEmpty()) {
-            return;
-        }
-        final EvaluationResultEntity evaluationResultEntity = evaluationResultEntityOptional.get();
-        evaluationResultEntity.setResultsAvailable(true);
-        evaluationResultEntity.setResultsCorrect(resultsEvaluation.correct());
-        evaluationResultEntity.setResultProportion(resultsEvaluation.resultProportion());
-        this.evaluationResultRepository.save(evaluationResultEntity);
+    public void updateTaskStatus(final String taskId, final EvaluationStatus evaluationStatus) {
+        inTaskTransaction(taskId, () -> {
+            final EvaluationResultEntity evaluationResultEntity = evaluationResultRepository.findById(taskId).orElseThrow();
+            evaluationResultEntity.setStatus(evaluationStatus);
+            evaluationResultRepository.save(evaluationResultEntity);
+        });
     }
 
-    // TODO: Check if both @Transactional and synchronized are needed here - this combination is not recommended
-    @Transactional
-    public synchronized void updateTaskStatus(final String taskId, final EvaluationStatus evaluationStatus) {
-        final EvaluationResultEntity evaluationResultEntity = evaluationResultRepository.findById(taskId).orElseThrow();
-        evaluationResultEntity.setStatus(evaluationStatus);
-        evaluationResultRepository.save(evaluationResultEntity);
+    public void updateTaskStatusAndMessage(final String taskId, final EvaluationStatus evaluationStatus, String message) {
+        inTaskTransaction(taskId, () -> {
+            final EvaluationResultEntity resultEntity = evaluationResultRepository.findById(taskId).orElseThrow();
+            resultEntity.setStatus(evaluationStatus);
+            resultEntity.setMessage(message);
+            evaluationResultRepository.save(resultEntity);
+        });
     }
 
-    // TODO: Check if both @Transactional and synchronized are needed here - this combination is not recommended
-    @Transactional
-    public synchronized void updateTaskStatusAndMessage(final String taskId, final EvaluationStatus evaluationStatus, String message) {
-        final EvaluationResultEntity resultEntity = evaluationResultRepository.findById(taskId).orElseThrow();
-        resultEntity.setStatus(evaluationStatus);
-        resultEntity.setMessage(message);
-        evaluationResultRepository.save(resultEntity);
+    public void setStartTimestampNow(final String taskId) {
+        inTaskTransaction(taskId, () -> {
+            final EvaluationResultEntity evaluationResultEntity = evaluationResultRepository.findById(taskId).orElseThrow();
+            evaluationResultEntity.setStartTimestamp(ZonedDateTime.now());
+            evaluationResultRepository.save(evaluationResultEntity);
+        });
     }
 
-    // TODO: Check if both @Transactional and synchronized are needed here - this combination is not recommended
-    @Transactional
-    public synchronized void setStartTimestampNow(final String taskId) {
-        final EvaluationResultEntity evaluationResultEntity = evaluationResultRepository.findById(taskId).orElseThrow();
-        evaluationResultEntity.setStartTimestamp(ZonedDateTime.now());
-        evaluationResultRepository.save(evaluationResultEntity);
+    public void setEndTimestampNow(final String taskId) {
+        inTaskTransaction(taskId, () -> {
+            final EvaluationResultEntity evaluationResultEntity = evaluationResultRepository.findById(taskId).orElseThrow();
+            evaluationResultEntity.setEndTimestamp(ZonedDateTime.now());
+            evaluationResultRepository.save(evaluationResultEntity);
+        });
     }
 
-    // TODO: Check if both @Transactional and synchronized are needed here - this combination is not recommended
-    @Transactional
-    public synchronized void setEndTimestampNow(final String taskId) {
-        final EvaluationResultEntity evaluationResultEntity = evaluationResultRepository.findById(taskId).orElseThrow();
-        evaluationResultEntity.setEndTimestamp(ZonedDateTime.now());
-        evaluationResultRepository.save(evaluationResultEntity);
+    /**
+     * Runs the given update in a transaction while holding the lock of the task. The lock is acquired outside the
+     * transaction so that the next update of the same task only starts after the previous one has been committed.
+     */
+    private void inTaskTransaction(final String taskId, final Runnable update) {
+        taskLocks.runWithLock(taskId, () -> transactionTemplate.executeWithoutResult(status -> update.run()));
+    }
+
+    /**
+     * @return the message of a running evaluation from its in-memory state, falling back to the persisted events
+     */
+    public String getCurrentMessage(final String taskId) {
+        return evaluationStateStore.get(taskId)
+                .map(EvaluationState::getMostImportantErrorEventType)
+                .orElseGet(() -> findLastMostImportantErrorEvent(taskId));
+    }
+
+    /**
+     * @return the message of a running evaluation from its in-memory state, falling back to the persisted message
+     */
+    public String getCurrentMessage(final EvaluationResultEntity evaluationResultEntity) {
+        return evaluationStateStore.get(evaluationResultEntity.getTaskId())
+                .map(EvaluationState::getMostImportantErrorEventType)
+                .orElse(evaluationResultEntity.getMessage());
     }
 
     public String findLastMostImportantErrorEvent(final String taskId) {
-        final List<EvaluationEventEntity> events = evaluationEventRepository.findByTaskId(taskId);
+        return evaluationEventRepository.findLatestEventTypeByLevel(taskId, EvaluationEvent.LEVEL_FATAL)
+                .or(() -> evaluationEventRepository.findLatestEventTypeByLevel(taskId, EvaluationEvent.LEVEL_ERROR))
+                .orElse("");
+    }
+
+    private String findLastMostImportantErrorEvent(final Collection<EvaluationEventEntity> events) {
         final Optional<EvaluationEventEntity> fatalEvent = events.stream().filter(e -> e.getLevel().equals(EvaluationEvent.LEVEL_FATAL)).reduce((first, second) -> second);
         if (fatalEvent.isPresent()) {
             return fatalEvent.get().getType();
@@ -662,16 +1222,16 @@ public class EvaluationService implements ApplicationContextAware {
 
     private void deploy(EvaluationTask task) {
         if (task instanceof GitEvaluationTask gitEvaluationTask) {
-            kubernetesService.deployTask(gitEvaluationTask, settingsService, settingsService.getMaxJobsPerNode() > 1);
+            orchestrationService.deployTask(gitEvaluationTask, settingsService, settingsService.getMaxJobsPerNode() > 1);
         }
     }
 
     public void notifyView(final String taskId) {
-        activeEvaluationViewComponents.forEach(notifiableComponent -> notifiableComponent.dataChanged(taskId));
+        notificationBus.publish(NotificationTopic.EVALUATIONS, taskId);
     }
 
     public void notifyView() {
-        activeEvaluationViewComponents.forEach(NotifiableComponent::dataChanged);
+        notificationBus.publishAll(NotificationTopic.EVALUATIONS);
     }
 
 }
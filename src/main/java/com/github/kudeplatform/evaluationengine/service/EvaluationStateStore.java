@@ -0,0 +1,34 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.EvaluationState;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link EvaluationState} of all evaluations that are currently processed by an evaluation thread.
+ *
+ * @author timo.buechert
+ */
+@Service
+public class EvaluationStateStore {
+
+    private final Map<String, EvaluationState> states = new ConcurrentHashMap<>();
+
+    public EvaluationState create(final String taskId, final int replicas) {
+        final EvaluationState evaluationState = new EvaluationState(replicas);
+        states.put(taskId, evaluationState);
+        return evaluationState;
+    }
+
+    public Optional<EvaluationState> get(final String taskId) {
+        return Optional.ofNullable(states.get(taskId));
+    }
+
+    public void remove(final String taskId) {
+        states.remove(taskId);
+    }
+
+}
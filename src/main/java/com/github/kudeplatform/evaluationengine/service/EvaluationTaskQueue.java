@@ -0,0 +1,39 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.EvaluationTask;
+
+/**
+ * Queue of the evaluations that wait for an evaluation thread. Implementations decide in which order the tasks are
+ * taken and keep an index of the queue positions, so that looking up the position of a task does not iterate the
+ * queue.
+ *
+ * @author timo.buechert
+ */
+public interface EvaluationTaskQueue {
+
+    String QUEUE_MODE_PROPERTY = "EVALUATION_QUEUE_MODE";
+
+    /**
+     * @throws IllegalStateException if the queue is full
+     */
+    void add(EvaluationTask evaluationTask);
+
+    /**
+     * Blocks until a task is available.
+     */
+    EvaluationTask take() throws InterruptedException;
+
+    /**
+     * @return whether the task was queued
+     */
+    boolean remove(String taskId);
+
+    /**
+     * @return the 1-based position in which the task would be taken if no further tasks were submitted, or -1 if it
+     * is not queued
+     */
+    int getPositionInQueue(String taskId);
+
+    int size();
+
+}
@@ -0,0 +1,240 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.api.IngestedEvent;
+import com.github.kudeplatform.evaluationengine.domain.BackpressureMode;
+import com.github.kudeplatform.evaluationengine.domain.EventIngestionMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded write-behind buffer for ingested events. Requests only enqueue, a single writer thread drains the buffer
+ * in batches and hands each batch to {@link EvaluationService#saveIngestedEventsAndNotifyView(List)}. The writer and a
+ * caller that persists its event itself take turns on a fair lock, so buffered events are always persisted before a
+ * newer event of the same evaluation.
+ *
+ * @author timo.buechert
+ */
+@Service
+@Slf4j
+public class EventIngestionBuffer {
+
+    private final EvaluationService evaluationService;
+
+    private final BlockingQueue<IngestedEvent> buffer;
+
+    private final int capacity;
+
+    private final long flushIntervalInMillis;
+
+    private final int maxBatchSize;
+
+    private final BackpressureMode backpressureMode;
+
+    private final long offerTimeoutInMillis;
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong callerRuns = new AtomicLong();
+
+    private final AtomicLong flushedEvents = new AtomicLong();
+
+    private final AtomicLong flushedBatches = new AtomicLong();
+
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    private final AtomicLong lastFlushDurationInMillis = new AtomicLong();
+
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    public EventIngestionBuffer(final EvaluationService evaluationService,
+                                @Value("${EVENT_INGESTION_BUFFER_SIZE:10000}") final int capacity,
+                                @Value("${EVENT_INGESTION_FLUSH_INTERVAL_MS:50}") final long flushIntervalInMillis,
+                                @Value("${EVENT_INGESTION_MAX_BATCH_SIZE:500}") final int maxBatchSize,
+                                @Value("${EVENT_INGESTION_BACKPRESSURE_MODE:BLOCK}") final BackpressureMode backpressureMode,
+                                @Value("${EVENT_INGESTION_OFFER_TIMEOUT_MS:5000}") final long offerTimeoutInMillis) {
+        this.evaluationService = evaluationService;
+        this.capacity = capacity;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.flushIntervalInMillis = flushIntervalInMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.backpressureMode = backpressureMode;
+        this.offerTimeoutInMillis = offerTimeoutInMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        this.running = true;
+        this.writerThread = new Thread(this::drainLoop, "event-ingestion-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        log.info("Started event ingestion buffer with capacity {}, flush interval {}ms, max batch size {} and backpressure mode {}",
+                capacity, flushIntervalInMillis, maxBatchSize, backpressureMode);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        this.writerThread.interrupt();
+        this.writerThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        writeLock.lock();
+        try {
+            final List<IngestedEvent> remaining = new ArrayList<>();
+            buffer.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                log.info("Flushing {} remaining ingested events before shutdown", remaining.size());
+                flush(remaining);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Offers an ingested event to the buffer, applying the configured backpressure mode if the buffer is full.
+     *
+     * @return true if the event was accepted, false if it was rejected
+     */
+    public boolean offer(final IngestedEvent ingestedEvent) {
+        // the in-memory state is only updated for accepted events, a rejected event is sent again by the client
+        try {
+            final boolean offered = switch (backpressureMode) {
+                case BLOCK -> buffer.offer(ingestedEvent, offerTimeoutInMillis, TimeUnit.MILLISECONDS);
+                case REJECT, CALLER_RUNS -> buffer.offer(ingestedEvent);
+            };
+
+            if (offered) {
+                evaluationService.applyToState(ingestedEvent);
+                accepted.incrementAndGet();
+                return true;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (backpressureMode == BackpressureMode.CALLER_RUNS) {
+            callerRuns.incrementAndGet();
+            evaluationService.applyToState(ingestedEvent);
+            runOnCaller(ingestedEvent);
+            return true;
+        }
+
+        rejected.incrementAndGet();
+        log.warn("Rejected ingested event for evaluation {} because the ingestion buffer is full", ingestedEvent.getEvaluationId());
+        return false;
+    }
+
+    public EventIngestionMetrics getMetrics() {
+        return new EventIngestionMetrics(buffer.size(), capacity, backpressureMode,
+                accepted.get(), rejected.get(), callerRuns.get(),
+                flushedEvents.get(), flushedBatches.get(), failedBatches.get(),
+                largestBatch.get(), lastFlushDurationInMillis.get());
+    }
+
+    /**
+     * Persists the event on the calling thread. The events that are still buffered are older, they are drained and
+     * persisted in the same batch ahead of the event. Unknown evaluation ids are dropped by the batch like on the writer.
+     */
+    private void runOnCaller(final IngestedEvent ingestedEvent) {
+        writeLock.lock();
+        try {
+            final List<IngestedEvent> batch = new ArrayList<>(buffer.size() + 1);
+            buffer.drainTo(batch);
+            batch.add(ingestedEvent);
+            flush(batch);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                // the batch is taken from the buffer and persisted under the lock, otherwise a caller could persist a newer event in between
+                writeLock.lockInterruptibly();
+                try {
+                    final IngestedEvent first = buffer.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+
+                    final List<IngestedEvent> batch = new ArrayList<>(maxBatchSize);
+                    batch.add(first);
+                    collectBatch(batch);
+                    flush(batch);
+                } finally {
+                    writeLock.unlock();
+                }
+            } catch (final InterruptedException e) {
+                log.info("Event ingestion writer interrupted");
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final Exception e) {
+                log.error("Unexpected error in event ingestion writer", e);
+            }
+        }
+    }
+
+    /**
+     * Lingers for at most the flush interval to give concurrent pods the chance to fill up the batch.
+     */
+    private void collectBatch(final List<IngestedEvent> batch) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalInMillis);
+        while (batch.size() < maxBatchSize) {
+            buffer.drainTo(batch, maxBatchSize - batch.size());
+            final long remainingNanos = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remainingNanos <= 0) {
+                return;
+            }
+
+            final IngestedEvent next = buffer.poll(remainingNanos, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(final List<IngestedEvent> batch) {
+        final long start = System.currentTimeMillis();
+        try {
+            evaluationService.saveIngestedEventsAndNotifyView(batch);
+        } catch (final Exception e) {
+            // a single unknown evaluation id must not drop the whole batch, so fall back to per-event processing
+            failedBatches.incrementAndGet();
+            log.warn("Batched ingestion of {} events failed, falling back to single event processing", batch.size(), e);
+            for (final IngestedEvent ingestedEvent : batch) {
+                try {
+                    evaluationService.saveIngestedEventAndNotifyView(ingestedEvent);
+                } catch (final Exception singleException) {
+                    log.error("Failed to save ingested event for evaluation {}", ingestedEvent.getEvaluationId(), singleException);
+                }
+            }
+        }
+
+        lastFlushDurationInMillis.set(System.currentTimeMillis() - start);
+        flushedEvents.addAndGet(batch.size());
+        flushedBatches.incrementAndGet();
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.EvaluationPriority;
+import com.github.kudeplatform.evaluationengine.domain.EvaluationTask;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Takes the evaluations by priority class and, within a class, round-robin by submitter, so that a mass upload
+ * neither blocks interactive submissions nor a team with many submissions the other teams. Tasks that waited for a
+ * full aging interval move up one priority class, so mass uploads are not starved by a steady stream of interactive
+ * submissions.
+ * <p>
+ * The submitter of a task is its name, which is the team name for submissions of the teams.
+ *
+ * @author timo.buechert
+ */
+public class FairShareEvaluationTaskQueue implements EvaluationTaskQueue {
+
+    private final int capacity;
+
+    private final Duration agingInterval;
+
+    private final Clock clock;
+
+    /**
+     * One round-robin ring of submitters per priority class. The first submitter of a ring is served next and moves
+     * to the end afterwards, every submitter keeps its tasks in submission order.
+     */
+    private final List<LinkedHashMap<String, ArrayDeque<Entry>>> rings = new ArrayList<>();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Positions of the queued tasks, rebuilt on the first lookup after the queue changed or a task aged.
+     */
+    private Map<String, Integer> positions;
+
+    private Instant positionsValidUntil = Instant.MIN;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    public FairShareEvaluationTaskQueue(final int capacity, final Duration agingInterval, final Clock clock) {
+        this.capacity = capacity;
+        this.agingInterval = agingInterval;
+        this.clock = clock;
+        for (int i = 0; i < EvaluationPriority.values().length; i++) {
+            rings.add(new LinkedHashMap<>());
+        }
+    }
+
+    @Override
+    public void add(final EvaluationTask evaluationTask) {
+        lock.lock();
+        try {
+            if (entries.size() >= capacity) {
+                throw new IllegalStateException("Queue full");
+            }
+
+            final Instant submittedAt = Optional.ofNullable(evaluationTask.submittedTimestamp())
+                    .map(ZonedDateTime::toInstant)
+                    .orElseGet(clock::instant);
+            final Entry entry = new Entry(evaluationTask, getSubmitter(evaluationTask), submittedAt,
+                    evaluationTask.priority().ordinal());
+            entries.put(evaluationTask.taskId(), entry);
+            rings.get(entry.level).computeIfAbsent(entry.submitter, submitter -> new ArrayDeque<>()).add(entry);
+            positions = null;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public EvaluationTask take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (entries.isEmpty()) {
+                notEmpty.await();
+            }
+
+            promoteAgedEntries(rings, clock.instant());
+            final Entry entry = pollNext(rings);
+            entries.remove(entry.task.taskId());
+            positions = null;
+            return entry.task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final String taskId) {
+        lock.lock();
+        try {
+            final Entry entry = entries.remove(taskId);
+            if (entry == null) {
+                return false;
+            }
+
+            final Map<String, ArrayDeque<Entry>> ring = rings.get(entry.level);
+            final ArrayDeque<Entry> submitterEntries = ring.get(entry.submitter);
+            submitterEntries.remove(entry);
+            if (submitterEntries.isEmpty()) {
+                ring.remove(entry.submitter);
+            }
+            positions = null;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The aged tasks are promoted in the queue itself, like on {@link #take()}, and the positions are computed by
+     * taking all tasks from a copy of it. The index is reused until the queue changes or the next task ages.
+     */
+    @Override
+    public int getPositionInQueue(final String taskId) {
+        lock.lock();
+        try {
+            final Instant now = clock.instant();
+            if (positions == null || !now.isBefore(positionsValidUntil)) {
+                rebuildPositions(now);
+            }
+            return positions.getOrDefault(taskId, -1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rebuildPositions(final Instant now) {
+        promoteAgedEntries(rings, now);
+
+        final List<LinkedHashMap<String, ArrayDeque<Entry>>> copy = new ArrayList<>();
+        for (final LinkedHashMap<String, ArrayDeque<Entry>> ring : rings) {
+            final LinkedHashMap<String, ArrayDeque<Entry>> ringCopy = new LinkedHashMap<>();
+            ring.forEach((submitter, submitterEntries) -> ringCopy.put(submitter, new ArrayDeque<>(submitterEntries)));
+            copy.add(ringCopy);
+        }
+
+        positions = new HashMap<>();
+        for (int position = 1; position <= entries.size(); position++) {
+            positions.put(pollNext(copy).task.taskId(), position);
+        }
+
+        positionsValidUntil = entries.values().stream()
+                .filter(entry -> entry.level > 0)
+                .map(this::getNextPromotion)
+                .min(Instant::compareTo)
+                .orElse(Instant.MAX);
+    }
+
+    /**
+     * Moves every entry that waited for a full aging interval per level up to its target level. Entries of a
+     * submitter are in submission order, so only the heads of the rings need to be checked.
+     */
+    Instant getPositionsValidUntil() {
+        lock.lock();
+        try {
+            return positionsValidUntil;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void promoteAgedEntries(final List<LinkedHashMap<String, ArrayDeque<Entry>>> target, final Instant now) {
+        for (int level = 1; level < target.size(); level++) {
+            final Iterator<Map.Entry<String, ArrayDeque<Entry>>> iterator = target.get(level).entrySet().iterator();
+            while (iterator.hasNext()) {
+                final ArrayDeque<Entry> submitterEntries = iterator.next().getValue();
+                while (!submitterEntries.isEmpty() && getAgedLevel(submitterEntries.peek(), now) < submitterEntries.peek().level) {
+                    final Entry entry = submitterEntries.poll();
+                    entry.level = getAgedLevel(entry, now);
+                    target.get(entry.level).computeIfAbsent(entry.submitter, submitter -> new ArrayDeque<>()).add(entry);
+                }
+                if (submitterEntries.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static Entry pollNext(final List<LinkedHashMap<String, ArrayDeque<Entry>>> target) {
+        for (final LinkedHashMap<String, ArrayDeque<Entry>> ring : target) {
+            if (ring.isEmpty()) {
+                continue;
+            }
+
+            final String submitter = ring.keySet().iterator().next();
+            final ArrayDeque<Entry> submitterEntries = ring.remove(submitter);
+            final Entry entry = submitterEntries.poll();
+            if (!submitterEntries.isEmpty()) {
+                ring.put(submitter, submitterEntries);
+            }
+            return entry;
+        }
+        throw new IllegalStateException("Queue is empty");
+    }
+
+    private int getAgedLevel(final Entry entry, final Instant now) {
+        if (agingInterval.isZero() || agingInterval.isNegative()) {
+            return entry.task.priority().ordinal();
+        }
+        final long intervalsWaited = Duration.between(entry.submittedAt, now).dividedBy(agingInterval);
+        return (int) Math.max(0, entry.task.priority().ordinal() - intervalsWaited);
+    }
+
+    private Instant getNextPromotion(final Entry entry) {
+        if (agingInterval.isZero() || agingInterval.isNegative()) {
+            return Instant.MAX;
+        }
+        final long levelsPromoted = entry.task.priority().ordinal() - entry.level;
+        return entry.submittedAt.plus(agingInterval.multipliedBy(levelsPromoted + 1));
+    }
+
+    private static String getSubmitter(final EvaluationTask evaluationTask) {
+        return Optional.ofNullable(evaluationTask.name()).orElse("");
+    }
+
+    private static class Entry {
+
+        private final EvaluationTask task;
+
+        private final String submitter;
+
+        private final Instant submittedAt;
+
+        private int level;
+
+        Entry(final EvaluationTask task, final String submitter, final Instant submittedAt, final int level) {
+            this.task = task;
+            this.submitter = submitter;
+            this.submittedAt = submittedAt;
+            this.level = level;
+        }
+
+    }
+
+}
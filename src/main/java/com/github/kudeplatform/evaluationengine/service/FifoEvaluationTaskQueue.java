@@ -0,0 +1,109 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.EvaluationTask;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Takes the evaluations in the order they were submitted.
+ *
+ * @author timo.buechert
+ */
+public class FifoEvaluationTaskQueue implements EvaluationTaskQueue {
+
+    private final int capacity;
+
+    private final LinkedHashMap<String, EvaluationTask> tasks = new LinkedHashMap<>();
+
+    /**
+     * Positions of the queued tasks, rebuilt on the first lookup after the queue changed.
+     */
+    private Map<String, Integer> positions;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    public FifoEvaluationTaskQueue(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void add(final EvaluationTask evaluationTask) {
+        lock.lock();
+        try {
+            if (tasks.size() >= capacity) {
+                throw new IllegalStateException("Queue full");
+            }
+            tasks.put(evaluationTask.taskId(), evaluationTask);
+            positions = null;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public EvaluationTask take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (tasks.isEmpty()) {
+                notEmpty.await();
+            }
+            final Iterator<EvaluationTask> iterator = tasks.values().iterator();
+            final EvaluationTask evaluationTask = iterator.next();
+            iterator.remove();
+            positions = null;
+            return evaluationTask;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final String taskId) {
+        lock.lock();
+        try {
+            final boolean removed = tasks.remove(taskId) != null;
+            if (removed) {
+                positions = null;
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getPositionInQueue(final String taskId) {
+        lock.lock();
+        try {
+            if (positions == null) {
+                positions = new HashMap<>();
+                int position = 1;
+                for (final String queuedTaskId : tasks.keySet()) {
+                    positions.put(queuedTaskId, position++);
+                }
+            }
+            return positions.getOrDefault(taskId, -1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return tasks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
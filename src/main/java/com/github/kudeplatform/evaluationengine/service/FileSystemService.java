@@ -2,7 +2,8 @@ package com.github.kudeplatform.evaluationengine.service;
 
 import com.github.kudeplatform.evaluationengine.domain.Dataset;
 import com.github.kudeplatform.evaluationengine.domain.EvaluationResultWithEvents;
-import com.github.kudeplatform.evaluationengine.domain.Repository;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismComparison;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
 import com.github.kudeplatform.evaluationengine.mapper.DatasetMapper;
 import com.github.kudeplatform.evaluationengine.mapper.DatasetMapperImpl;
 import com.github.kudeplatform.evaluationengine.persistence.DatasetEntity;
@@ -13,19 +14,22 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.lang.reflect.Field;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 import static java.nio.file.StandardOpenOption.*;
@@ -48,9 +52,15 @@ public class FileSystemService {
 
     public static final String KUDE_SUBMISSIONS_PATH = System.getProperty("java.io.tmpdir") + File.separator + "kude-submissions" + File.separator;
 
-    public static final String KUDE_PLAGIARISM_RESULTS_FILE = "kude-plagiarism-results.zip";
+    public static final String KUDE_SUBMISSION_MIRRORS_PATH = KUDE_SUBMISSIONS_PATH + "mirrors" + File.separator;
 
-    public static final String KUDE_PLAGIARISM_RESULTS_PATH = KUDE_PLAGIARISM_PATH + KUDE_PLAGIARISM_RESULTS_FILE;
+    public static final String KUDE_SUBMISSION_CHECKOUTS_PATH = KUDE_SUBMISSIONS_PATH + "checkouts" + File.separator;
+
+    public static final String KUDE_PLAGIARISM_RESULTS_FILE_PREFIX = "kude-plagiarism-results-";
+
+    public static final String KUDE_PLAGIARISM_COMPARISONS_FILE = "kude-plagiarism-comparisons.csv";
+
+    private static final long UPLOAD_TRANSFER_CHUNK_SIZE = 1024 * 1024;
 
     private final DatasetRepository datasetRepository;
 
@@ -101,6 +111,29 @@ public class FileSystemService {
         }
     }
 
+    /**
+     * Writes the comparisons of a plagiarism check to {@link #KUDE_PLAGIARISM_COMPARISONS_FILE}, in the given order.
+     */
+    public void savePlagiarismComparisons(final List<PlagiarismComparison> comparisons) {
+        final CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setHeader("language", "firstSubmission", "secondSubmission", "similarity", "maximumSimilarity", "matchedTokens", "reused")
+                .setDelimiter(";")
+                .build();
+        final Path path = Paths.get(KUDE_PLAGIARISM_PATH + KUDE_PLAGIARISM_COMPARISONS_FILE);
+        try {
+            Files.createDirectories(path.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, TRUNCATE_EXISTING, WRITE, CREATE);
+                 CSVPrinter printer = new CSVPrinter(writer, format)) {
+                for (final PlagiarismComparison comparison : comparisons) {
+                    printer.printRecord(comparison.language().getIdentifier(), comparison.firstSubmission(), comparison.secondSubmission(), comparison.similarity(),
+                            comparison.maximumSimilarity(), comparison.matchedTokens(), comparison.reused());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private String[] serializeEvaluationResultWithEventsList(final EvaluationResultWithEvents evaluationResultWithEvents) {
         final Field[] fields = EvaluationResultWithEvents.class.getDeclaredFields();
         final String[] result = new String[fields.length];
@@ -137,6 +170,56 @@ public class FileSystemService {
         datasetRepository.save(new DatasetEntity(null, getDatasetName(fileName), fileName, destination.getAbsolutePath()));
     }
 
+    /**
+     * Streams an upload into the KUDE tmp folder through NIO channels, so that heap usage does not depend on the size
+     * of the upload. The content is written to a temporary file first and then moved into place, so readers never see
+     * a partially written file.
+     *
+     * @return the path of the stored file
+     */
+    public Path saveUpload(final InputStream in, final String fileName) throws IOException {
+        final Path folder = Paths.get(KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR);
+        final Path destination = folder.resolve(Paths.get(fileName).getFileName());
+        final Path temporaryFile = Files.createTempFile(folder, "upload-", ".part");
+
+        try (ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel target = FileChannel.open(temporaryFile, WRITE, TRUNCATE_EXISTING)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = target.transferFrom(source, position, UPLOAD_TRANSFER_CHUNK_SIZE)) > 0) {
+                position += transferred;
+            }
+            target.force(false);
+        } catch (final IOException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+
+        return Files.move(temporaryFile, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Stores a multipart upload that the servlet container already spooled to disk in the KUDE tmp folder. The spool
+     * file is moved instead of copied where the container supports it, and then moved into place like
+     * {@link #saveUpload(InputStream, String)} does.
+     *
+     * @return the path of the stored file
+     */
+    public Path saveMultipartUpload(final MultipartFile file, final String fileName) throws IOException {
+        final Path folder = Paths.get(KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR);
+        final Path destination = folder.resolve(Paths.get(fileName).getFileName());
+        final Path temporaryFile = Files.createTempFile(folder, "upload-", ".part");
+
+        try {
+            file.transferTo(temporaryFile);
+        } catch (final IOException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+
+        return Files.move(temporaryFile, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
     public List<Dataset> getAvailableDatasets() {
         return datasetRepository.findAll().stream()
                 .map(datasetMapper::toDomainObject)
@@ -168,6 +251,68 @@ public class FileSystemService {
                 });
     }
 
+    /**
+     * @return the size and modification time of the dataset file, which change when a dataset is uploaded again
+     * under the same name, or an empty optional if there is no such dataset
+     */
+    public Optional<String> getDatasetVersion(final String name) {
+        return Optional.ofNullable(this.datasetRepository.findByName(name))
+                .map(DatasetEntity::getPath)
+                .map(File::new)
+                .filter(File::isFile)
+                .map(file -> file.length() + "@" + file.lastModified());
+    }
+
+    /**
+     * Makes the log and result files of an evaluation available under the id of another evaluation. The files are
+     * hard linked where the file system supports it and copied otherwise.
+     */
+    public void copyTmpFilesOfTask(final String sourceTaskId, final String targetTaskId) throws IOException {
+        final File[] files = new File(KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR).listFiles((dir, name) -> name.contains(sourceTaskId));
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            final Path source = file.toPath();
+            final Path target = source.resolveSibling(file.getName().replace(sourceTaskId, targetTaskId));
+            try {
+                Files.createLink(target, source);
+            } catch (final UnsupportedOperationException | IOException e) {
+                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * @return whether a log file of the evaluation is in the KUDE tmp folder
+     */
+    public boolean hasLogsOfTask(final String taskId) {
+        final File[] files = new File(KUDE_TMP_FOLDER_PATH_WITH_TRAILING_SEPARATOR).listFiles((dir, name) -> name.startsWith("logs-" + taskId + "-"));
+        return files != null && files.length > 0;
+    }
+
+    /**
+     * Recreates the directory tree of the source at the target, with hard links to the files of the source. Falls back
+     * to copies if the file system does not support hard links.
+     */
+    public void linkDirectory(final Path source, final Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (final Path path : (Iterable<Path>) paths::iterator) {
+                final Path targetPath = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(targetPath);
+                    continue;
+                }
+                try {
+                    Files.createLink(targetPath, path);
+                } catch (final UnsupportedOperationException | IOException e) {
+                    Files.copy(path, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
     public void deleteDataset(final String name) {
         final DatasetEntity byName = this.datasetRepository.findByName(name);
         final File file = new File(byName.getPath());
@@ -181,59 +326,35 @@ public class FileSystemService {
         return fileName.substring(fileName.lastIndexOf('/') + 1, fileName.lastIndexOf('.'));
     }
 
-    public void cloneRepositories(final List<Repository> repositories, final Consumer<String> statusCallback) {
-        final File kudeSubmissionsFolder = new File(KUDE_SUBMISSIONS_PATH);
-        if (!kudeSubmissionsFolder.exists() && !kudeSubmissionsFolder.mkdirs()) {
-            log.error("Failed to create KUDE submissions folder.");
-            throw new RuntimeException("Failed to create KUDE submissions folder. Cannot continue.");
-        }
-
-        int count = 0;
-        for (final Repository repository : repositories) {
-            try (Git git = Git.cloneRepository()
-                    .setURI(repository.getRepositoryUrlWithCredentials())
-                    .setDirectory(new File(KUDE_SUBMISSIONS_PATH + repository.name()))
-                    .call()) {
-            } catch (final InvalidRemoteException e) {
-                log.error("Could not clone repository {}. The error was: {}", repository.url(), e.getMessage());
-            } catch (final Exception e) {
-                log.error("Could not clone repository {}. The error was: {}", repository.url(), e.getMessage());
-                throw new RuntimeException(e);
-            }
-            count++;
-
-            log.debug("Cloned repository {} to {}", repository.url(), KUDE_SUBMISSIONS_PATH + repository.name());
-            log.debug("{} of {} repositories cloned", count, repositories.size());
-
-            if (count % 10 == 0) {
-                statusCallback.accept("Cloned " + count + " of " + repositories.size() + " repositories.");
-            }
-        }
-    }
-
+    /**
+     * Deletes the checked out files of the last plagiarism check. The mirrors are kept for the next check.
+     */
     public void deleteAllRepositories() {
-        final File kudeSubmissionsFolder = new File(KUDE_SUBMISSIONS_PATH);
-        if (!kudeSubmissionsFolder.exists()) {
-            log.error("KUDE submissions folder does not exist.");
-            throw new RuntimeException("KUDE submissions folder does not exist.");
-        }
         try {
-            FileUtils.deleteDirectory(new File(KUDE_SUBMISSIONS_PATH));
+            FileUtils.deleteDirectory(new File(KUDE_SUBMISSION_CHECKOUTS_PATH));
         } catch (IOException e) {
-            log.error("Could not delete KUDE submissions folder. The error was: {}", e.getMessage());
-            throw new RuntimeException("Could not delete KUDE submissions folder. The error was: " + e.getMessage());
+            log.error("Could not delete KUDE submission checkouts folder. The error was: {}", e.getMessage());
+            throw new RuntimeException("Could not delete KUDE submission checkouts folder. The error was: " + e.getMessage());
         }
     }
 
-    public void deletePlagiarismResultIfExists() {
-        final File plagiarismResult = new File(KUDE_PLAGIARISM_RESULTS_PATH);
-        if (!plagiarismResult.exists()) {
-            return;
-        }
+    /**
+     * @return the name of the JPlag report of the language in {@link #KUDE_PLAGIARISM_PATH}
+     */
+    public static String getPlagiarismResultsFile(final PlagiarismLanguage language) {
+        return KUDE_PLAGIARISM_RESULTS_FILE_PREFIX + language.getIdentifier() + ".zip";
+    }
 
-        if (!plagiarismResult.delete()) {
-            log.error("Could not delete plagiarism result.");
-            throw new RuntimeException("Could not delete plagiarism result.");
+    /**
+     * Deletes the JPlag reports of all languages.
+     */
+    public void deletePlagiarismResultsIfExist() {
+        for (final PlagiarismLanguage language : PlagiarismLanguage.values()) {
+            final File plagiarismResult = new File(KUDE_PLAGIARISM_PATH + getPlagiarismResultsFile(language));
+            if (plagiarismResult.exists() && !plagiarismResult.delete()) {
+                log.error("Could not delete plagiarism result.");
+                throw new RuntimeException("Could not delete plagiarism result.");
+            }
         }
     }
 }
@@ -0,0 +1,124 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.GitEvaluationTask;
+import com.marcnuri.helm.Helm;
+import com.marcnuri.helm.InstallCommand;
+import com.marcnuri.helm.Release;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Deploys evaluations by installing the ddm-akka helm chart, one release per evaluation.
+ *
+ * @author timo.buechert
+ */
+@Service
+@ConditionalOnProperty(name = OrchestrationService.ORCHESTRATION_MODE_PROPERTY, havingValue = "helm", matchIfMissing = true)
+@Slf4j
+public class HelmOrchestrationService implements OrchestrationService {
+
+    private static final String RELEASE_NAME_PREFIX = "ddm-akka-";
+
+    private final KubernetesService kubernetesService;
+
+    private final boolean reconcileOnStartup;
+
+    public HelmOrchestrationService(final KubernetesService kubernetesService,
+                                    @Value("${" + RECONCILE_ON_STARTUP_PROPERTY + ":false}") final boolean reconcileOnStartup) {
+        this.kubernetesService = kubernetesService;
+        this.reconcileOnStartup = reconcileOnStartup;
+    }
+
+    @PostConstruct
+    public void deleteAllTasks() {
+        if (reconcileOnStartup) {
+            return;
+        }
+
+        Helm.list().call()
+                .stream()
+                .filter(release -> release.getName().startsWith(RELEASE_NAME_PREFIX))
+                .forEach(release -> Helm.uninstall(release.getName()).call());
+    }
+
+    @Override
+    public Set<String> getDeployedTaskIds() {
+        return Helm.list().call()
+                .stream()
+                .map(Release::getName)
+                .filter(name -> name.startsWith(RELEASE_NAME_PREFIX))
+                .map(name -> name.substring(RELEASE_NAME_PREFIX.length()))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    @Retryable(maxAttempts = 5, backoff = @Backoff(delay = 30000))
+    public void deployTask(final GitEvaluationTask gitEvaluationTask, final SettingsService settingsService,
+                           final boolean multipleJobsPerNode) {
+        try {
+            deleteTask(gitEvaluationTask.taskId());
+        } catch (final Exception e) {
+            log.error("Failed to delete task", e);
+        }
+
+        final InstallCommand installCommand = new Helm(Paths.get("helm", "ddm-akka"))
+                .install().withName(kubernetesService.getName(gitEvaluationTask.taskId()))
+                .set("name", kubernetesService.getName(gitEvaluationTask.taskId()))
+                .set("evaluationEngineHost", kubernetesService.getEvaluationEngineHost())
+                .set("evaluationEnginePort", kubernetesService.getEvaluationEnginePort())
+                .set("multipleJobsPerNode", multipleJobsPerNode)
+                .set("gitUrl", gitEvaluationTask.repositoryUrl())
+                .set("replicaCount", settingsService.getReplicationFactor())
+                .set("timeoutInSeconds", settingsService.getTimeoutInSeconds())
+                .set("evaluationImage", settingsService.getEvaluationImageOrDefault())
+                .set("cpuRequest", settingsService.getCpuRequest())
+                .set("cpuLimit", settingsService.getCpuLimit())
+                .set("memoryRequest", settingsService.getMemoryRequest())
+                .set("memoryLimit", settingsService.getMemoryLimit())
+                .set("evaluationId", gitEvaluationTask.taskId())
+                .set("datasetName", gitEvaluationTask.datasetName());
+
+        addStartCommands(installCommand, gitEvaluationTask.instanceStartCommands());
+
+        if (StringUtils.hasText(gitEvaluationTask.gitBranch())) {
+            installCommand.set("gitBranch", gitEvaluationTask.gitBranch());
+        }
+
+        try {
+            installCommand.call();
+        } catch (final Exception e) {
+            log.error("Failed to deploy task", e);
+            throw e;
+        }
+
+    }
+
+    private void addStartCommands(final InstallCommand installCommand, final List<String> instanceStartCommands) {
+        for (int i = 0; i < instanceStartCommands.size(); i++) {
+            final String key = String.format("startCommands.START_COMMAND_%d", i);
+            installCommand.set(key, instanceStartCommands.get(i));
+        }
+    }
+
+    @Override
+    @Retryable(maxAttempts = 5, backoff = @Backoff(delay = 30000))
+    public void deleteTask(String taskId) {
+        final String name = kubernetesService.getName(taskId);
+        Helm.list().call()
+                .stream()
+                .filter(release -> release.getName().equals(name))
+                .forEach(release -> Helm.uninstall(name).call());
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import io.kubernetes.client.informer.ResourceEventHandler;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.apis.BatchV1Api;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Job;
+import io.kubernetes.client.openapi.models.V1JobList;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Shared informer cache for the Jobs and Pods of the evaluation namespace. A single list+watch stream per resource
+ * type keeps the cache up to date, both are indexed by evaluation id. Waiting for a job status is a subscription that
+ * is completed by the informer event handler, so no per-task watch connection is needed.
+ *
+ * @author timo.buechert
+ */
+@Service
+@Slf4j
+public class KubernetesInformerCache {
+
+    public static final String NAMESPACE = "evaluation";
+
+    public static final String EVALUATION_ID_LABEL = "evaluation-id";
+
+    public static final String EVALUATION_ID_INDEX = "byEvaluationId";
+
+    private static final String JOB_NAME_PREFIX = "ddm-akka-";
+
+    private final SharedInformerFactory informerFactory;
+
+    private final SharedIndexInformer<V1Job> jobInformer;
+
+    private final SharedIndexInformer<V1Pod> podInformer;
+
+    private final Map<String, Set<JobSubscription>> jobSubscriptions = new ConcurrentHashMap<>();
+
+    public KubernetesInformerCache(final ApiClient apiClient, final BatchV1Api batchV1Api, final CoreV1Api coreV1Api,
+                                   @Value("${KUBERNETES_INFORMER_RESYNC_MS:300000}") final long resyncPeriodInMillis) {
+        this.informerFactory = new SharedInformerFactory(apiClient);
+
+        this.jobInformer = informerFactory.sharedIndexInformerFor(params -> batchV1Api.listNamespacedJob(NAMESPACE)
+                        .resourceVersion(params.resourceVersion)
+                        .watch(params.watch)
+                        .timeoutSeconds(params.timeoutSeconds)
+                        .buildCall(null),
+                V1Job.class, V1JobList.class, resyncPeriodInMillis);
+        this.jobInformer.addIndexers(Map.of(EVALUATION_ID_INDEX, job -> getEvaluationId(job.getMetadata()).map(List::of).orElse(List.of())));
+        this.jobInformer.addEventHandler(new JobEventHandler());
+
+        this.podInformer = informerFactory.sharedIndexInformerFor(params -> coreV1Api.listNamespacedPod(NAMESPACE)
+                        .resourceVersion(params.resourceVersion)
+                        .watch(params.watch)
+                        .timeoutSeconds(params.timeoutSeconds)
+                        .buildCall(null),
+                V1Pod.class, V1PodList.class, resyncPeriodInMillis);
+        this.podInformer.addIndexers(Map.of(EVALUATION_ID_INDEX, pod -> getEvaluationId(pod.getMetadata()).map(List::of).orElse(List.of())));
+    }
+
+    @PostConstruct
+    public void start() {
+        informerFactory.startAllRegisteredInformers();
+        log.info("Started job and pod informers for namespace {}", NAMESPACE);
+    }
+
+    @PreDestroy
+    public void stop() {
+        informerFactory.stopAllRegisteredInformers();
+        jobSubscriptions.values().forEach(subscriptions -> subscriptions.forEach(subscription -> subscription.future().cancel(false)));
+        jobSubscriptions.clear();
+    }
+
+    public boolean hasSynced() {
+        return jobInformer.hasSynced() && podInformer.hasSynced();
+    }
+
+    /**
+     * @return a future that completes with the first state of the job of the given evaluation that matches the
+     * condition, or exceptionally if the job is deleted before. Cancelling the future removes the subscription.
+     */
+    public CompletableFuture<V1Job> awaitJob(final String evaluationId, final Predicate<V1Job> condition) {
+        final JobSubscription subscription = new JobSubscription(condition, new CompletableFuture<>());
+        jobSubscriptions.compute(evaluationId, (key, subscriptions) -> {
+            final Set<JobSubscription> updatedSubscriptions = subscriptions == null ? ConcurrentHashMap.newKeySet() : subscriptions;
+            updatedSubscriptions.add(subscription);
+            return updatedSubscriptions;
+        });
+        subscription.future().whenComplete((job, throwable) -> removeSubscription(evaluationId, subscription));
+
+        // the subscription is registered before the cache is checked, so no update in between can get lost
+        getJob(evaluationId).ifPresent(job -> subscription.offer(job));
+        return subscription.future();
+    }
+
+    public Optional<V1Job> getJob(final String evaluationId) {
+        return jobInformer.getIndexer().byIndex(EVALUATION_ID_INDEX, evaluationId).stream().findFirst();
+    }
+
+    public List<V1Pod> getPodsOfEvaluation(final String evaluationId) {
+        return podInformer.getIndexer().byIndex(EVALUATION_ID_INDEX, evaluationId);
+    }
+
+    public List<V1Pod> getPodsWithNamePrefix(final String namePrefix) {
+        return podInformer.getIndexer().list().stream()
+                .filter(pod -> pod.getMetadata() != null && pod.getMetadata().getName() != null)
+                .filter(pod -> pod.getMetadata().getName().startsWith(namePrefix))
+                .toList();
+    }
+
+    private void removeSubscription(final String evaluationId, final JobSubscription subscription) {
+        jobSubscriptions.computeIfPresent(evaluationId, (key, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    private void notifySubscriptions(final V1Job job) {
+        getEvaluationId(job.getMetadata())
+                .map(jobSubscriptions::get)
+                .ifPresent(subscriptions -> subscriptions.forEach(subscription -> subscription.offer(job)));
+    }
+
+    /**
+     * Jobs are identified by their evaluation id label, jobs deployed before the label was introduced by their name.
+     */
+    private static Optional<String> getEvaluationId(final V1ObjectMeta metadata) {
+        if (metadata == null) {
+            return Optional.empty();
+        }
+
+        final Optional<String> label = Optional.ofNullable(metadata.getLabels()).map(labels -> labels.get(EVALUATION_ID_LABEL));
+        if (label.isPresent()) {
+            return label;
+        }
+
+        return Optional.ofNullable(metadata.getName())
+                .filter(name -> name.startsWith(JOB_NAME_PREFIX))
+                .filter(name -> metadata.getOwnerReferences() == null || metadata.getOwnerReferences().isEmpty())
+                .map(name -> name.substring(JOB_NAME_PREFIX.length()));
+    }
+
+    private record JobSubscription(Predicate<V1Job> condition, CompletableFuture<V1Job> future) {
+
+        void offer(final V1Job job) {
+            if (future.isDone()) {
+                return;
+            }
+
+            try {
+                if (condition.test(job)) {
+                    future.complete(job);
+                }
+            } catch (final RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+    }
+
+    private class JobEventHandler implements ResourceEventHandler<V1Job> {
+
+        @Override
+        public void onAdd(final V1Job job) {
+            notifySubscriptions(job);
+        }
+
+        @Override
+        public void onUpdate(final V1Job oldJob, final V1Job newJob) {
+            notifySubscriptions(newJob);
+        }
+
+        @Override
+        public void onDelete(final V1Job job, final boolean deletedFinalStateUnknown) {
+            notifySubscriptions(job);
+            getEvaluationId(job.getMetadata())
+                    .map(jobSubscriptions::get)
+                    .ifPresent(subscriptions -> subscriptions.forEach(subscription -> subscription.future()
+                            .completeExceptionally(new IllegalStateException("Job " + job.getMetadata().getName() + " was deleted"))));
+        }
+
+    }
+
+}
@@ -1,50 +1,47 @@
 package com.github.kudeplatform.evaluationengine.service;
 
-import com.github.kudeplatform.evaluationengine.domain.GitEvaluationTask;
-import com.google.gson.reflect.TypeToken;
-import com.marcnuri.helm.Helm;
-import com.marcnuri.helm.InstallCommand;
-import io.kubernetes.client.openapi.ApiClient;
+import com.github.kudeplatform.evaluationengine.domain.NodeResources;
+import io.kubernetes.client.custom.Quantity;
 import io.kubernetes.client.openapi.ApiException;
-import io.kubernetes.client.openapi.apis.BatchV1Api;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.*;
-import io.kubernetes.client.util.Watch;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.Call;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.net.InetSocketAddress;
+import java.math.BigDecimal;
 import java.net.Socket;
-import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * @author timo.buechert
  */
 @Service
 @Slf4j
-public class KubernetesService implements OrchestrationService {
+public class KubernetesService {
 
-    @Autowired
-    private CoreV1Api coreV1Api;
+    public static final String WORKER_NODE_SELECTOR = "role=worker";
 
     @Autowired
-    private BatchV1Api batchV1Api;
+    private CoreV1Api coreV1Api;
 
     @Autowired
-    private ApiClient apiClient;
+    private KubernetesInformerCache kubernetesInformerCache;
 
     @Value("${EVALUATION_ENGINE_HOST:#{null}}")
     private String evaluationEngineHost;
@@ -55,14 +52,15 @@ public class KubernetesService implements OrchestrationService {
     @Value("${NODES_RESERVED_FOR_SYSTEM:1}")
     private int nodesReservedForSystem = 1;
 
+    @Value("${KUBERNETES_JOB_WAIT_POLL_SECONDS:60}")
+    private long jobWaitPollIntervalInSeconds = 60;
+
+    @Value("${KUBERNETES_JOB_APPEAR_TIMEOUT_SECONDS:600}")
+    private long jobAppearTimeoutInSeconds = 600;
 
-    @PostConstruct
-    public void deleteAllTasks() throws IOException {
-        Helm.list().call()
-                .stream()
-                .filter(release -> release.getName().startsWith("ddm-akka-"))
-                .forEach(release -> Helm.uninstall(release.getName()).call());
 
+    @PostConstruct
+    public void init() throws IOException {
         if (!StringUtils.hasText(evaluationEngineHost)) {
             evaluationEngineHost = getIpAdress();
         }
@@ -79,121 +77,129 @@ public class KubernetesService implements OrchestrationService {
         return coreV1Api.listNode().execute().getItems().size() - nodesReservedForSystem;
     }
 
-    public List<String> getIpAdressesOfPods(final String podName) throws ApiException {
-        final CoreV1Api.APIlistNamespacedPodRequest podRequest = coreV1Api
-                .listNamespacedPod("evaluation");
-        final List<V1Pod> podList = podRequest.execute()
-                .getItems().stream().filter(v1Pod -> v1Pod.getMetadata().getName().startsWith(podName)).toList();
+    /**
+     * @return the allocatable resources of the worker nodes minus the requests of the pods outside the evaluation
+     * namespace that run on them
+     */
+    public List<NodeResources> getWorkerNodeResources() throws ApiException {
+        final Map<String, long[]> requestsOfOtherPods = new HashMap<>();
+        for (final V1Pod pod : coreV1Api.listPodForAllNamespaces().fieldSelector("status.phase!=Succeeded,status.phase!=Failed").execute().getItems()) {
+            if (pod.getSpec() == null || pod.getSpec().getNodeName() == null
+                    || KubernetesInformerCache.NAMESPACE.equals(pod.getMetadata().getNamespace())) {
+                continue;
+            }
 
-        return podList.stream().map(V1Pod::getStatus).filter(Objects::nonNull).map(V1PodStatus::getPodIP).toList();
+            final long[] requests = requestsOfOtherPods.computeIfAbsent(pod.getSpec().getNodeName(), nodeName -> new long[2]);
+            for (final V1Container container : pod.getSpec().getContainers()) {
+                final Map<String, Quantity> containerRequests = Optional.ofNullable(container.getResources())
+                        .map(V1ResourceRequirements::getRequests).orElse(Map.of());
+                requests[0] += toCpuMillis(containerRequests.get("cpu"));
+                requests[1] += toBytes(containerRequests.get("memory"));
+            }
+        }
+
+        return coreV1Api.listNode().labelSelector(WORKER_NODE_SELECTOR).execute().getItems().stream()
+                .filter(node -> node.getStatus() != null && node.getStatus().getAllocatable() != null)
+                .map(node -> {
+                    final String nodeName = node.getMetadata().getName();
+                    final Map<String, Quantity> allocatable = node.getStatus().getAllocatable();
+                    final long[] requests = requestsOfOtherPods.getOrDefault(nodeName, new long[2]);
+                    return new NodeResources(nodeName, toCpuMillis(allocatable.get("cpu")) - requests[0],
+                            toBytes(allocatable.get("memory")) - requests[1]);
+                })
+                .toList();
     }
 
-    @Retryable(maxAttempts = 5, backoff = @Backoff(delay = 30000))
-    public void deployTask(final GitEvaluationTask gitEvaluationTask, final SettingsService settingsService,
-                           final boolean multipleJobsPerNode) {
-        try {
-            deleteTask(gitEvaluationTask.taskId());
-        } catch (final Exception e) {
-            log.error("Failed to delete task", e);
-        }
+    public static long toCpuMillis(final Quantity quantity) {
+        return quantity == null ? 0 : quantity.getNumber().multiply(BigDecimal.valueOf(1000)).longValue();
+    }
 
-        final InstallCommand installCommand = new Helm(Paths.get("helm", "ddm-akka"))
-                .install().withName(getName(gitEvaluationTask.taskId()))
-                .set("name", getName(gitEvaluationTask.taskId()))
-                .set("evaluationEngineHost", evaluationEngineHost)
-                .set("evaluationEnginePort", evaluationEnginePort)
-                .set("multipleJobsPerNode", multipleJobsPerNode)
-                .set("gitUrl", gitEvaluationTask.repositoryUrl())
-                .set("replicaCount", settingsService.getReplicationFactor())
-                .set("timeoutInSeconds", settingsService.getTimeoutInSeconds())
-                .set("evaluationImage", settingsService.getEvaluationImageOrDefault())
-                .set("cpuRequest", settingsService.getCpuRequest())
-                .set("cpuLimit", settingsService.getCpuLimit())
-                .set("memoryRequest", settingsService.getMemoryRequest())
-                .set("memoryLimit", settingsService.getMemoryLimit())
-                .set("evaluationId", gitEvaluationTask.taskId())
-                .set("datasetName", gitEvaluationTask.datasetName());
-
-        addStartCommands(installCommand, gitEvaluationTask.instanceStartCommands());
-
-        if (StringUtils.hasText(gitEvaluationTask.gitBranch())) {
-            installCommand.set("gitBranch", gitEvaluationTask.gitBranch());
-        }
+    public static long toBytes(final Quantity quantity) {
+        return quantity == null ? 0 : quantity.getNumber().longValue();
+    }
 
-        try {
-            installCommand.call();
-        } catch (final Exception e) {
-            log.error("Failed to deploy task", e);
-            throw e;
+    public List<String> getIpAdressesOfPods(final String podName) throws ApiException {
+        final List<V1Pod> podList;
+        if (kubernetesInformerCache.hasSynced()) {
+            podList = kubernetesInformerCache.getPodsWithNamePrefix(podName);
+        } else {
+            podList = coreV1Api.listNamespacedPod(KubernetesInformerCache.NAMESPACE).execute()
+                    .getItems().stream().filter(v1Pod -> v1Pod.getMetadata().getName().startsWith(podName)).toList();
         }
 
+        return podList.stream().map(V1Pod::getStatus).filter(Objects::nonNull).map(V1PodStatus::getPodIP).toList();
     }
 
     public String getName(final String taskId) {
         return String.format("ddm-akka-%s", taskId);
     }
 
-    private void addStartCommands(final InstallCommand installCommand, final List<String> instanceStartCommands) {
-        for (int i = 0; i < instanceStartCommands.size(); i++) {
-            final String key = String.format("startCommands.START_COMMAND_%d", i);
-            installCommand.set(key, instanceStartCommands.get(i));
-        }
+    public String getEvaluationEngineHost() {
+        return evaluationEngineHost;
     }
 
-    @Retryable(maxAttempts = 5, backoff = @Backoff(delay = 30000))
-    public void deleteTask(String taskId) {
-        final String name = String.format("ddm-akka-%s", taskId);
-        Helm.list().call()
-                .stream()
-                .filter(release -> release.getName().equals(name))
-                .forEach(release -> Helm.uninstall(name).call());
+    public String getEvaluationEnginePort() {
+        return evaluationEnginePort;
     }
 
-    public KubernetesStatus waitForJobRunning(final String taskId, final int replicas) throws ApiException {
+    public KubernetesStatus waitForJobRunning(final String taskId, final int replicas) throws InterruptedException {
         return waitForJobStatus(taskId, replicas, KubernetesStatus::isRunning);
     }
 
-    public KubernetesStatus waitForJobCompletion(final String taskId, final int replicas) throws ApiException {
+    public KubernetesStatus waitForJobCompletion(final String taskId, final int replicas) throws InterruptedException {
         return waitForJobStatus(taskId, replicas, KubernetesStatus::isFinal);
     }
 
-    public KubernetesStatus waitForJobStatus(final String taskId, final int replicas, final Function<KubernetesStatus, Boolean> jobStatusEvaluator) throws ApiException {
-        while (true) {
-            log.debug("Waiting for job status for evaluation id {}", taskId);
-            final BatchV1Api.APIlistNamespacedJobRequest jobRequest = batchV1Api
-                    .listNamespacedJob("evaluation")
-                    .fieldSelector(String.format("metadata.name=ddm-akka-%s", taskId));
+    public KubernetesStatus waitForJobStatus(final String taskId, final int replicas, final Function<KubernetesStatus, Boolean> jobStatusEvaluator) throws InterruptedException {
+        log.debug("Waiting for job status for evaluation id {}", taskId);
+        final Predicate<V1Job> condition = v1Job -> jobStatusEvaluator.apply(evaluateJobStatus(v1Job, replicas));
+        final CompletableFuture<V1Job> job = kubernetesInformerCache.awaitJob(taskId, condition);
 
-            final V1JobList initialJobList = jobRequest.execute();
+        final KubernetesStatus status;
+        try {
+            status = evaluateJobStatus(awaitJob(taskId, job, condition), replicas);
+        } catch (final InterruptedException e) {
+            job.cancel(false);
+            throw e;
+        } catch (final ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
 
-            final KubernetesStatus kubernetesStatus = evaluateJobStatus(initialJobList.getItems().get(0), replicas);
-            if (jobStatusEvaluator.apply(kubernetesStatus)) {
-                return kubernetesStatus;
-            }
+        for (V1Pod pod : kubernetesInformerCache.getPodsOfEvaluation(taskId)) {
+            log.debug("Pod status for task id {} {}", taskId, Optional.ofNullable(pod).map(V1Pod::getStatus).map(V1PodStatus::toJson).orElse(""));
+        }
+        return status;
+    }
 
-            final Call jobCall = jobRequest.watch(true).buildCall(null);
-            final Type type = new TypeToken<Watch.Response<V1Job>>() {
-            }.getType();
-
-            try (Watch<V1Job> watch = Watch.createWatch(apiClient, jobCall, type)) {
-                for (Watch.Response<V1Job> item : watch) {
-                    log.debug("Job status for task id {} {}", taskId, item.object.getStatus());
-                    final KubernetesStatus status = evaluateJobStatus(item.object, replicas);
-                    if (jobStatusEvaluator.apply(status)) {
-                        final CoreV1Api.APIlistNamespacedPodRequest podRequest = coreV1Api
-                                .listNamespacedPod("evaluation");
-                        final List<V1Pod> podList = podRequest.execute()
-                                .getItems().stream().filter(v1Pod -> v1Pod.getMetadata().getName().startsWith("ddm-akka-" + taskId)).toList();
-                        for (V1Pod pod : podList) {
-                            log.debug("Pod status for task id {} {}", taskId, Optional.ofNullable(pod).map(V1Pod::getStatus).map(V1PodStatus::toJson).orElse(""));
-                        }
-
-                        return status;
-                    }
+    /**
+     * Waits for the subscription in bounded steps and checks the cached job after every step, so that a job whose
+     * update or deletion did not reach the subscription does not block the caller forever. A job that never shows up
+     * in the cache, e.g. because its deployment failed, is given up after the configured timeout.
+     */
+    private V1Job awaitJob(final String taskId, final CompletableFuture<V1Job> job, final Predicate<V1Job> condition)
+            throws InterruptedException, ExecutionException {
+        final long appearDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(jobAppearTimeoutInSeconds);
+        boolean jobSeen = false;
+        while (true) {
+            try {
+                return job.get(jobWaitPollIntervalInSeconds, TimeUnit.SECONDS);
+            } catch (final TimeoutException e) {
+                final Optional<V1Job> cachedJob = kubernetesInformerCache.getJob(taskId);
+                if (cachedJob.isPresent() && condition.test(cachedJob.get())) {
+                    job.cancel(false);
+                    return cachedJob.get();
                 }
-
-            } catch (final Exception e) {
-                throw new RuntimeException(e);
+                if (cachedJob.isEmpty() && jobSeen) {
+                    job.cancel(false);
+                    throw new IllegalStateException("The job of evaluation " + taskId + " no longer exists");
+                }
+                if (cachedJob.isEmpty() && System.nanoTime() - appearDeadline > 0) {
+                    job.cancel(false);
+                    throw new IllegalStateException("The job of evaluation " + taskId + " did not appear within "
+                            + jobAppearTimeoutInSeconds + " seconds");
+                }
+                jobSeen |= cachedJob.isPresent();
+                log.debug("Still waiting for the job status of evaluation {}", taskId);
             }
         }
     }
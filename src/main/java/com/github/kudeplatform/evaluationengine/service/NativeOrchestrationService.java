@@ -0,0 +1,315 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.GitEvaluationTask;
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.BatchV1Api;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.*;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.github.kudeplatform.evaluationengine.service.KubernetesInformerCache.EVALUATION_ID_LABEL;
+import static com.github.kudeplatform.evaluationengine.service.KubernetesInformerCache.NAMESPACE;
+
+/**
+ * Deploys evaluations by creating the headless Service and the Indexed Job of the ddm-akka chart directly through the
+ * Kubernetes API, without rendering the chart with the helm binary. The parts of the manifests that are identical for
+ * every evaluation are built once; per evaluation only the task specific fields are filled in.
+ * <p>
+ * The manifests are built after {@code helm/ddm-akka/templates/job.yaml} instead of being loaded from it, because the
+ * chart is a Go template with conditionals and loops that only helm renders. A change to the chart has to be made
+ * here as well, {@code NativeOrchestrationServiceTest} fails if the environment, ports, volumes or job settings drift
+ * apart. In addition to the chart, the resources carry the managed-by label.
+ *
+ * @author timo.buechert
+ */
+@Service
+@ConditionalOnProperty(name = OrchestrationService.ORCHESTRATION_MODE_PROPERTY, havingValue = "native")
+@Slf4j
+public class NativeOrchestrationService implements OrchestrationService {
+
+    public static final String MANAGED_BY_LABEL = "app.kubernetes.io/managed-by";
+
+    public static final String MANAGED_BY_VALUE = "evaluation-engine";
+
+    /**
+     * Selects the jobs and services of all evaluations, also the ones the helm chart created before the orchestration
+     * mode was switched, which do not carry the managed-by label.
+     */
+    private static final String EVALUATION_SELECTOR = EVALUATION_ID_LABEL;
+
+    private static final String FOREGROUND_PROPAGATION = "Foreground";
+
+    private static final long DELETION_POLL_INTERVAL_MILLIS = 1000;
+
+    private static final String CONTAINER_NAME = "ddm-akka";
+
+    private static final List<V1ContainerPort> CONTAINER_PORTS = List.of(
+            new V1ContainerPort().containerPort(7877).name("master-port"),
+            new V1ContainerPort().containerPort(7879).name("worker-port"),
+            new V1ContainerPort().containerPort(7077).name("spark-port"),
+            new V1ContainerPort().containerPort(8091).name("spark-stop"));
+
+    private static final List<V1EnvVar> STATIC_ENVIRONMENT = List.of(
+            new V1EnvVar().name("OFFLINE_MODE").value("false"),
+            new V1EnvVar().name("ADDITIONAL_MAVEN_ARGS").value("-DskipTests"),
+            new V1EnvVar().name("LOG_ANALYZER_ENDPOINT").value("http://localhost:8089/ingest/logfiles"),
+            new V1EnvVar().name("APPLY_PATCH").value("true"),
+            new V1EnvVar().name("LOG_TO_CONSOLE").value("true"),
+            new V1EnvVar().name("POD_IP").valueFrom(new V1EnvVarSource()
+                    .fieldRef(new V1ObjectFieldSelector().apiVersion("v1").fieldPath("status.podIP"))));
+
+    private final BatchV1Api batchV1Api;
+
+    private final CoreV1Api coreV1Api;
+
+    private final KubernetesService kubernetesService;
+
+    private final boolean reconcileOnStartup;
+
+    private final long deletionTimeoutInSeconds;
+
+    public NativeOrchestrationService(final BatchV1Api batchV1Api, final CoreV1Api coreV1Api,
+                                      final KubernetesService kubernetesService,
+                                      @Value("${" + RECONCILE_ON_STARTUP_PROPERTY + ":false}") final boolean reconcileOnStartup,
+                                      @Value("${ORCHESTRATION_DELETION_TIMEOUT_SECONDS:120}") final long deletionTimeoutInSeconds) {
+        this.batchV1Api = batchV1Api;
+        this.coreV1Api = coreV1Api;
+        this.kubernetesService = kubernetesService;
+        this.reconcileOnStartup = reconcileOnStartup;
+        this.deletionTimeoutInSeconds = deletionTimeoutInSeconds;
+    }
+
+    @PostConstruct
+    public void deleteAllTasks() throws ApiException {
+        if (reconcileOnStartup) {
+            return;
+        }
+
+        batchV1Api.deleteCollectionNamespacedJob(NAMESPACE).labelSelector(EVALUATION_SELECTOR)
+                .propagationPolicy(FOREGROUND_PROPAGATION).execute();
+        for (final V1Service service : coreV1Api.listNamespacedService(NAMESPACE).labelSelector(EVALUATION_SELECTOR).execute().getItems()) {
+            coreV1Api.deleteNamespacedService(service.getMetadata().getName(), NAMESPACE).execute();
+        }
+    }
+
+    @Override
+    @Retryable(maxAttempts = 5, backoff = @Backoff(delay = 30000))
+    public void deployTask(final GitEvaluationTask gitEvaluationTask, final SettingsService settingsService,
+                           final boolean multipleJobsPerNode) {
+        final String name = kubernetesService.getName(gitEvaluationTask.taskId());
+        try {
+            deleteTask(gitEvaluationTask.taskId());
+        } catch (final Exception e) {
+            log.error("Failed to delete task", e);
+        }
+        awaitDeletion(name);
+
+        try {
+            coreV1Api.createNamespacedService(NAMESPACE, createService(name, gitEvaluationTask.taskId())).execute();
+            batchV1Api.createNamespacedJob(NAMESPACE, createJob(name, gitEvaluationTask, settingsService, multipleJobsPerNode)).execute();
+        } catch (final ApiException e) {
+            log.error("Failed to deploy task: {}", e.getResponseBody(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A task counts as deployed as long as its job or its service exists.
+     */
+    @Override
+    public Set<String> getDeployedTaskIds() {
+        try {
+            final Set<String> taskIds = batchV1Api.listNamespacedJob(NAMESPACE).labelSelector(EVALUATION_SELECTOR).execute()
+                    .getItems().stream()
+                    .map(job -> job.getMetadata().getLabels().get(EVALUATION_ID_LABEL))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            coreV1Api.listNamespacedService(NAMESPACE).labelSelector(EVALUATION_SELECTOR).execute()
+                    .getItems().stream()
+                    .map(service -> service.getMetadata().getLabels().get(EVALUATION_ID_LABEL))
+                    .filter(Objects::nonNull)
+                    .forEach(taskIds::add);
+            return taskIds;
+        } catch (final ApiException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    @Retryable(maxAttempts = 5, backoff = @Backoff(delay = 30000))
+    public void deleteTask(final String taskId) {
+        final String name = kubernetesService.getName(taskId);
+        try {
+            batchV1Api.deleteNamespacedJob(name, NAMESPACE).propagationPolicy(FOREGROUND_PROPAGATION).execute();
+        } catch (final ApiException e) {
+            rethrowUnlessNotFound(e);
+        }
+
+        try {
+            coreV1Api.deleteNamespacedService(getServiceName(name), NAMESPACE).execute();
+        } catch (final ApiException e) {
+            rethrowUnlessNotFound(e);
+        }
+    }
+
+    /**
+     * The job is deleted in the foreground, so it and its service only disappear once their pods are gone. Creating
+     * them again before would fail because the names are still taken.
+     *
+     * @throws IllegalStateException if they still exist after the deletion timeout
+     */
+    private void awaitDeletion(final String name) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(deletionTimeoutInSeconds);
+        try {
+            while (jobExists(name) || serviceExists(getServiceName(name))) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IllegalStateException(String.format("The previous deployment %s was not deleted within %d seconds",
+                            name, deletionTimeoutInSeconds));
+                }
+                Thread.sleep(DELETION_POLL_INTERVAL_MILLIS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the deletion of " + name, e);
+        }
+    }
+
+    private boolean jobExists(final String name) {
+        try {
+            batchV1Api.readNamespacedJob(name, NAMESPACE).execute();
+            return true;
+        } catch (final ApiException e) {
+            rethrowUnlessNotFound(e);
+            return false;
+        }
+    }
+
+    private boolean serviceExists(final String serviceName) {
+        try {
+            coreV1Api.readNamespacedService(serviceName, NAMESPACE).execute();
+            return true;
+        } catch (final ApiException e) {
+            rethrowUnlessNotFound(e);
+            return false;
+        }
+    }
+
+    private static void rethrowUnlessNotFound(final ApiException e) {
+        if (e.getCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String getServiceName(final String name) {
+        return name + "-headless-svc";
+    }
+
+    private static Map<String, String> getLabels(final String name, final String taskId) {
+        return Map.of("app", name, EVALUATION_ID_LABEL, taskId, MANAGED_BY_LABEL, MANAGED_BY_VALUE);
+    }
+
+    V1Service createService(final String name, final String taskId) {
+        return new V1Service()
+                .apiVersion("v1")
+                .kind("Service")
+                .metadata(new V1ObjectMeta().name(getServiceName(name)).namespace(NAMESPACE).labels(getLabels(name, taskId)))
+                .spec(new V1ServiceSpec().clusterIP("None").selector(Map.of("job-name", name)));
+    }
+
+    V1Job createJob(final String name, final GitEvaluationTask gitEvaluationTask, final SettingsService settingsService,
+                    final boolean multipleJobsPerNode) {
+        final int replicas = settingsService.getReplicationFactor();
+
+        final V1PodSpec podSpec = new V1PodSpec()
+                .subdomain(getServiceName(name))
+                .restartPolicy("Never")
+                .hostNetwork(!multipleJobsPerNode)
+                .dnsPolicy("ClusterFirstWithHostNet")
+                .volumes(List.of(
+                        new V1Volume().name("data").hostPath(new V1HostPathVolumeSource().path("/data/" + gitEvaluationTask.datasetName())),
+                        new V1Volume().name("home-pi").hostPath(new V1HostPathVolumeSource().path("/home/pi"))))
+                .nodeSelector(Map.of("role", "worker"))
+                .containers(List.of(new V1Container()
+                        .name(CONTAINER_NAME)
+                        .image(settingsService.getEvaluationImageOrDefault())
+                        .ports(CONTAINER_PORTS)
+                        .volumeMounts(List.of(
+                                new V1VolumeMount().name("data").mountPath("/data/" + gitEvaluationTask.datasetName()),
+                                new V1VolumeMount().name("home-pi").mountPath("/home/pi"),
+                                new V1VolumeMount().name("home-pi").mountPath("/root")))
+                        .env(createEnvironment(name, gitEvaluationTask, replicas))
+                        .resources(new V1ResourceRequirements()
+                                .requests(Map.of("memory", Quantity.fromString(settingsService.getMemoryRequest()),
+                                        "cpu", Quantity.fromString(settingsService.getCpuRequest())))
+                                .limits(Map.of("memory", Quantity.fromString(settingsService.getMemoryLimit()),
+                                        "cpu", Quantity.fromString(settingsService.getCpuLimit()))))));
+
+        if (!multipleJobsPerNode) {
+            podSpec.affinity(new V1Affinity().podAntiAffinity(new V1PodAntiAffinity()
+                    .requiredDuringSchedulingIgnoredDuringExecution(List.of(new V1PodAffinityTerm()
+                            .labelSelector(new V1LabelSelector().matchExpressions(List.of(new V1LabelSelectorRequirement()
+                                    .key("job-name").operator("In").values(List.of(name)))))
+                            .topologyKey("kubernetes.io/hostname")))));
+        }
+
+        return new V1Job()
+                .apiVersion("batch/v1")
+                .kind("Job")
+                .metadata(new V1ObjectMeta().name(name).namespace(NAMESPACE).labels(getLabels(name, gitEvaluationTask.taskId())))
+                .spec(new V1JobSpec()
+                        .completions(replicas)
+                        .parallelism(replicas)
+                        .completionMode("Indexed")
+                        .suspend(false)
+                        .backoffLimit(0)
+                        .ttlSecondsAfterFinished(1000)
+                        .template(new V1PodTemplateSpec()
+                                .metadata(new V1ObjectMeta().labels(Map.of(EVALUATION_ID_LABEL, gitEvaluationTask.taskId())))
+                                .spec(podSpec)));
+    }
+
+    private List<V1EnvVar> createEnvironment(final String name, final GitEvaluationTask gitEvaluationTask, final int replicas) {
+        final String engineUrl = "http://" + kubernetesService.getEvaluationEngineHost() + ":" + kubernetesService.getEvaluationEnginePort();
+
+        final List<V1EnvVar> environment = new ArrayList<>();
+        environment.add(new V1EnvVar().name("JOB_NAME").value(name));
+        environment.add(new V1EnvVar().name("EVALUATION_ID").value(gitEvaluationTask.taskId()));
+        environment.add(new V1EnvVar().name("SVC_NAME").value(getServiceName(name)));
+        environment.add(new V1EnvVar().name("NUMBER_OF_REPLICAS").value(String.valueOf(replicas)));
+        environment.add(new V1EnvVar().name("GIT_URL").value(gitEvaluationTask.repositoryUrl()));
+        if (StringUtils.hasText(gitEvaluationTask.gitBranch())) {
+            environment.add(new V1EnvVar().name("GIT_BRANCH").value(gitEvaluationTask.gitBranch()));
+        }
+        environment.add(new V1EnvVar().name("RESULTS_ENDPOINT").value(engineUrl + "/api/fileIngestion/results"));
+        environment.add(new V1EnvVar().name("LOGS_ENDPOINT").value(engineUrl + "/api/fileIngestion/logs"));
+        environment.add(new V1EnvVar().name("EVENT_INGESTION_ENDPOINT").value(engineUrl + "/ingest/event"));
+        environment.add(new V1EnvVar().name("EVENT_BATCH_INGESTION_ENDPOINT").value(engineUrl + "/ingest/events:batch"));
+        environment.add(new V1EnvVar().name("EVALUATION_SERVICE_ALL_PODS_READY_TO_RUN_ENDPOINT").value(engineUrl + "/api/evaluation/allPodsReadyToRun"));
+        environment.add(new V1EnvVar().name("DATA_PATH").value(""));
+        environment.addAll(STATIC_ENVIRONMENT);
+
+        final List<String> instanceStartCommands = gitEvaluationTask.instanceStartCommands();
+        for (int i = 0; i < instanceStartCommands.size(); i++) {
+            environment.add(new V1EnvVar().name(String.format("START_COMMAND_%d", i)).value(instanceStartCommands.get(i)));
+        }
+        return environment;
+    }
+
+}
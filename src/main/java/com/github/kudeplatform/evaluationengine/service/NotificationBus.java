@@ -0,0 +1,194 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.NotificationTopic;
+import com.github.kudeplatform.evaluationengine.view.NotifiableComponent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers change notifications to the open views without blocking the publisher. Publishing only marks the changed
+ * key as dirty for every subscriber of the topic, a dispatcher thread hands the dirty keys of each subscriber over once
+ * per tick. A subscriber that is still busy with its previous notification keeps collecting keys, once it collected
+ * more than the configured maximum they are dropped and it gets a full refresh instead.
+ *
+ * @author timo.buechert
+ */
+@Service
+@Slf4j
+public class NotificationBus {
+
+    private final long tickInMillis;
+
+    private final int maxPendingKeys;
+
+    private final ExecutorService deliveryExecutor;
+
+    private final Map<NotificationTopic, List<Subscription>> subscriptions = new EnumMap<>(NotificationTopic.class);
+
+    private volatile boolean running;
+
+    private Thread dispatcherThread;
+
+    @Autowired
+    public NotificationBus(@Value("${NOTIFICATION_BUS_TICK_MS:500}") final long tickInMillis,
+                           @Value("${NOTIFICATION_BUS_MAX_PENDING_KEYS:1000}") final int maxPendingKeys) {
+        this(tickInMillis, maxPendingKeys, Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-delivery-", 0).factory()));
+    }
+
+    NotificationBus(final long tickInMillis, final int maxPendingKeys, final ExecutorService deliveryExecutor) {
+        this.tickInMillis = tickInMillis;
+        this.maxPendingKeys = maxPendingKeys;
+        this.deliveryExecutor = deliveryExecutor;
+        for (final NotificationTopic topic : NotificationTopic.values()) {
+            subscriptions.put(topic, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        this.running = true;
+        this.dispatcherThread = new Thread(this::dispatchLoop, "notification-dispatcher");
+        this.dispatcherThread.setDaemon(true);
+        this.dispatcherThread.start();
+        log.info("Started notification bus with tick {}ms and at most {} pending keys per subscriber", tickInMillis, maxPendingKeys);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        this.dispatcherThread.interrupt();
+        this.dispatcherThread.join(TimeUnit.SECONDS.toMillis(10));
+        this.deliveryExecutor.shutdown();
+    }
+
+    public void subscribe(final NotificationTopic topic, final NotifiableComponent component) {
+        subscriptions.get(topic).add(new Subscription(component, maxPendingKeys));
+    }
+
+    public void unsubscribe(final NotificationTopic topic, final NotifiableComponent component) {
+        subscriptions.get(topic).removeIf(subscription -> subscription.component == component);
+    }
+
+    /**
+     * Marks a single key of the topic as changed, e.g. the id of an evaluation.
+     */
+    public void publish(final NotificationTopic topic, final String key) {
+        subscriptions.get(topic).forEach(subscription -> subscription.add(key));
+    }
+
+    /**
+     * Marks everything of the topic as changed.
+     */
+    public void publishAll(final NotificationTopic topic) {
+        subscriptions.get(topic).forEach(Subscription::addAll);
+    }
+
+    public int getNumberOfSubscribers(final NotificationTopic topic) {
+        return subscriptions.get(topic).size();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Thread.sleep(tickInMillis);
+                dispatch();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final Exception e) {
+                log.error("Failed to dispatch notifications", e);
+            }
+        }
+    }
+
+    /**
+     * Hands the pending changes over to every subscriber that is not busy with its previous notification.
+     */
+    void dispatch() {
+        for (final List<Subscription> topicSubscriptions : subscriptions.values()) {
+            for (final Subscription subscription : topicSubscriptions) {
+                if (subscription.hasPendingChanges() && subscription.delivering.compareAndSet(false, true)) {
+                    deliveryExecutor.execute(subscription::deliver);
+                }
+            }
+        }
+    }
+
+    private static final class Subscription {
+
+        private final NotifiableComponent component;
+
+        private final int maxPendingKeys;
+
+        private final AtomicBoolean delivering = new AtomicBoolean();
+
+        private Set<String> pendingKeys = new HashSet<>();
+
+        private boolean pendingFullRefresh;
+
+        Subscription(final NotifiableComponent component, final int maxPendingKeys) {
+            this.component = component;
+            this.maxPendingKeys = maxPendingKeys;
+        }
+
+        synchronized void add(final String key) {
+            if (pendingFullRefresh) {
+                return;
+            }
+            if (pendingKeys.size() >= maxPendingKeys && !pendingKeys.contains(key)) {
+                addAll();
+                return;
+            }
+            pendingKeys.add(key);
+        }
+
+        synchronized void addAll() {
+            pendingFullRefresh = true;
+            pendingKeys = new HashSet<>();
+        }
+
+        synchronized boolean hasPendingChanges() {
+            return pendingFullRefresh || !pendingKeys.isEmpty();
+        }
+
+        void deliver() {
+            final Set<String> keys;
+            final boolean fullRefresh;
+            synchronized (this) {
+                keys = pendingKeys;
+                fullRefresh = pendingFullRefresh;
+                pendingKeys = new HashSet<>();
+                pendingFullRefresh = false;
+            }
+
+            try {
+                if (fullRefresh) {
+                    component.dataChanged();
+                } else if (!keys.isEmpty()) {
+                    component.dataChanged(keys);
+                }
+            } catch (final Exception e) {
+                log.error("Failed to notify {}", component.getClass().getSimpleName(), e);
+            } finally {
+                delivering.set(false);
+            }
+        }
+
+    }
+
+}
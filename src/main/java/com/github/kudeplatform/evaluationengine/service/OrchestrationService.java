@@ -1,7 +1,32 @@
 package com.github.kudeplatform.evaluationengine.service;
 
+import com.github.kudeplatform.evaluationengine.domain.GitEvaluationTask;
+
+import java.util.Set;
+
 /**
+ * Creates and removes the Kubernetes resources of an evaluation. The implementation is selected with
+ * ORCHESTRATION_MODE ({@code helm} or {@code native}).
+ *
  * @author timo.buechert
  */
 public interface OrchestrationService {
+
+    String ORCHESTRATION_MODE_PROPERTY = "ORCHESTRATION_MODE";
+
+    /**
+     * If set, the deployments of a previous run are kept on startup so that their evaluations can be re-attached.
+     * Otherwise all of them are deleted.
+     */
+    String RECONCILE_ON_STARTUP_PROPERTY = "EVALUATION_RECONCILE_ON_STARTUP";
+
+    void deployTask(GitEvaluationTask gitEvaluationTask, SettingsService settingsService, boolean multipleJobsPerNode);
+
+    void deleteTask(String taskId);
+
+    /**
+     * @return the ids of all evaluations that currently have a deployment
+     */
+    Set<String> getDeployedTaskIds();
+
 }
@@ -0,0 +1,218 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.NodeResources;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits evaluations based on the CPU and memory that their replicas request instead of a fixed number of slots. The
+ * planner keeps track of the resources reserved on every worker node and admits an evaluation only if all of its
+ * replicas fit next to the already admitted ones. The number of pods per node stays limited by the max jobs per node
+ * setting, so evaluations are not co-located more densely than configured.
+ * <p>
+ * The planned nodes only decide whether an evaluation is admitted, the pods themselves are placed by the Kubernetes
+ * scheduler. The replicas are planned first fit, which packs them onto as few nodes as possible.
+ *
+ * @author timo.buechert
+ */
+public class PlacementPlanner {
+
+    private final List<NodeResources> nodes;
+
+    private final int maxPodsPerNode;
+
+    private final long[] reservedCpuMillis;
+
+    private final long[] reservedMemoryBytes;
+
+    private final int[] reservedPods;
+
+    private final Map<String, Reservation> reservations = new HashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition resourcesReleased = lock.newCondition();
+
+    public PlacementPlanner(final List<NodeResources> nodes, final int maxPodsPerNode) {
+        this.nodes = nodes.stream().sorted(Comparator.comparing(NodeResources::nodeName)).toList();
+        this.maxPodsPerNode = maxPodsPerNode;
+        this.reservedCpuMillis = new long[this.nodes.size()];
+        this.reservedMemoryBytes = new long[this.nodes.size()];
+        this.reservedPods = new int[this.nodes.size()];
+    }
+
+    /**
+     * Blocks until the replicas of the evaluation fit on the worker nodes and reserves their resources.
+     *
+     * @return the names of the nodes the replicas were planned on, one entry per replica
+     * @throws IllegalArgumentException if the replicas would not even fit on the empty worker nodes
+     */
+    public List<String> acquire(final String taskId, final int replicas, final long cpuMillis,
+                                final long memoryBytes) throws InterruptedException {
+        if (!canBePlaced(replicas, cpuMillis, memoryBytes)) {
+            throw new IllegalArgumentException(String.format("%d replicas with %dm CPU and %d bytes memory each do not fit on the %d worker nodes",
+                    replicas, cpuMillis, memoryBytes, nodes.size()));
+        }
+
+        lock.lock();
+        try {
+            Optional<List<String>> placement;
+            while ((placement = tryReserve(taskId, replicas, cpuMillis, memoryBytes)).isEmpty()) {
+                resourcesReleased.await();
+            }
+            return placement.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the names of the nodes the replicas were planned on, or an empty optional if they do not fit right now
+     */
+    public Optional<List<String>> tryAcquire(final String taskId, final int replicas, final long cpuMillis,
+                                             final long memoryBytes) {
+        lock.lock();
+        try {
+            return tryReserve(taskId, replicas, cpuMillis, memoryBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the resources reserved for the evaluation, does nothing if there are none.
+     */
+    public void release(final String taskId) {
+        lock.lock();
+        try {
+            final Reservation reservation = reservations.remove(taskId);
+            if (reservation == null) {
+                return;
+            }
+
+            for (final int nodeIndex : reservation.nodeIndices()) {
+                reservedCpuMillis[nodeIndex] -= reservation.cpuMillis();
+                reservedMemoryBytes[nodeIndex] -= reservation.memoryBytes();
+                reservedPods[nodeIndex]--;
+            }
+            resourcesReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isIdle() {
+        lock.lock();
+        try {
+            return reservations.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getNumberOfAdmittedEvaluations() {
+        lock.lock();
+        try {
+            return reservations.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many evaluations with the given replicas fit on the worker nodes at the same time if nothing else is
+     * running
+     */
+    public int getCapacity(final int replicas, final long cpuMillis, final long memoryBytes) {
+        final long[] cpu = new long[nodes.size()];
+        final long[] memory = new long[nodes.size()];
+        final int[] pods = new int[nodes.size()];
+        int capacity = 0;
+        while (replicas > 0 && plan(replicas, cpuMillis, memoryBytes, cpu, memory, pods) != null) {
+            capacity++;
+        }
+        return capacity;
+    }
+
+    /**
+     * @return whether the replicas fit on the worker nodes if nothing else is running
+     */
+    public boolean canBePlaced(final int replicas, final long cpuMillis, final long memoryBytes) {
+        return plan(replicas, cpuMillis, memoryBytes, new long[nodes.size()], new long[nodes.size()], new int[nodes.size()]) != null;
+    }
+
+    private Optional<List<String>> tryReserve(final String taskId, final int replicas, final long cpuMillis,
+                                              final long memoryBytes) {
+        if (reservations.containsKey(taskId)) {
+            throw new IllegalStateException("Resources for task " + taskId + " are already reserved");
+        }
+
+        final int[] nodeIndices = plan(replicas, cpuMillis, memoryBytes,
+                reservedCpuMillis.clone(), reservedMemoryBytes.clone(), reservedPods.clone());
+        if (nodeIndices == null) {
+            return Optional.empty();
+        }
+
+        final List<String> nodeNames = new ArrayList<>(replicas);
+        for (final int nodeIndex : nodeIndices) {
+            reservedCpuMillis[nodeIndex] += cpuMillis;
+            reservedMemoryBytes[nodeIndex] += memoryBytes;
+            reservedPods[nodeIndex]++;
+            nodeNames.add(nodes.get(nodeIndex).nodeName());
+        }
+        reservations.put(taskId, new Reservation(nodeIndices, cpuMillis, memoryBytes));
+        return Optional.of(nodeNames);
+    }
+
+    /**
+     * Plans the replicas one after another on the given reservations, which are updated in place. All replicas of an
+     * evaluation request the same resources, so the decreasing order of first fit decreasing is their given order.
+     *
+     * @return the node index of every replica, or null if not all replicas fit
+     */
+    private int[] plan(final int replicas, final long cpuMillis, final long memoryBytes, final long[] cpu,
+                       final long[] memory, final int[] pods) {
+        final int[] nodeIndices = new int[replicas];
+        for (int replica = 0; replica < replicas; replica++) {
+            final int nodeIndex = findFirstFit(cpuMillis, memoryBytes, cpu, memory, pods);
+            if (nodeIndex < 0) {
+                return null;
+            }
+
+            cpu[nodeIndex] += cpuMillis;
+            memory[nodeIndex] += memoryBytes;
+            pods[nodeIndex]++;
+            nodeIndices[replica] = nodeIndex;
+        }
+        return nodeIndices;
+    }
+
+    private int findFirstFit(final long cpuMillis, final long memoryBytes, final long[] cpu, final long[] memory,
+                             final int[] pods) {
+        for (int nodeIndex = 0; nodeIndex < nodes.size(); nodeIndex++) {
+            if (fits(nodeIndex, cpuMillis, memoryBytes, cpu, memory, pods)) {
+                return nodeIndex;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fits(final int nodeIndex, final long cpuMillis, final long memoryBytes, final long[] cpu,
+                         final long[] memory, final int[] pods) {
+        final NodeResources node = nodes.get(nodeIndex);
+        return pods[nodeIndex] < maxPodsPerNode
+                && cpu[nodeIndex] + cpuMillis <= node.cpuMillis()
+                && memory[nodeIndex] + memoryBytes <= node.memoryBytes();
+    }
+
+    private record Reservation(int[] nodeIndices, long cpuMillis, long memoryBytes) {
+    }
+
+}
@@ -0,0 +1,382 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.ClonedRepository;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismComparison;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismComparisonRun;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismPass;
+import de.jplag.JPlag;
+import de.jplag.JPlagResult;
+import de.jplag.Language;
+import de.jplag.Submission;
+import de.jplag.exceptions.ExitException;
+import de.jplag.java.JavaLanguage;
+import de.jplag.options.JPlagOptions;
+import de.jplag.scala.ScalaLanguage;
+import de.jplag.text.NaturalLanguage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_SUBMISSION_CHECKOUTS_PATH;
+
+/**
+ * Compares the submissions of a plagiarism check in shards that run in parallel on a fork-join pool.
+ * <p>
+ * Every language is a separate pass. The {@link PlagiarismPreFilter} first selects the candidate pairs of a pass,
+ * submissions connected by candidate pairs form a component and groups never span components. The changed submissions
+ * of a component are split into groups in order, a shard passes one group to JPlag as new submissions and the candidate
+ * neighbours of the group among the later changed and the unchanged submissions as old submissions. JPlag compares the
+ * new submissions with each other and with the old ones, so every candidate pair is compared in the shard of its
+ * earlier submission and no pair is compared twice. Pairs within a group and pairs of a group member with a neighbour
+ * of another member are compared even if they are no candidates, the groups are cut so that no shard exceeds the
+ * configured number of comparisons. The shards of all passes share the pool. JPlag runs its own parallel streams inside
+ * the worker threads of the pool, so the pool also bounds the parallelism of the comparisons within a shard.
+ * <p>
+ * A shard holds the parsed token lists of its group and their neighbours while it runs, so the peak memory of a pass
+ * grows with the number of concurrent shards. The number of concurrent shards is capped separately from the
+ * parallelism of the pool.
+ * <p>
+ * The MinHash signatures of the submissions are cached by submission key, so an unchanged submission is not read
+ * again by the pre-filter.
+ *
+ * @author timo.buechert
+ */
+@Service
+@Slf4j
+public class PlagiarismComparisonEngine {
+
+    static final String SHARDS_DIRECTORY = "shards";
+
+    private static final int SHINGLE_SIZE = 8;
+
+    private static final int NUMBER_OF_HASHES = 128;
+
+    private final FileSystemService fileSystemService;
+
+    private final PlagiarismPreFilter preFilter;
+
+    private final int parallelism;
+
+    private final long maxComparisonsPerShard;
+
+    private final int maxConcurrentShards;
+
+    private final Map<String, long[]> signatureCache;
+
+    public PlagiarismComparisonEngine(final FileSystemService fileSystemService,
+                                      @Value("${PLAGIARISM_PREFILTER_THRESHOLD:0.1}") final double preFilterThreshold,
+                                      @Value("${PLAGIARISM_COMPARISON_PARALLELISM:0}") final int parallelism,
+                                      @Value("${PLAGIARISM_MAX_COMPARISONS_PER_SHARD:5000}") final long maxComparisonsPerShard,
+                                      @Value("${PLAGIARISM_MAX_CONCURRENT_SHARDS:0}") final int maxConcurrentShards,
+                                      @Value("${PLAGIARISM_SIGNATURE_CACHE_SIZE:10000}") final int signatureCacheSize) {
+        this.fileSystemService = fileSystemService;
+        this.preFilter = new PlagiarismPreFilter(SHINGLE_SIZE, NUMBER_OF_HASHES, preFilterThreshold);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxComparisonsPerShard = maxComparisonsPerShard;
+        this.maxConcurrentShards = maxConcurrentShards > 0 ? maxConcurrentShards : this.parallelism;
+        this.signatureCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, long[]> eldest) {
+                return size() > signatureCacheSize;
+            }
+        });
+    }
+
+    /**
+     * Compares every changed submission of a pass with all other submissions of the pass, the unchanged submissions
+     * are not compared with each other. The comparisons of each shard are handed to the callback as soon as the shard
+     * is done.
+     */
+    public PlagiarismComparisonRun compare(final ClonedRepository baseCode, final List<PlagiarismPass> passes,
+                                           final Consumer<String> statusCallback,
+                                           final Consumer<List<PlagiarismComparison>> comparisonsCallback) throws InterruptedException {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final List<Shard> shards = new ArrayList<>();
+            long numberOfComparisons = 0;
+            for (final PlagiarismPass pass : passes) {
+                statusCallback.accept("Selecting candidate pairs of " + pass.language().getDisplayName());
+                final List<ClonedRepository> submissions = new ArrayList<>(pass.changedSubmissions());
+                submissions.addAll(pass.unchangedSubmissions());
+                final boolean[] changed = new boolean[submissions.size()];
+                for (int i = 0; i < pass.changedSubmissions().size(); i++) {
+                    changed[i] = true;
+                }
+
+                final Set<List<Integer>> candidatePairs = preFilter.candidatePairs(computeSignatures(pool, baseCode, pass, submissions), changed);
+                final Map<ClonedRepository, Set<ClonedRepository>> candidates = new HashMap<>();
+                for (final List<Integer> pair : candidatePairs) {
+                    candidates.computeIfAbsent(submissions.get(pair.get(0)), submission -> new LinkedHashSet<>()).add(submissions.get(pair.get(1)));
+                    candidates.computeIfAbsent(submissions.get(pair.get(1)), submission -> new LinkedHashSet<>()).add(submissions.get(pair.get(0)));
+                }
+                for (final List<Integer> component : getComponents(submissions.size(), candidatePairs)) {
+                    final List<ClonedRepository> changedMembers = component.stream().filter(i -> changed[i]).map(submissions::get).toList();
+                    shards.addAll(planShards(pass, changedMembers, candidates, maxComparisonsPerShard));
+                }
+
+                numberOfComparisons += (long) pass.changedSubmissions().size() * (pass.changedSubmissions().size() - 1) / 2
+                        + (long) pass.changedSubmissions().size() * pass.unchangedSubmissions().size();
+            }
+
+            final long totalComparisons = numberOfComparisons;
+            final long numberOfPrunedComparisons = numberOfComparisons - shards.stream().mapToLong(Shard::numberOfComparisons).sum();
+            log.info("Comparing {} passes in {} shards, {} of {} comparisons pruned", passes.size(), shards.size(),
+                    numberOfPrunedComparisons, numberOfComparisons);
+
+            final AtomicInteger finishedShards = new AtomicInteger();
+            final Set<String> failedSubmissionKeys = ConcurrentHashMap.newKeySet();
+            // acquired by the submitting thread, so the worker threads of the pool never block on it
+            final Semaphore runningShards = new Semaphore(maxConcurrentShards);
+            final List<Future<List<PlagiarismComparison>>> futures = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                final int shardIndex = i;
+                runningShards.acquire();
+                futures.add(pool.submit(() -> {
+                    try {
+                        final List<PlagiarismComparison> comparisons = runShard(baseCode, shardIndex, shards.get(shardIndex), failedSubmissionKeys);
+                        comparisonsCallback.accept(comparisons);
+                        statusCallback.accept(String.format("Compared %d of %d shards, %d of %d comparisons pruned",
+                                finishedShards.incrementAndGet(), shards.size(), numberOfPrunedComparisons, totalComparisons));
+                        return comparisons;
+                    } finally {
+                        runningShards.release();
+                    }
+                }));
+            }
+
+            final List<PlagiarismComparison> comparisons = new ArrayList<>();
+            for (final Future<List<PlagiarismComparison>> future : futures) {
+                try {
+                    comparisons.addAll(future.get());
+                } catch (final ExecutionException e) {
+                    throw new RuntimeException("Could not compare submissions. The error was: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return new PlagiarismComparisonRun(comparisons, shards.size(), numberOfPrunedComparisons, Set.copyOf(failedSubmissionKeys));
+        } finally {
+            pool.shutdownNow();
+            FileUtils.deleteQuietly(new File(KUDE_SUBMISSION_CHECKOUTS_PATH + SHARDS_DIRECTORY));
+        }
+    }
+
+    /**
+     * @return a new JPlag language, the languages are not shared between concurrent runs
+     */
+    static Language createLanguage(final PlagiarismLanguage language) {
+        return switch (language) {
+            case JAVA -> new JavaLanguage();
+            case SCALA -> new ScalaLanguage();
+            case BUILD_FILES -> new NaturalLanguage();
+        };
+    }
+
+    private List<long[]> computeSignatures(final ForkJoinPool pool, final ClonedRepository baseCode,
+                                           final PlagiarismPass pass, final List<ClonedRepository> submissions) throws InterruptedException {
+        if (!preFilter.isEnabled()) {
+            return submissions.stream().map(submission -> new long[0]).toList();
+        }
+
+        try {
+            final Set<Long> baseCodeShingles = pass.useBaseCode() ? preFilter.shingles(baseCode.directory(), pass.language()) : Set.of();
+            return pool.submit(() -> IntStream.range(0, submissions.size()).parallel()
+                    .mapToObj(i -> {
+                        final ClonedRepository submission = submissions.get(i);
+                        // the key covers the commit of the submission and of the base code as well as the language
+                        final String submissionKey = pass.submissionKeys().get(submission.name());
+                        final long[] cachedSignature = signatureCache.get(submissionKey);
+                        if (cachedSignature != null) {
+                            return cachedSignature;
+                        }
+                        try {
+                            final long[] signature = preFilter.signature(preFilter.shingles(submission.directory(), pass.language()), baseCodeShingles);
+                            signatureCache.put(submissionKey, signature);
+                            return signature;
+                        } catch (final IOException e) {
+                            throw new RuntimeException("Could not read submission " + submission.name(), e);
+                        }
+                    })
+                    .toList()).get();
+        } catch (final IOException | ExecutionException e) {
+            throw new RuntimeException("Could not compute the signatures of the submissions. The error was: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the connected components of the candidate graph with at least two submissions
+     */
+    static List<List<Integer>> getComponents(final int numberOfSubmissions, final Set<List<Integer>> candidatePairs) {
+        final int[] parents = IntStream.range(0, numberOfSubmissions).toArray();
+        for (final List<Integer> pair : candidatePairs) {
+            parents[find(parents, pair.get(0))] = find(parents, pair.get(1));
+        }
+
+        final Map<Integer, List<Integer>> components = new TreeMap<>();
+        final Map<Integer, Integer> degrees = new HashMap<>();
+        candidatePairs.forEach(pair -> pair.forEach(i -> degrees.merge(i, 1, Integer::sum)));
+        for (int i = 0; i < numberOfSubmissions; i++) {
+            if (degrees.containsKey(i)) {
+                components.computeIfAbsent(find(parents, i), root -> new ArrayList<>()).add(i);
+            }
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    private static int find(final int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    /**
+     * Cuts the changed submissions of a component into consecutive groups, see the class comment. A changed
+     * submission without later neighbours has all its candidate pairs compared in earlier shards and is left out.
+     *
+     * @param candidates the candidate neighbours of every submission of the pass
+     */
+    static List<Shard> planShards(final PlagiarismPass pass, final List<ClonedRepository> changedSubmissions,
+                                  final Map<ClonedRepository, Set<ClonedRepository>> candidates, final long maxComparisonsPerShard) {
+        final Map<ClonedRepository, Integer> positions = new HashMap<>();
+        for (int i = 0; i < changedSubmissions.size(); i++) {
+            positions.put(changedSubmissions.get(i), i);
+        }
+
+        final List<Shard> shards = new ArrayList<>();
+        List<ClonedRepository> group = new ArrayList<>();
+        Set<ClonedRepository> oldSubmissions = new LinkedHashSet<>();
+        for (int i = 0; i < changedSubmissions.size(); i++) {
+            final ClonedRepository submission = changedSubmissions.get(i);
+            final Set<ClonedRepository> laterNeighbours = getLaterNeighbours(submission, i, candidates, positions);
+            if (laterNeighbours.isEmpty()) {
+                continue;
+            }
+
+            // the submission moves from the old submissions of the group to the new ones
+            final Set<ClonedRepository> extendedOldSubmissions = new LinkedHashSet<>(oldSubmissions);
+            extendedOldSubmissions.remove(submission);
+            extendedOldSubmissions.addAll(laterNeighbours);
+            if (!group.isEmpty() && getNumberOfComparisons(group.size() + 1, extendedOldSubmissions.size()) > maxComparisonsPerShard) {
+                shards.add(new Shard(pass, group, List.copyOf(oldSubmissions), getNumberOfComparisons(group.size(), oldSubmissions.size())));
+                group = new ArrayList<>();
+                oldSubmissions = new LinkedHashSet<>(laterNeighbours);
+            } else {
+                oldSubmissions = extendedOldSubmissions;
+            }
+            group.add(submission);
+        }
+
+        if (!group.isEmpty()) {
+            shards.add(new Shard(pass, group, List.copyOf(oldSubmissions), getNumberOfComparisons(group.size(), oldSubmissions.size())));
+        }
+        return shards;
+    }
+
+    /**
+     * @return the candidate neighbours that are unchanged or come after the changed submission at the given position
+     */
+    private static Set<ClonedRepository> getLaterNeighbours(final ClonedRepository submission, final int position,
+                                                           final Map<ClonedRepository, Set<ClonedRepository>> candidates,
+                                                           final Map<ClonedRepository, Integer> positions) {
+        final Set<ClonedRepository> laterNeighbours = new LinkedHashSet<>();
+        for (final ClonedRepository neighbour : candidates.getOrDefault(submission, Set.of())) {
+            if (positions.getOrDefault(neighbour, Integer.MAX_VALUE) > position) {
+                laterNeighbours.add(neighbour);
+            }
+        }
+        return laterNeighbours;
+    }
+
+    /**
+     * JPlag compares the new submissions with each other and with the old submissions, but not the old ones with each
+     * other.
+     */
+    private static long getNumberOfComparisons(final int numberOfNew, final int numberOfOld) {
+        return (long) numberOfNew * (numberOfNew - 1) / 2 + (long) numberOfNew * numberOfOld;
+    }
+
+    /**
+     * Submissions that JPlag could not parse and all submissions of a shard that failed are added to the failed
+     * submission keys, they have to be compared again in the next check.
+     */
+    private List<PlagiarismComparison> runShard(final ClonedRepository baseCode, final int shardIndex, final Shard shard,
+                                                final Set<String> failedSubmissionKeys) throws IOException {
+        final PlagiarismLanguage language = shard.pass().language();
+        final File shardDirectory = new File(KUDE_SUBMISSION_CHECKOUTS_PATH + SHARDS_DIRECTORY + File.separator + shardIndex);
+        final File newDirectory = new File(shardDirectory, "new");
+        final File oldDirectory = new File(shardDirectory, "old");
+        try {
+            for (final ClonedRepository submission : shard.newSubmissions()) {
+                fileSystemService.linkDirectory(submission.directory(), newDirectory.toPath().resolve(submission.name()));
+            }
+            for (final ClonedRepository submission : shard.oldSubmissions()) {
+                fileSystemService.linkDirectory(submission.directory(), oldDirectory.toPath().resolve(submission.name()));
+            }
+
+            JPlagOptions options = new JPlagOptions(createLanguage(language), Set.of(newDirectory),
+                    shard.oldSubmissions().isEmpty() ? Set.of() : Set.of(oldDirectory))
+                    .withMaximumNumberOfComparisons(-1)
+                    .withFileSuffixes(language.getFileSuffixes());
+            if (shard.pass().useBaseCode()) {
+                options = options.withBaseCodeSubmissionDirectory(baseCode.directory().toFile());
+            }
+            final JPlagResult result = JPlag.run(options);
+            result.getSubmissions().getInvalidSubmissions().stream()
+                    .map(submission -> shard.pass().submissionKeys().get(getSubmissionName(submission)))
+                    .filter(Objects::nonNull)
+                    .forEach(failedSubmissionKeys::add);
+            return result.getAllComparisons().stream()
+                    .map(comparison -> new PlagiarismComparison(language, getSubmissionName(comparison.firstSubmission()),
+                            getSubmissionName(comparison.secondSubmission()), comparison.similarity(),
+                            comparison.maximalSimilarity(), comparison.getNumberOfMatchedTokens(), false))
+                    .toList();
+        } catch (final ExitException e) {
+            // e.g. if no submission of the shard has enough tokens, the other shards are not affected
+            log.warn("Could not compare {} shard {} with {} submissions. The error was: {}", language.getDisplayName(),
+                    shardIndex, shard.newSubmissions().size() + shard.oldSubmissions().size(), e.getMessage());
+            Stream.concat(shard.newSubmissions().stream(), shard.oldSubmissions().stream())
+                    .map(submission -> shard.pass().submissionKeys().get(submission.name()))
+                    .filter(Objects::nonNull)
+                    .forEach(failedSubmissionKeys::add);
+            return List.of();
+        } finally {
+            FileUtils.deleteQuietly(shardDirectory);
+        }
+    }
+
+    /**
+     * JPlag prefixes the names with the root directory if there is more than one, the repository name is the last part.
+     */
+    private static String getSubmissionName(final Submission submission) {
+        return new File(submission.getName()).getName();
+    }
+
+    record Shard(PlagiarismPass pass, List<ClonedRepository> newSubmissions, List<ClonedRepository> oldSubmissions,
+                 long numberOfComparisons) {
+    }
+
+}
@@ -0,0 +1,206 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cheap estimate which submissions may be similar, used to skip the full comparison of all other pairs. The source
+ * files are split into lexical tokens. For programming languages identifiers and literals are replaced by their kind,
+ * so renaming does not hide a copy. Every submission is reduced to a MinHash signature of its token n-grams, n-grams
+ * that also occur in the base code are left out. Locality-sensitive hashing over bands of the signatures yields the
+ * candidate pairs, the bands are chosen so that pairs with an estimated Jaccard similarity above the threshold are
+ * likely to share a band.
+ *
+ * @author timo.buechert
+ */
+public class PlagiarismPreFilter {
+
+    private static final Pattern TOKEN_PATTERN = Pattern.compile(
+            "//[^\\n]*|/\\*.*?\\*/|\"(?:\\\\.|[^\"\\\\])*\"|'(?:\\\\.|[^'\\\\])*'|[A-Za-z_$][A-Za-z0-9_$]*|\\d[\\w.]*|\\S",
+            Pattern.DOTALL);
+
+    private final int shingleSize;
+
+    private final long[] seeds;
+
+    private final int rowsPerBand;
+
+    private final boolean enabled;
+
+    public PlagiarismPreFilter(final int shingleSize, final int numberOfHashes, final double threshold) {
+        this.shingleSize = shingleSize;
+        this.seeds = new SplittableRandom(numberOfHashes).longs(numberOfHashes).toArray();
+        this.rowsPerBand = getRowsPerBand(numberOfHashes, threshold);
+        this.enabled = threshold > 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the hashed token n-grams of all files of the language below the directory
+     */
+    public Set<Long> shingles(final Path directory, final PlagiarismLanguage language) throws IOException {
+        final Set<Long> shingles = new HashSet<>();
+        if (!Files.isDirectory(directory)) {
+            return shingles;
+        }
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isRegularFile(path) && language.matches(path.toString())) {
+                    final List<String> tokens = tokenize(new String(Files.readAllBytes(path), StandardCharsets.UTF_8), language);
+                    for (int i = 0; i + shingleSize <= tokens.size(); i++) {
+                        long hash = 1;
+                        for (int j = i; j < i + shingleSize; j++) {
+                            hash = hash * 31 + tokens.get(j).hashCode();
+                        }
+                        shingles.add(mix(hash));
+                    }
+                }
+            }
+        }
+        return shingles;
+    }
+
+    /**
+     * @return the MinHash signature of the shingles that are not excluded, or an empty array if none are left
+     */
+    public long[] signature(final Set<Long> shingles, final Set<Long> excludedShingles) {
+        final long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        boolean empty = true;
+        for (final long shingle : shingles) {
+            if (excludedShingles.contains(shingle)) {
+                continue;
+            }
+            empty = false;
+            for (int i = 0; i < seeds.length; i++) {
+                signature[i] = Math.min(signature[i], mix(shingle ^ seeds[i]));
+            }
+        }
+        return empty ? new long[0] : signature;
+    }
+
+    /**
+     * Only pairs with at least one changed submission are considered, the others were compared already. If the
+     * pre-filter is disabled, all of these pairs are candidates.
+     *
+     * @return the candidate pairs as indices into the given signatures, the smaller index first
+     */
+    public Set<List<Integer>> candidatePairs(final List<long[]> signatures, final boolean[] changed) {
+        final Set<List<Integer>> candidatePairs = new LinkedHashSet<>();
+        if (!enabled) {
+            for (int i = 0; i < signatures.size(); i++) {
+                for (int j = i + 1; j < signatures.size(); j++) {
+                    if (changed[i] || changed[j]) {
+                        candidatePairs.add(List.of(i, j));
+                    }
+                }
+            }
+            return candidatePairs;
+        }
+
+        for (int band = 0; band * rowsPerBand < seeds.length; band++) {
+            final Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < signatures.size(); i++) {
+                final long[] signature = signatures.get(i);
+                if (signature.length == 0) {
+                    continue;
+                }
+                long bucket = band;
+                for (int row = band * rowsPerBand; row < Math.min(seeds.length, (band + 1) * rowsPerBand); row++) {
+                    bucket = mix(bucket * 31 + signature[row]);
+                }
+                buckets.computeIfAbsent(bucket, key -> new ArrayList<>()).add(i);
+            }
+
+            for (final List<Integer> bucket : buckets.values()) {
+                for (int i = 0; i < bucket.size(); i++) {
+                    for (int j = i + 1; j < bucket.size(); j++) {
+                        if (changed[bucket.get(i)] || changed[bucket.get(j)]) {
+                            candidatePairs.add(List.of(bucket.get(i), bucket.get(j)));
+                        }
+                    }
+                }
+            }
+        }
+        return candidatePairs;
+    }
+
+    /**
+     * Identifiers other than the keywords of the language and literals are only replaced by their kind for programming
+     * languages.
+     *
+     * @return the tokens of the source
+     */
+    static List<String> tokenize(final String source, final PlagiarismLanguage language) {
+        final boolean normalize = language.isProgrammingLanguage();
+        final List<String> tokens = new ArrayList<>();
+        final Matcher matcher = TOKEN_PATTERN.matcher(source);
+        while (matcher.find()) {
+            final String token = matcher.group();
+            if (token.startsWith("//") || token.startsWith("/*")) {
+                continue;
+            }
+
+            final char first = token.charAt(0);
+            if (!normalize) {
+                tokens.add(token);
+            } else if (first == '"' || first == '\'') {
+                tokens.add("<literal>");
+            } else if (Character.isDigit(first)) {
+                tokens.add("<number>");
+            } else if (Character.isJavaIdentifierStart(first) && !language.getKeywords().contains(token)) {
+                tokens.add("<identifier>");
+            } else {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * A pair with Jaccard similarity s shares at least one of b bands of r rows with probability 1 - (1 - s^r)^b, the
+     * steepest point of that curve is at about (1/b)^(1/r). The number of rows is chosen to put it next to the threshold.
+     */
+    static int getRowsPerBand(final int numberOfHashes, final double threshold) {
+        int bestRows = 1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int rows = 1; rows <= numberOfHashes; rows++) {
+            if (numberOfHashes % rows != 0) {
+                continue;
+            }
+            final double distance = Math.abs(Math.pow(1.0 / (numberOfHashes / rows), 1.0 / rows) - threshold);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestRows = rows;
+            }
+        }
+        return bestRows;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+}
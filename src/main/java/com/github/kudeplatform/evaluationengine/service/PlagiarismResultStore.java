@@ -0,0 +1,118 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismComparison;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismComparisonEntity;
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismComparisonRepository;
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismSubmissionEntity;
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismSubmissionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the submissions and comparisons of earlier plagiarism checks, so that a check only has to compare the
+ * submissions that changed since then. Comparisons pruned by the {@link PlagiarismPreFilter} are not stored. Only the
+ * latest submission of every name and language is kept, older ones and their comparisons are deleted when a newer one
+ * is saved.
+ *
+ * @author timo.buechert
+ */
+@Service
+public class PlagiarismResultStore {
+
+    private final PlagiarismSubmissionRepository plagiarismSubmissionRepository;
+
+    private final PlagiarismComparisonRepository plagiarismComparisonRepository;
+
+    public PlagiarismResultStore(final PlagiarismSubmissionRepository plagiarismSubmissionRepository,
+                                 final PlagiarismComparisonRepository plagiarismComparisonRepository) {
+        this.plagiarismSubmissionRepository = plagiarismSubmissionRepository;
+        this.plagiarismComparisonRepository = plagiarismComparisonRepository;
+    }
+
+    /**
+     * @return the key of a submission in the given state, see {@link PlagiarismSubmissionEntity}
+     */
+    public static String getSubmissionKey(final String name, final String commitId, final String baseCodeCommitId,
+                                          final String language) {
+        return ResultCacheService.hash(List.of(name, commitId, baseCodeCommitId, language));
+    }
+
+    /**
+     * Selects the submissions that don't have to be compared with each other again: the largest group of submissions
+     * that were last analysed in the same check. Submissions that were never analysed are never selected.
+     *
+     * @param submissionKeys the keys of the submissions of the current check
+     * @return the selected submission keys
+     */
+    @Transactional(readOnly = true)
+    public Set<String> selectUnchangedSubmissions(final Collection<String> submissionKeys) {
+        return plagiarismSubmissionRepository.findAllById(submissionKeys).stream()
+                .collect(Collectors.groupingBy(PlagiarismSubmissionEntity::getCheckId,
+                        Collectors.mapping(PlagiarismSubmissionEntity::getSubmissionKey, Collectors.toSet())))
+                .values().stream()
+                .max(Comparator.comparingInt(Set::size))
+                .orElse(Set.of());
+    }
+
+    /**
+     * @return the stored comparisons between the given submissions of the language
+     */
+    @Transactional(readOnly = true)
+    public List<PlagiarismComparison> findComparisons(final Collection<String> submissionKeys, final PlagiarismLanguage language) {
+        return findComparisonEntities(submissionKeys).stream()
+                .map(comparison -> new PlagiarismComparison(language, comparison.getFirstName(), comparison.getSecondName(),
+                        comparison.getSimilarity(), comparison.getMaximumSimilarity(), comparison.getMatchedTokens(), true))
+                .toList();
+    }
+
+    @Transactional
+    public void save(final Collection<PlagiarismSubmissionEntity> submissions,
+                     final Collection<PlagiarismComparisonEntity> comparisons) {
+        deleteOutdatedSubmissions(submissions);
+        plagiarismSubmissionRepository.saveAll(submissions);
+        plagiarismComparisonRepository.saveAll(comparisons);
+    }
+
+    /**
+     * Deletes the stored submissions with the same name and language as one of the given submissions but another key,
+     * together with their comparisons. They are never selected as unchanged again.
+     */
+    private void deleteOutdatedSubmissions(final Collection<PlagiarismSubmissionEntity> submissions) {
+        final Map<List<String>, String> latestSubmissionKeys = submissions.stream()
+                .collect(Collectors.toMap(submission -> List.of(submission.getName(), submission.getLanguage()),
+                        PlagiarismSubmissionEntity::getSubmissionKey, (first, second) -> second));
+        final Set<String> outdatedSubmissionKeys = plagiarismSubmissionRepository.findByNameIn(
+                        submissions.stream().map(PlagiarismSubmissionEntity::getName).collect(Collectors.toSet())).stream()
+                .filter(submission -> {
+                    final String latestSubmissionKey = latestSubmissionKeys.get(List.of(submission.getName(), submission.getLanguage()));
+                    return latestSubmissionKey != null && !latestSubmissionKey.equals(submission.getSubmissionKey());
+                })
+                .map(PlagiarismSubmissionEntity::getSubmissionKey)
+                .collect(Collectors.toSet());
+        if (outdatedSubmissionKeys.isEmpty()) {
+            return;
+        }
+
+        plagiarismComparisonRepository.deleteByIdFirstSubmissionKeyInOrIdSecondSubmissionKeyIn(outdatedSubmissionKeys, outdatedSubmissionKeys);
+        plagiarismSubmissionRepository.deleteAllById(outdatedSubmissionKeys);
+    }
+
+    private List<PlagiarismComparisonEntity> findComparisonEntities(final Collection<String> submissionKeys) {
+        if (submissionKeys.size() < 2) {
+            return new ArrayList<>();
+        }
+        final Set<String> keys = new HashSet<>(submissionKeys);
+        return plagiarismComparisonRepository.findByIdFirstSubmissionKeyInAndIdSecondSubmissionKeyIn(keys, keys);
+    }
+
+}
@@ -1,42 +1,85 @@
 package com.github.kudeplatform.evaluationengine.service;
 
+import com.github.kudeplatform.evaluationengine.domain.ClonedRepository;
+import com.github.kudeplatform.evaluationengine.domain.NotificationTopic;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismComparison;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismComparisonRun;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismPass;
 import com.github.kudeplatform.evaluationengine.domain.Repository;
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismComparisonEntity;
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismComparisonId;
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismSubmissionEntity;
 import com.github.kudeplatform.evaluationengine.util.TextUtil;
-import com.github.kudeplatform.evaluationengine.view.NotifiableComponent;
+import com.github.kudeplatform.evaluationengine.util.TopKHeap;
 import de.jplag.JPlag;
 import de.jplag.JPlagResult;
-import de.jplag.Language;
-import de.jplag.java.JavaLanguage;
+import de.jplag.exceptions.ExitException;
 import de.jplag.options.JPlagOptions;
 import de.jplag.reporting.reportobject.ReportObjectFactory;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_PLAGIARISM_RESULTS_PATH;
+import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_PLAGIARISM_PATH;
+import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_SUBMISSION_CHECKOUTS_PATH;
 
 @Slf4j
 @Service
 public class PlagiarismService implements ApplicationContextAware {
 
+    private static final String BASE_CODE_DIRECTORY = "base";
+
+    private static final String SUBMISSIONS_DIRECTORY = "submissions";
+
+    private static final String REPORT_DIRECTORY = "report";
+
+
     final EvaluationService evaluationService;
 
     final FileSystemService fileSystemService;
 
     final SettingsService settingsService;
 
-    final List<NotifiableComponent> activePlagiarismViewComponents;
+    final NotificationBus notificationBus;
+
+    final RepositoryCloneService repositoryCloneService;
+
+    final PlagiarismResultStore plagiarismResultStore;
+
+    final PlagiarismComparisonEngine plagiarismComparisonEngine;
+
+    /**
+     * The most similar pairs of every language, ranked separately so that the pairs of one language, e.g. build files
+     * created from the same template, cannot push all pairs of another language out of the report.
+     */
+    final Map<PlagiarismLanguage, TopKHeap<PlagiarismComparison>> topComparisons = new EnumMap<>(PlagiarismLanguage.class);
 
     final ReentrantLock lock = new ReentrantLock();
 
@@ -46,11 +89,19 @@ public class PlagiarismService implements ApplicationContextAware {
     private String currentStatus = "Idle";
 
     public PlagiarismService(final EvaluationService evaluationService, final FileSystemService fileSystemService, final SettingsService settingsService,
-                             @Qualifier(value = "activePlagiarismViewComponents") final List<NotifiableComponent> activePlagiarismViewComponents) {
+                             final NotificationBus notificationBus, final RepositoryCloneService repositoryCloneService,
+                             final PlagiarismResultStore plagiarismResultStore, final PlagiarismComparisonEngine plagiarismComparisonEngine,
+                             @Value("${PLAGIARISM_TOP_K:50}") final int topK) {
         this.evaluationService = evaluationService;
         this.fileSystemService = fileSystemService;
         this.settingsService = settingsService;
-        this.activePlagiarismViewComponents = activePlagiarismViewComponents;
+        this.notificationBus = notificationBus;
+        this.repositoryCloneService = repositoryCloneService;
+        this.plagiarismResultStore = plagiarismResultStore;
+        this.plagiarismComparisonEngine = plagiarismComparisonEngine;
+        for (final PlagiarismLanguage language : PlagiarismLanguage.values()) {
+            this.topComparisons.put(language, new TopKHeap<>(topK, Comparator.comparingDouble(PlagiarismComparison::similarity)));
+        }
     }
 
     @Override
@@ -58,7 +109,7 @@ public class PlagiarismService implements ApplicationContextAware {
         this.context = applicationContext;
     }
 
-    public void checkPlagiarism(final String baseCodeRepository, final String repositoriesToCheckAsCsv) {
+    public void checkPlagiarism(final String baseCodeRepository, final String repositoriesToCheckAsCsv, final boolean incremental) {
         if (!this.evaluationService.isNoJobRunning()) {
             log.error("Cannot check plagiarism while jobs are running");
             throw new IllegalStateException("Cannot check plagiarism while jobs are running");
@@ -83,34 +134,119 @@ public class PlagiarismService implements ApplicationContextAware {
 
         // the asynchronous call must happen through the context to enable the @Async annotation
         // using this.checkPlagiarismAsync(baseCode, repositoriesToCheck) would bypass the proxy and thus the @Async annotation
-        this.context.getBean(PlagiarismService.class).checkPlagiarismAsync(baseCode, repositoriesToCheck);
+        this.context.getBean(PlagiarismService.class).checkPlagiarismAsync(baseCode, repositoriesToCheck, incremental);
     }
 
+    /**
+     * Clones the repositories and compares them with the {@link PlagiarismComparisonEngine}, in a separate pass for
+     * every language detected in the submissions. In incremental mode, submissions that did not change since an
+     * earlier check are only compared with the changed ones, their comparisons with each other are taken from the
+     * {@link PlagiarismResultStore}. The comparisons of all languages are ranked together in the CSV file, the best ones
+     * of every language are kept in a top-k heap that is updated while the check is running and a JPlag report is
+     * created for their submissions.
+     */
     @Async
-    public void checkPlagiarismAsync(final Repository baseCodeRepository, final List<Repository> repositoriesToCheck) {
+    public void checkPlagiarismAsync(final Repository baseCodeRepository, final List<Repository> repositoriesToCheck,
+                                     final boolean incremental) {
         lock.lock();
         try {
             this.currentStatus = "Cloning repositories";
+            this.topComparisons.values().forEach(TopKHeap::clear);
 
             this.fileSystemService.deleteAllRepositories();
-            this.fileSystemService.deletePlagiarismResultIfExists();
 
-            this.fileSystemService.cloneRepositories(Stream.concat(Stream.of(baseCodeRepository), repositoriesToCheck.stream()).toList(), this::setCurrentStatus);
+            final ClonedRepository baseCode = this.repositoryCloneService.cloneRepositories(List.of(baseCodeRepository), BASE_CODE_DIRECTORY, this::setCurrentStatus)
+                    .stream().findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Could not clone the base code repository"));
+            final List<ClonedRepository> submissions = this.repositoryCloneService.cloneRepositories(repositoriesToCheck, SUBMISSIONS_DIRECTORY, this::setCurrentStatus);
+
+            this.setCurrentStatus("Detecting languages");
+            final Set<PlagiarismLanguage> baseCodeLanguages = detectLanguages(baseCode.directory());
+            final Map<String, Set<PlagiarismLanguage>> languagesByName = new HashMap<>();
+            for (final ClonedRepository submission : submissions) {
+                languagesByName.put(submission.name(), detectLanguages(submission.directory()));
+            }
+
+            final String checkId = UUID.randomUUID().toString();
+            final Map<PlagiarismLanguage, Map<String, PlagiarismSubmissionEntity>> submissionsByLanguage = new EnumMap<>(PlagiarismLanguage.class);
+            final List<PlagiarismPass> passes = new ArrayList<>();
+            final List<PlagiarismComparison> comparisons = new ArrayList<>();
+            for (final PlagiarismLanguage language : PlagiarismLanguage.values()) {
+                final List<ClonedRepository> languageSubmissions = submissions.stream()
+                        .filter(submission -> languagesByName.get(submission.name()).contains(language))
+                        .toList();
+                if (languageSubmissions.size() < 2) {
+                    continue;
+                }
+
+                final Map<String, PlagiarismSubmissionEntity> submissionsByName = new LinkedHashMap<>();
+                for (final ClonedRepository submission : languageSubmissions) {
+                    final String baseCodeCommitId = baseCodeLanguages.contains(language) ? baseCode.commitId() : "";
+                    submissionsByName.put(submission.name(), new PlagiarismSubmissionEntity(
+                            PlagiarismResultStore.getSubmissionKey(submission.name(), submission.commitId(), baseCodeCommitId, language.getIdentifier()),
+                            submission.name(), submission.commitId(), baseCodeCommitId, language.getIdentifier(), checkId, ZonedDateTime.now()));
+                }
+                submissionsByLanguage.put(language, submissionsByName);
+
+                final Set<String> unchangedSubmissionKeys = incremental
+                        ? this.plagiarismResultStore.selectUnchangedSubmissions(submissionsByName.values().stream().map(PlagiarismSubmissionEntity::getSubmissionKey).toList())
+                        : Set.of();
+                final Map<Boolean, List<ClonedRepository>> submissionsByChange = languageSubmissions.stream()
+                        .collect(Collectors.partitioningBy(submission -> !unchangedSubmissionKeys.contains(submissionsByName.get(submission.name()).getSubmissionKey())));
+
+                final List<PlagiarismComparison> reusedComparisons = this.plagiarismResultStore.findComparisons(unchangedSubmissionKeys, language);
+                comparisons.addAll(reusedComparisons);
+                this.topComparisons.get(language).offerAll(reusedComparisons);
+                if (!submissionsByChange.get(true).isEmpty()) {
+                    passes.add(new PlagiarismPass(language, baseCodeLanguages.contains(language), submissionsByChange.get(true),
+                            submissionsByChange.get(false), submissionsByName.entrySet().stream()
+                            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getSubmissionKey()))));
+                }
+            }
+            final Set<PlagiarismLanguage> checkedLanguages = submissionsByLanguage.keySet();
+
+            final int numberOfChangedSubmissions = (int) passes.stream()
+                    .flatMap(pass -> pass.changedSubmissions().stream().map(ClonedRepository::name))
+                    .distinct()
+                    .count();
+            String comparisonSummary = "";
+            if (!passes.isEmpty()) {
+                final PlagiarismComparisonRun run = this.plagiarismComparisonEngine.compare(baseCode, passes, this::setCurrentStatus,
+                        shardComparisons -> {
+                            shardComparisons.forEach(comparison -> this.topComparisons.get(comparison.language()).offer(comparison));
+                            this.notificationBus.publishAll(NotificationTopic.PLAGIARISM);
+                        });
+                comparisons.addAll(run.comparisons());
+                comparisonSummary = String.format(" in %d shards, %d comparisons were pruned, %d submissions could not be compared",
+                        run.numberOfShards(), run.numberOfPrunedComparisons(), run.failedSubmissionKeys().size());
 
-            this.currentStatus = "Checking for plagiarism";
-            final Language language = new JavaLanguage();
-            final Set<File> submissionDirectories = Set.of(new File(FileSystemService.KUDE_SUBMISSIONS_PATH));
-            final File baseCode = new File(FileSystemService.KUDE_SUBMISSIONS_PATH + File.separator + baseCodeRepository.name());
-            final JPlagOptions options = new JPlagOptions(language, submissionDirectories, Set.of())
-                    .withBaseCodeSubmissionDirectory(baseCode)
-                    .withMaximumNumberOfComparisons(-1)
-                    .withFileSuffixes(List.of(".java"));
+                // submissions of failed shards are left out of this check, so they are compared again in the next one
+                final List<PlagiarismSubmissionEntity> submissionEntities = passes.stream()
+                        .flatMap(pass -> submissionsByLanguage.get(pass.language()).values().stream())
+                        .filter(submission -> !run.failedSubmissionKeys().contains(submission.getSubmissionKey()))
+                        .toList();
+                final Collection<PlagiarismComparisonEntity> comparisonEntities = run.comparisons().stream()
+                        .filter(comparison -> submissionsByLanguage.get(comparison.language()).containsKey(comparison.firstSubmission())
+                                && submissionsByLanguage.get(comparison.language()).containsKey(comparison.secondSubmission()))
+                        .map(comparison -> toComparisonEntity(submissionsByLanguage.get(comparison.language()).get(comparison.firstSubmission()),
+                                submissionsByLanguage.get(comparison.language()).get(comparison.secondSubmission()), comparison))
+                        .collect(Collectors.toMap(PlagiarismComparisonEntity::getId, Function.identity(), (first, second) -> first))
+                        .values();
+                this.plagiarismResultStore.save(submissionEntities, comparisonEntities);
+            }
 
-            final JPlagResult result = JPlag.run(options);
-            final ReportObjectFactory reportObjectFactory = new ReportObjectFactory(new File(KUDE_PLAGIARISM_RESULTS_PATH));
-            reportObjectFactory.createAndSaveReport(result);
+            this.setCurrentStatus("Creating reports");
+            this.fileSystemService.deletePlagiarismResultsIfExist();
+            for (final PlagiarismLanguage language : checkedLanguages) {
+                createReport(language, baseCodeLanguages.contains(language), baseCode, submissions);
+            }
 
-            this.setCurrentStatus("Plagiarism check completed");
+            comparisons.sort(Comparator.comparingDouble(PlagiarismComparison::similarity).reversed());
+            this.fileSystemService.savePlagiarismComparisons(comparisons);
+
+            this.setCurrentStatus(String.format("Plagiarism check of %s completed, %d of %d submissions were compared again%s",
+                    checkedLanguages.stream().map(PlagiarismLanguage::getDisplayName).sorted().collect(Collectors.joining(", ")),
+                    numberOfChangedSubmissions, submissions.size(), comparisonSummary));
             this.fileSystemService.deleteAllRepositories();
         } catch (final Exception e) {
             log.error("An error occurred while checking for plagiarism", e);
@@ -120,9 +256,78 @@ public class PlagiarismService implements ApplicationContextAware {
         }
     }
 
+    /**
+     * @return the languages with at least one file below the directory
+     */
+    static Set<PlagiarismLanguage> detectLanguages(final Path directory) throws IOException {
+        final Set<PlagiarismLanguage> languages = EnumSet.noneOf(PlagiarismLanguage.class);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.filter(Files::isRegularFile).forEach(path -> {
+                for (final PlagiarismLanguage language : PlagiarismLanguage.values()) {
+                    if (language.matches(path.getFileName().toString())) {
+                        languages.add(language);
+                    }
+                }
+            });
+        }
+        return languages;
+    }
+
+    /**
+     * Runs JPlag once more for the submissions of the top comparisons of the language only, the report of all pairs
+     * would grow with their square.
+     */
+    private void createReport(final PlagiarismLanguage language, final boolean useBaseCode, final ClonedRepository baseCode,
+                              final List<ClonedRepository> submissions) throws ExitException, IOException {
+        final Set<String> reportedSubmissionNames = this.topComparisons.get(language).toSortedList().stream()
+                .flatMap(comparison -> Stream.of(comparison.firstSubmission(), comparison.secondSubmission()))
+                .collect(Collectors.toSet());
+        if (reportedSubmissionNames.size() < 2) {
+            return;
+        }
+
+        final File reportDirectory = new File(KUDE_SUBMISSION_CHECKOUTS_PATH + REPORT_DIRECTORY + File.separator + language.getIdentifier());
+        for (final ClonedRepository submission : submissions) {
+            if (reportedSubmissionNames.contains(submission.name())) {
+                this.fileSystemService.linkDirectory(submission.directory(), reportDirectory.toPath().resolve(submission.name()));
+            }
+        }
+
+        JPlagOptions options = new JPlagOptions(PlagiarismComparisonEngine.createLanguage(language), Set.of(reportDirectory), Set.of())
+                .withMaximumNumberOfComparisons(-1)
+                .withFileSuffixes(language.getFileSuffixes());
+        if (useBaseCode) {
+            options = options.withBaseCodeSubmissionDirectory(baseCode.directory().toFile());
+        }
+        final JPlagResult result = JPlag.run(options);
+        final ReportObjectFactory reportObjectFactory = new ReportObjectFactory(
+                new File(KUDE_PLAGIARISM_PATH + FileSystemService.getPlagiarismResultsFile(language)));
+        reportObjectFactory.createAndSaveReport(result);
+    }
+
+    private static PlagiarismComparisonEntity toComparisonEntity(final PlagiarismSubmissionEntity first,
+                                                                 final PlagiarismSubmissionEntity second,
+                                                                 final PlagiarismComparison comparison) {
+        final PlagiarismComparisonId id = PlagiarismComparisonId.of(first.getSubmissionKey(), second.getSubmissionKey());
+        final boolean inOrder = id.getFirstSubmissionKey().equals(first.getSubmissionKey());
+        return new PlagiarismComparisonEntity(id,
+                inOrder ? first.getName() : second.getName(),
+                inOrder ? second.getName() : first.getName(),
+                comparison.similarity(), comparison.maximumSimilarity(), comparison.matchedTokens());
+    }
+
+    /**
+     * @return the comparisons with the highest similarity of the current or last check per language, highest first
+     */
+    public List<PlagiarismComparison> getTopComparisons() {
+        return this.topComparisons.values().stream()
+                .flatMap(languageTopComparisons -> languageTopComparisons.toSortedList().stream())
+                .toList();
+    }
+
     public synchronized void setCurrentStatus(final String status) {
         this.currentStatus = status;
-        this.activePlagiarismViewComponents.forEach(NotifiableComponent::dataChanged);
+        this.notificationBus.publishAll(NotificationTopic.PLAGIARISM);
     }
 
 
@@ -0,0 +1,208 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.ClonedRepository;
+import com.github.kudeplatform.evaluationengine.domain.Repository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.InvalidRemoteException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.FS;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_SUBMISSION_CHECKOUTS_PATH;
+import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_SUBMISSION_MIRRORS_PATH;
+
+/**
+ * Fetches the repositories of a plagiarism check in parallel. Every remote is kept as a bare mirror that only contains
+ * the latest commit of the default branch, so a repeated check only fetches the commits pushed in the meantime. The
+ * files of that commit are then written to a plain directory per repository, without any git metadata.
+ *
+ * @author timo.buechert
+ */
+@Service
+@Slf4j
+public class RepositoryCloneService {
+
+    /**
+     * Ref of a mirror that points to the fetched commit of the default branch of the remote.
+     */
+    static final String MIRROR_REF = "refs/kude/head";
+
+    private final int parallelism;
+
+    private final Map<String, ReentrantLock> mirrorLocks = new ConcurrentHashMap<>();
+
+    public RepositoryCloneService(@Value("${PLAGIARISM_CLONE_PARALLELISM:8}") final int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Clones the repositories into the given directory below
+     * {@link FileSystemService#KUDE_SUBMISSION_CHECKOUTS_PATH}, one directory per repository name. Repositories with an
+     * invalid remote are skipped, any other failure aborts the remaining clones.
+     *
+     * @return the cloned repositories in the given order
+     */
+    public List<ClonedRepository> cloneRepositories(final List<Repository> repositories, final String targetDirectory,
+                                                    final Consumer<String> statusCallback) throws InterruptedException {
+        createFolder(KUDE_SUBMISSION_MIRRORS_PATH);
+        createFolder(KUDE_SUBMISSION_CHECKOUTS_PATH + targetDirectory);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, repositories.size())));
+        try {
+            final AtomicInteger finished = new AtomicInteger();
+            final List<Future<Optional<ClonedRepository>>> futures = new ArrayList<>();
+            for (final Repository repository : repositories) {
+                futures.add(executor.submit(() -> {
+                    final Optional<ClonedRepository> clonedRepository = cloneRepository(repository, targetDirectory);
+                    statusCallback.accept(String.format("%s %s (%d of %d repositories)",
+                            clonedRepository.isPresent() ? "Cloned" : "Skipped", repository.name(),
+                            finished.incrementAndGet(), repositories.size()));
+                    return clonedRepository;
+                }));
+            }
+
+            final List<ClonedRepository> clonedRepositories = new ArrayList<>();
+            for (final Future<Optional<ClonedRepository>> future : futures) {
+                try {
+                    future.get().ifPresent(clonedRepositories::add);
+                } catch (final ExecutionException e) {
+                    throw new RuntimeException("Could not clone repositories. The error was: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return clonedRepositories;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Optional<ClonedRepository> cloneRepository(final Repository repository, final String targetDirectory) throws GitAPIException, IOException {
+        final File mirror = new File(KUDE_SUBMISSION_MIRRORS_PATH + getMirrorName(repository.url()));
+        final File checkout = new File(KUDE_SUBMISSION_CHECKOUTS_PATH + targetDirectory + File.separator + repository.name());
+        final ReentrantLock mirrorLock = mirrorLocks.computeIfAbsent(mirror.getName(), name -> new ReentrantLock());
+        // the lock is held until the files are written, otherwise a concurrent fetch could prune the commit being read
+        mirrorLock.lock();
+        try {
+            final ObjectId commitId = updateMirror(mirror, repository);
+            writeFiles(mirror, commitId, checkout);
+            log.debug("Cloned repository {} at {} to {}", repository.url(), commitId.getName(), checkout);
+            return Optional.of(new ClonedRepository(repository.name(), commitId.getName(), checkout.toPath()));
+        } catch (final InvalidRemoteException e) {
+            log.error("Could not clone repository {}. The error was: {}", repository.url(), e.getMessage());
+            return Optional.empty();
+        } finally {
+            mirrorLock.unlock();
+        }
+    }
+
+    /**
+     * Fetches the latest commit of the default branch into the mirror, with a depth of one. The credentials are only
+     * used for the fetch and not stored in the mirror.
+     *
+     * @return the fetched commit
+     */
+    private ObjectId updateMirror(final File mirror, final Repository repository) throws GitAPIException, IOException {
+        if (mirror.exists() && !RepositoryCache.FileKey.isGitRepository(mirror, FS.DETECTED)) {
+            FileUtils.deleteDirectory(mirror);
+        }
+
+        try (Git git = mirror.exists() ? Git.open(mirror) : Git.init().setBare(true).setDirectory(mirror).call()) {
+            git.fetch()
+                    .setRemote(repository.getRepositoryUrlWithCredentials())
+                    .setRefSpecs(new RefSpec("+" + Constants.HEAD + ":" + MIRROR_REF))
+                    .setDepth(1)
+                    .call();
+
+            final ObjectId commitId = git.getRepository().resolve(MIRROR_REF);
+            if (commitId == null) {
+                throw new IOException("The repository " + repository.url() + " has no default branch");
+            }
+            return commitId;
+        }
+    }
+
+    /**
+     * Writes the regular files of the commit to the given directory, replacing its previous content.
+     */
+    private static void writeFiles(final File mirror, final ObjectId commitId, final File checkout) throws IOException {
+        FileUtils.deleteDirectory(checkout);
+        final Path root = checkout.toPath().toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        try (Git git = Git.open(mirror);
+             RevWalk revWalk = new RevWalk(git.getRepository());
+             TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+            treeWalk.addTree(revWalk.parseCommit(commitId).getTree());
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                final FileMode fileMode = treeWalk.getFileMode(0);
+                if (fileMode != FileMode.REGULAR_FILE && fileMode != FileMode.EXECUTABLE_FILE) {
+                    continue;
+                }
+
+                final Path target = root.resolve(treeWalk.getPathString()).normalize();
+                if (!target.startsWith(root)) {
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    git.getRepository().open(treeWalk.getObjectId(0)).copyTo(out);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a directory name that is unique per remote URL and still recognisable
+     */
+    static String getMirrorName(final String url) {
+        final String lastSegment = url.replaceAll("/+$", "").replaceAll("\\.git$", "");
+        final String readableName = lastSegment.substring(lastSegment.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._-]", "_");
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return readableName + "-" + HexFormat.of().formatHex(hash, 0, 8) + ".git";
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void createFolder(final String path) {
+        final File folder = new File(path);
+        if (!folder.exists() && !folder.mkdirs()) {
+            log.error("Failed to create folder {}.", path);
+            throw new RuntimeException("Failed to create folder " + path + ". Cannot continue.");
+        }
+    }
+
+}
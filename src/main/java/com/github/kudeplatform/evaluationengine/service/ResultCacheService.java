@@ -0,0 +1,202 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.EvaluationStatus;
+import com.github.kudeplatform.evaluationengine.domain.GitEvaluationTask;
+import com.github.kudeplatform.evaluationengine.domain.ResultCacheMetrics;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceRepository;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventRepository;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reuses the result of an earlier evaluation if a submission is evaluated again without any change. The cache key is
+ * computed from the commit the branch of the submission points to and everything else the result depends on: the
+ * dataset, the evaluation image, the resource settings, the expected solution and the start commands. Resolving the
+ * commit only needs a ls-remote, the repository is not cloned.
+ *
+ * @author timo.buechert
+ */
+@Service
+@Slf4j
+public class ResultCacheService {
+
+    private static final int LS_REMOTE_TIMEOUT_IN_SECONDS = 30;
+
+    private final EvaluationResultRepository evaluationResultRepository;
+
+    private final EvaluationEventRepository evaluationEventRepository;
+
+    private final EvaluationEventInstanceRepository evaluationEventInstanceRepository;
+
+    private final SettingsService settingsService;
+
+    private final FileSystemService fileSystemService;
+
+    private final boolean enabled;
+
+    private final AtomicLong lookups = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong bypassed = new AtomicLong();
+
+    private final AtomicLong failedLookups = new AtomicLong();
+
+    public ResultCacheService(final EvaluationResultRepository evaluationResultRepository,
+                              final EvaluationEventRepository evaluationEventRepository,
+                              final EvaluationEventInstanceRepository evaluationEventInstanceRepository,
+                              final SettingsService settingsService,
+                              final FileSystemService fileSystemService,
+                              @Value("${EVALUATION_RESULT_CACHE:true}") final boolean enabled) {
+        this.evaluationResultRepository = evaluationResultRepository;
+        this.evaluationEventRepository = evaluationEventRepository;
+        this.evaluationEventInstanceRepository = evaluationEventInstanceRepository;
+        this.settingsService = settingsService;
+        this.fileSystemService = fileSystemService;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the cache key of the task, or an empty optional if the commit of its branch could not be resolved
+     */
+    public Optional<String> computeCacheKey(final GitEvaluationTask task) {
+        lookups.incrementAndGet();
+        final Optional<String> commitId = resolveCommitId(task.repositoryUrl(), task.gitBranch());
+        if (commitId.isEmpty()) {
+            failedLookups.incrementAndGet();
+            return Optional.empty();
+        }
+
+        final List<String> keyParts = new ArrayList<>();
+        keyParts.add(commitId.get());
+        keyParts.add(task.datasetName());
+        keyParts.add(fileSystemService.getDatasetVersion(task.datasetName()).orElse(""));
+        keyParts.add(settingsService.getMode().name());
+        keyParts.add(settingsService.getEvaluationImageOrDefault());
+        keyParts.add(settingsService.getCpuRequest());
+        keyParts.add(settingsService.getCpuLimit());
+        keyParts.add(settingsService.getMemoryRequest());
+        keyParts.add(settingsService.getMemoryLimit());
+        keyParts.add(String.valueOf(settingsService.getMaxJobsPerNode()));
+        keyParts.add(String.valueOf(settingsService.getTimeoutInSeconds()));
+        keyParts.add(settingsService.getExpectedSolutionIndex().fingerprint());
+        keyParts.addAll(task.instanceStartCommands());
+        return Optional.of(hash(keyParts));
+    }
+
+    /**
+     * @return the latest successful evaluation with the given cache key other than the given task, or an empty
+     * optional if there is none or the task has to be run again anyway
+     */
+    public Optional<EvaluationResultEntity> findCachedResult(final String cacheKey, final String taskId,
+                                                             final boolean forceRerun) {
+        if (forceRerun) {
+            bypassed.incrementAndGet();
+            return Optional.empty();
+        }
+
+        final Optional<EvaluationResultEntity> cachedResult = evaluationResultRepository
+                .findFirstByResultCacheKeyAndStatusAndTaskIdNotOrderByEndTimestampDesc(cacheKey, EvaluationStatus.SUCCEEDED, taskId);
+        (cachedResult.isPresent() ? hits : misses).incrementAndGet();
+        return cachedResult;
+    }
+
+    /**
+     * Copies the outcome of the cached evaluation into the result entity of the task, together with its events and
+     * its log and result files. The logs are only marked as available if the log files of the cached evaluation still
+     * exist. Must be called in a transaction.
+     */
+    public void copyCachedResult(final EvaluationResultEntity cachedResult, final EvaluationResultEntity resultEntity)
+            throws IOException {
+        final String sourceTaskId = cachedResult.getTaskId();
+        final String targetTaskId = resultEntity.getTaskId();
+        fileSystemService.copyTmpFilesOfTask(sourceTaskId, targetTaskId);
+
+        resultEntity.setStartTimestamp(cachedResult.getStartTimestamp());
+        resultEntity.setEndTimestamp(cachedResult.getEndTimestamp());
+        resultEntity.setNetEvaluationDurationInSeconds(cachedResult.getNetEvaluationDurationInSeconds());
+        resultEntity.setLogsAvailable(cachedResult.isLogsAvailable() && fileSystemService.hasLogsOfTask(targetTaskId));
+        resultEntity.setResultsAvailable(cachedResult.isResultsAvailable());
+        resultEntity.setResultsCorrect(cachedResult.isResultsCorrect());
+        resultEntity.setResultProportion(cachedResult.getResultProportion());
+        resultEntity.setPodIndicesCompleted(new ArrayList<>(Optional.ofNullable(cachedResult.getPodIndicesCompleted()).orElse(List.of())));
+        resultEntity.setMessage(cachedResult.getMessage());
+        resultEntity.setCachedFromTaskId(Optional.ofNullable(cachedResult.getCachedFromTaskId()).orElse(sourceTaskId));
+        resultEntity.setStatus(EvaluationStatus.SUCCEEDED);
+        evaluationResultRepository.save(resultEntity);
+
+        evaluationEventRepository.saveAll(evaluationEventRepository.findByTaskId(sourceTaskId).stream()
+                .map(event -> new EvaluationEventEntity(null, event.getTimestamp(), targetTaskId, event.getIndex(),
+                        event.getStatus(), event.getMessage(), event.getType(), event.getLevel()))
+                .toList());
+        evaluationEventInstanceRepository.insertIfAbsent(evaluationEventInstanceRepository.findByIdTaskIdOrderByTimestampAsc(sourceTaskId).stream()
+                .map(instance -> new EvaluationEventInstanceEntity(targetTaskId, instance.getId().getType(),
+                        instance.getId().getPodIndex(), instance.getTimestamp()))
+                .toList());
+    }
+
+    public ResultCacheMetrics getMetrics() {
+        final long hitCount = hits.get();
+        final long missCount = misses.get();
+        final double hitRate = hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount);
+        return new ResultCacheMetrics(enabled, lookups.get(), hitCount, missCount, bypassed.get(), failedLookups.get(), hitRate);
+    }
+
+    private Optional<String> resolveCommitId(final String repositoryUrl, final String branch) {
+        try {
+            final Map<String, Ref> refs = Git.lsRemoteRepository()
+                    .setRemote(repositoryUrl)
+                    .setTimeout(LS_REMOTE_TIMEOUT_IN_SECONDS)
+                    .callAsMap();
+            final String refName = StringUtils.hasText(branch) ? Constants.R_HEADS + branch : Constants.HEAD;
+            return Optional.ofNullable(refs.get(refName))
+                    .map(ref -> ref.getObjectId() == null ? null : ref.getObjectId().getName());
+        } catch (final Exception e) {
+            log.warn("Could not resolve the commit of branch {}: {}", branch, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    static String hash(final List<String> keyParts) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (final String keyPart : keyParts) {
+                final byte[] bytes = Optional.ofNullable(keyPart).orElse("").getBytes(StandardCharsets.UTF_8);
+                // the length prefix keeps ("ab", "c") and ("a", "bc") apart
+                digest.update(String.valueOf(bytes.length).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ':');
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
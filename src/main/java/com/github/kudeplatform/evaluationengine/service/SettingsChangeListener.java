@@ -0,0 +1,14 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import java.util.Set;
+
+/**
+ * Listener that is notified by the {@link SettingsService} after settings have actually changed.
+ *
+ * @author timo.buechert
+ */
+public interface SettingsChangeListener {
+
+    void settingsChanged(Set<String> changedKeys);
+
+}
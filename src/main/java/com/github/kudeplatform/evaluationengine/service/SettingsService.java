@@ -1,5 +1,6 @@
 package com.github.kudeplatform.evaluationengine.service;
 
+import com.github.kudeplatform.evaluationengine.domain.ExpectedSolutionIndex;
 import com.github.kudeplatform.evaluationengine.domain.SupportedModes;
 import com.github.kudeplatform.evaluationengine.persistence.SettingsEntity;
 import com.github.kudeplatform.evaluationengine.persistence.SettingsRepository;
@@ -11,7 +12,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 /**
  * @author timo.buechert
@@ -25,34 +29,51 @@ public class SettingsService {
 
     public static final String DEFAULT_AKKA_EVALUATION_IMAGE = "registry.local/akka-tpch-jdk11:0.5.0";
 
-    private static final String KEY_MODE = "mode";
+    public static final String KEY_MODE = "mode";
 
-    private static final String KEY_TIMEOUT_IN_SECONDS = "timeoutInSeconds";
+    public static final String KEY_TIMEOUT_IN_SECONDS = "timeoutInSeconds";
 
-    private static final String KEY_REPLICATION_FACTOR = "replicationFactor";
+    public static final String KEY_REPLICATION_FACTOR = "replicationFactor";
 
-    private static final String KEY_MAX_JOBS_PER_NODE = "maxJobsPerNode";
+    public static final String KEY_MAX_JOBS_PER_NODE = "maxJobsPerNode";
 
-    private static final String KEY_GIT_USERNAME = "gitUsername";
+    public static final String KEY_GIT_USERNAME = "gitUsername";
 
-    private static final String KEY_GIT_TOKEN = "gitToken";
+    public static final String KEY_GIT_TOKEN = "gitToken";
 
-    private static final String KEY_EVALUATION_IMAGE = "evaluationImage";
+    public static final String KEY_EVALUATION_IMAGE = "evaluationImage";
 
-    private static final String KEY_CPU_REQUEST = "cpuRequest";
+    public static final String KEY_CPU_REQUEST = "cpuRequest";
 
-    private static final String KEY_CPU_LIMIT = "cpuLimit";
+    public static final String KEY_CPU_LIMIT = "cpuLimit";
 
-    private static final String KEY_MEMORY_REQUEST = "memoryRequest";
+    public static final String KEY_MEMORY_REQUEST = "memoryRequest";
 
-    private static final String KEY_MEMORY_LIMIT = "memoryLimit";
+    public static final String KEY_MEMORY_LIMIT = "memoryLimit";
 
-    private static final String KEY_EXAMPLE_SOLUTION = "exampleSolution";
+    public static final String KEY_EXAMPLE_SOLUTION = "exampleSolution";
 
     private final SettingsRepository settingsRepository;
 
     private final KubernetesService kubernetesService;
 
+    private final List<SettingsChangeListener> settingsChangeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Immutable snapshot of all settings, replaced as a whole on every change so that reads do not need a lock.
+     */
+    private volatile Map<String, String> settings = Map.of();
+
+    /**
+     * Compiled form of the expected solution, rebuilt whenever the expected solution is saved.
+     */
+    private volatile ExpectedSolutionIndex expectedSolutionIndex = ExpectedSolutionIndex.empty();
+
+    /**
+     * Serialises writers. Not a monitor, because the database write would pin the carrier of a virtual thread.
+     */
+    private final ReentrantLock settingsLock = new ReentrantLock();
+
     @Getter
     @Value("${PROMETHEUS_HOST:pi14.local:30103}")
     private String prometheusHost;
@@ -71,6 +92,11 @@ public class SettingsService {
 
     @PostConstruct
     public void init() {
+        this.settings = settingsRepository.findAll().stream()
+                .filter(settingsEntity -> settingsEntity.getSettingsValue() != null)
+                .collect(Collectors.toUnmodifiableMap(SettingsEntity::getSettingsKey, SettingsEntity::getSettingsValue,
+                        (first, second) -> second));
+        this.expectedSolutionIndex = ExpectedSolutionIndex.compile(getExpectedSolution());
         try {
             setReplicationFactor(String.valueOf(kubernetesService.getNumberOfNodes()));
             setExpectedSolution(createDefaultSampleSolution());
@@ -141,6 +167,10 @@ public class SettingsService {
         setSetting(KEY_EXAMPLE_SOLUTION, sampleSolution);
     }
 
+    public ExpectedSolutionIndex getExpectedSolutionIndex() {
+        return expectedSolutionIndex;
+    }
+
     public String getEvaluationImageOrDefault() {
         return getSetting(KEY_EVALUATION_IMAGE).orElse(getDefaultEvaluationImage(getMode().name()));
     }
@@ -186,17 +216,94 @@ public class SettingsService {
     }
 
     public Optional<String> getSetting(final String key) {
-        return Optional.ofNullable(settingsRepository.findBySettingsKey(key)).map(SettingsEntity::getSettingsValue);
+        return Optional.ofNullable(settings.get(key));
     }
 
     public void setSetting(final String key, final String value) {
-        SettingsEntity settingsEntity = settingsRepository.findBySettingsKey(key);
-        if (settingsEntity == null) {
-            settingsEntity = new SettingsEntity();
-            settingsEntity.setSettingsKey(key);
+        final Map<String, String> newSettings = new HashMap<>();
+        newSettings.put(key, value);
+        setSettings(newSettings);
+    }
+
+    /**
+     * Persists the given settings and swaps in a new snapshot. Listeners are notified once with all keys whose value
+     * actually changed. If a listener cannot apply the change, the previous values are persisted again, so that the
+     * database never holds settings the runtime did not apply.
+     *
+     * @throws RuntimeException the exception of the listener that could not apply the change
+     */
+    public void setSettings(final Map<String, String> newSettings) {
+        final Map<String, String> previousSettings = this.settings;
+        final Set<String> changedKeys = persistChangedSettings(newSettings);
+        if (changedKeys.isEmpty()) {
+            return;
+        }
+
+        for (final SettingsChangeListener settingsChangeListener : settingsChangeListeners) {
+            try {
+                settingsChangeListener.settingsChanged(changedKeys);
+            } catch (final RuntimeException e) {
+                log.error("Settings change listener failed for keys {}, restoring the previous values", changedKeys, e);
+                final Map<String, String> restoredSettings = new HashMap<>();
+                changedKeys.forEach(key -> restoredSettings.put(key, previousSettings.get(key)));
+                persistChangedSettings(restoredSettings);
+                throw e;
+            }
         }
-        settingsEntity.setSettingsValue(value);
-        settingsRepository.save(settingsEntity);
+    }
+
+    private Set<String> persistChangedSettings(final Map<String, String> newSettings) {
+        settingsLock.lock();
+        try {
+            return persistChangedSettingsLocked(newSettings);
+        } finally {
+            settingsLock.unlock();
+        }
+    }
+
+    private Set<String> persistChangedSettingsLocked(final Map<String, String> newSettings) {
+        final Map<String, String> currentSettings = this.settings;
+        final Set<String> changedKeys = newSettings.entrySet().stream()
+                .filter(entry -> !Objects.equals(currentSettings.get(entry.getKey()), entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+        if (changedKeys.isEmpty()) {
+            return changedKeys;
+        }
+
+        final Map<String, String> updatedSettings = new HashMap<>(currentSettings);
+        for (final String key : changedKeys) {
+            final String value = newSettings.get(key);
+            SettingsEntity settingsEntity = settingsRepository.findBySettingsKey(key);
+            if (settingsEntity == null) {
+                settingsEntity = new SettingsEntity();
+                settingsEntity.setSettingsKey(key);
+            }
+            settingsEntity.setSettingsValue(value);
+            settingsRepository.save(settingsEntity);
+
+            if (value == null) {
+                updatedSettings.remove(key);
+            } else {
+                updatedSettings.put(key, value);
+            }
+        }
+
+        this.settings = Collections.unmodifiableMap(updatedSettings);
+        if (changedKeys.contains(KEY_EXAMPLE_SOLUTION)) {
+            this.expectedSolutionIndex = ExpectedSolutionIndex.compile(getExpectedSolution());
+            log.info("Compiled expected solution with {} lines and fingerprint {}", expectedSolutionIndex.size(),
+                    expectedSolutionIndex.fingerprint());
+        }
+        return changedKeys;
+    }
+
+    public void addSettingsChangeListener(final SettingsChangeListener settingsChangeListener) {
+        this.settingsChangeListeners.add(settingsChangeListener);
+    }
+
+    public void removeSettingsChangeListener(final SettingsChangeListener settingsChangeListener) {
+        this.settingsChangeListeners.remove(settingsChangeListener);
     }
 
     public String getDefaultEvaluationImage(final String mode) {
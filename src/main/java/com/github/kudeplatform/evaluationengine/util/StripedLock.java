@@ -0,0 +1,66 @@
+package com.github.kudeplatform.evaluationengine.util;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of reentrant locks, keys are mapped to a stripe by their hash code. Operations on the same key are
+ * serialized while operations on keys of different stripes run in parallel.
+ *
+ * @author timo.buechert
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    public StripedLock(final int numberOfStripes) {
+        if (numberOfStripes <= 0) {
+            throw new IllegalArgumentException("Number of stripes must be positive");
+        }
+
+        this.stripes = new ReentrantLock[numberOfStripes];
+        for (int i = 0; i < numberOfStripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public int stripeIndex(final String key) {
+        return Math.floorMod(key.hashCode(), stripes.length);
+    }
+
+    public void runWithLock(final String key, final Runnable runnable) {
+        callWithLock(key, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public <T> T callWithLock(final String key, final Supplier<T> supplier) {
+        final ReentrantLock lock = stripes[stripeIndex(key)];
+        lock.lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the stripes of all given keys in ascending stripe order, so that concurrent callers with overlapping
+     * key sets cannot deadlock.
+     */
+    public <T> T callWithLocks(final Collection<String> keys, final Supplier<T> supplier) {
+        final TreeSet<Integer> stripeIndices = new TreeSet<>();
+        keys.forEach(key -> stripeIndices.add(stripeIndex(key)));
+
+        stripeIndices.forEach(stripeIndex -> stripes[stripeIndex].lock());
+        try {
+            return supplier.get();
+        } finally {
+            stripeIndices.descendingSet().forEach(stripeIndex -> stripes[stripeIndex].unlock());
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.github.kudeplatform.evaluationengine.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Thread-safe collection of the greatest elements offered so far. The smallest of the kept elements sits at the head
+ * of a min-heap, so offering an element costs O(log k) and the memory is bounded by k.
+ *
+ * @author timo.buechert
+ */
+public class TopKHeap<T> {
+
+    private final int capacity;
+
+    private final Comparator<? super T> comparator;
+
+    private final PriorityQueue<T> heap;
+
+    public TopKHeap(final int capacity, final Comparator<? super T> comparator) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+
+        this.capacity = capacity;
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(Math.max(1, capacity), comparator);
+    }
+
+    public synchronized void offer(final T element) {
+        if (heap.size() < capacity) {
+            heap.add(element);
+        } else if (capacity > 0 && comparator.compare(element, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+
+    public synchronized void offerAll(final Collection<? extends T> elements) {
+        elements.forEach(this::offer);
+    }
+
+    public synchronized void clear() {
+        heap.clear();
+    }
+
+    /**
+     * @return the kept elements, greatest first
+     */
+    public synchronized List<T> toSortedList() {
+        final List<T> elements = new ArrayList<>(heap);
+        elements.sort(comparator.reversed());
+        return elements;
+    }
+
+}
@@ -2,7 +2,9 @@ package com.github.kudeplatform.evaluationengine.view;
 
 import com.github.kudeplatform.evaluationengine.api.DataController;
 import com.github.kudeplatform.evaluationengine.domain.Dataset;
+import com.github.kudeplatform.evaluationengine.domain.NotificationTopic;
 import com.github.kudeplatform.evaluationengine.service.FileSystemService;
+import com.github.kudeplatform.evaluationengine.service.NotificationBus;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.button.Button;
@@ -18,9 +20,6 @@ import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.component.upload.receivers.MultiFileMemoryBuffer;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.router.Route;
-import org.springframework.beans.factory.annotation.Qualifier;
-
-import java.util.List;
 
 /**
  * @author timo.buechert
@@ -32,17 +31,17 @@ public class DatasetView extends VerticalLayout implements NotifiableComponent {
 
     private final DataController dataController;
 
-    final List<NotifiableComponent> activeDatasetViewComponents;
+    final NotificationBus notificationBus;
 
     private final Grid<Dataset> datasetGrid = new Grid<>();
 
     private final Span lastUpdatedSpan;
 
     public DatasetView(final FileSystemService fileSystemService, DataController dataController,
-                       @Qualifier(value = "activeDatasetViewComponents") final List<NotifiableComponent> activeDatasetViewComponents) {
+                       final NotificationBus notificationBus) {
         this.fileSystemService = fileSystemService;
         this.dataController = dataController;
-        this.activeDatasetViewComponents = activeDatasetViewComponents;
+        this.notificationBus = notificationBus;
         final H2 title = new H2("Datasets");
         this.add(title);
 
@@ -84,16 +83,12 @@ public class DatasetView extends VerticalLayout implements NotifiableComponent {
     protected void onAttach(AttachEvent attachEvent) {
         super.onAttach(attachEvent);
         this.update();
-        synchronized (this.activeDatasetViewComponents) {
-            this.activeDatasetViewComponents.add(this);
-        }
+        this.notificationBus.subscribe(NotificationTopic.DATASETS, this);
     }
 
     @Override
     protected void onDetach(DetachEvent detachEvent) {
-        synchronized (this.activeDatasetViewComponents) {
-            this.activeDatasetViewComponents.remove(this);
-        }
+        this.notificationBus.unsubscribe(NotificationTopic.DATASETS, this);
     }
 
     private Upload createUploadComponent() {
@@ -2,10 +2,12 @@ package com.github.kudeplatform.evaluationengine.view;
 
 import com.github.kudeplatform.evaluationengine.domain.Dataset;
 import com.github.kudeplatform.evaluationengine.domain.GitEvaluationTask;
+import com.github.kudeplatform.evaluationengine.domain.NotificationTopic;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultEntity;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultRepository;
 import com.github.kudeplatform.evaluationengine.service.EvaluationService;
 import com.github.kudeplatform.evaluationengine.service.FileSystemService;
+import com.github.kudeplatform.evaluationengine.service.NotificationBus;
 import com.github.kudeplatform.evaluationengine.service.SettingsService;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.DetachEvent;
@@ -13,6 +15,7 @@ import com.vaadin.flow.component.Key;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.checkbox.Checkbox;
 import com.vaadin.flow.component.dependency.JsModule;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.grid.Grid;
@@ -32,6 +35,9 @@ import com.vaadin.flow.component.select.Select;
 import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.binder.Binder;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.data.validator.RegexpValidator;
 import com.vaadin.flow.data.validator.StringLengthValidator;
@@ -39,15 +45,19 @@ import com.vaadin.flow.router.Route;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.util.StringUtils;
 
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.vaadin.flow.spring.data.VaadinSpringDataHelpers.toSpringDataSort;
 
 /**
  * @author timo.buechert
@@ -57,13 +67,15 @@ import java.util.UUID;
 @JsModule("./copytoclipboard.js")
 public class EvaluationView extends VerticalLayout implements NotifiableComponent {
 
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Order.desc("submittedTimestamp"), Sort.Order.asc("taskId"));
+
     private final EvaluationResultRepository evaluationResultRepository;
 
     private final EvaluationService evaluationService;
 
     private final SettingsService settingsService;
 
-    private final List<NotifiableComponent> activeEvaluationViewComponents;
+    private final NotificationBus notificationBus;
 
     private final TextField gitRepositoryUrl = new TextField("GIT Repository URL");
 
@@ -73,9 +85,20 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
 
     private final Select<String> datasetName = new Select<>();
 
+    private final Checkbox forceRerun = new Checkbox("Force rerun");
+
     private final Grid<EvaluationResultEntity> grid;
 
     private final List<String> javascriptTimeouts = new ArrayList<>();
+
+    private final TextField filter = new TextField();
+
+    private final CallbackDataProvider<EvaluationResultEntity, Void> dataProvider;
+
+    /**
+     * Number of evaluations at the last refresh, a different number means that rows were added or removed.
+     */
+    private volatile long numberOfEvaluations = -1;
     private final TextArea massUploadTextArea = new TextArea();
 
     private List<String> instanceStartCommands = new ArrayList<>();
@@ -85,11 +108,11 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
                           final EvaluationService evaluationService,
                           final FileSystemService fileSystemService,
                           final SettingsService settingsService,
-                          @Qualifier(value = "activeEvaluationViewComponents") final List<NotifiableComponent> activeEvaluationViewComponents) {
+                          final NotificationBus notificationBus) {
         this.evaluationResultRepository = evaluationResultRepository;
         this.evaluationService = evaluationService;
         this.settingsService = settingsService;
-        this.activeEvaluationViewComponents = activeEvaluationViewComponents;
+        this.notificationBus = notificationBus;
 
         this.datasetName.setLabel("Dataset");
         this.datasetName.setItems(fileSystemService.getAvailableDatasets().stream().map(Dataset::name).toList());
@@ -125,6 +148,9 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
         name.setErrorMessage("This field is required");
         name.setTooltipText("Your name or a descriptive name for the evaluation task");
 
+        horizontalLayout.add(forceRerun);
+        forceRerun.setTooltipText("Evaluate the submission even if an unchanged commit was already evaluated successfully");
+
         final Binder<GitEvaluationTask> gitBinder = new Binder<>(GitEvaluationTask.class);
         gitBinder.forField(gitRepositoryUrl)
                 .withValidator(new StringLengthValidator("GIT Repository URL must contain at least 1 character", 1, null))
@@ -186,7 +212,16 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
         Span uploadSuccessSpan = new Span();
         verticalLayout.add(uploadSuccessSpan);
 
+        filter.setPlaceholder("Filter by name or task ID");
+        filter.setClearButtonVisible(true);
+        filter.setValueChangeMode(ValueChangeMode.LAZY);
+        filter.addValueChangeListener(event -> this.dataProvider.refreshAll());
+        verticalLayout.add(filter);
+
+        this.dataProvider = new CallbackDataProvider<>(this::fetchEvaluationResults, this::countEvaluationResults,
+                EvaluationResultEntity::getTaskId);
         this.grid = this.createEvaluationTable();
+        this.grid.setItems(this.dataProvider);
         verticalLayout.add(this.grid);
     }
 
@@ -270,6 +305,7 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
             final String uuid = UUID.randomUUID().toString();
             final GitEvaluationTask gitEvaluationTask = new GitEvaluationTask(gitRepositoryUrl.getValue(), uuid,
                     instanceStartCommands, name.getValue(), gitBranch.getValue(), datasetName.getValue());
+            gitEvaluationTask.setForceRerun(forceRerun.getValue());
 
             if (instanceStartCommands.stream().allMatch(StringUtils::hasText)
                     && binders.stream().allMatch(Binder::isValid)) {
@@ -277,7 +313,8 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
 
                 if (isMassUpload) {
                     this.evaluationService.submitMassEvaluationTask(this.massUploadTextArea.getValue(),
-                            this.instanceStartCommands, this.gitBranch.getValue(), this.datasetName.getValue());
+                            this.instanceStartCommands, this.gitBranch.getValue(), this.datasetName.getValue(),
+                            this.forceRerun.getValue());
                 } else {
                     this.evaluationService.submitEvaluationTask(gitEvaluationTask, true);
                     final Notification notification = Notification.show("Submitted. The Evaluation request will be handled " +
@@ -310,17 +347,13 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
     @Override
     protected void onAttach(AttachEvent attachEvent) {
         super.onAttach(attachEvent);
-        this.updateAll();
-        synchronized (this.activeEvaluationViewComponents) {
-            this.activeEvaluationViewComponents.add(this);
-        }
+        this.dataProvider.refreshAll();
+        this.notificationBus.subscribe(NotificationTopic.EVALUATIONS, this);
     }
 
     @Override
     protected void onDetach(DetachEvent detachEvent) {
-        synchronized (this.activeEvaluationViewComponents) {
-            this.activeEvaluationViewComponents.remove(this);
-        }
+        this.notificationBus.unsubscribe(NotificationTopic.EVALUATIONS, this);
         this.javascriptTimeouts.forEach(s -> UI.getCurrent().getPage().executeJs("clearInterval(" + s + ");console.error('cleared " + s + "');"));
     }
 
@@ -363,7 +396,7 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
 
         grid.addColumn(EvaluationResultEntity::getName)
                 .setTooltipGenerator(EvaluationResultEntity::getGitUrl)
-                .setHeader("Name (Repository)").setSortable(true);
+                .setHeader("Name (Repository)").setSortProperty("name");
 
         grid.addColumn(evaluationResultEntity -> {
             final int positionInQueue = this.evaluationService.getPositionInQueue(evaluationResultEntity.getTaskId());
@@ -384,6 +417,7 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
             final Span status = new Span(item.getStatus().toString());
             switch (item.getStatus()) {
                 case PENDING:
+                case PREPARING:
                 case DEPLOYING:
                 case RUNNING:
                     status.getElement().getThemeList().add("badge");
@@ -399,10 +433,14 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
                     status.getElement().getThemeList().add("badge contrast");
                     break;
             }
+            if (item.getCachedFromTaskId() != null) {
+                status.setText(item.getStatus() + " (cached)");
+                status.getElement().setAttribute("title", "Result reused from evaluation " + item.getCachedFromTaskId());
+            }
             return status;
         })).setHeader("Status");
 
-        grid.addColumn(EvaluationResultEntity::getMessage).setHeader("Message");
+        grid.addColumn(this.evaluationService::getCurrentMessage).setHeader("Message");
 
         grid.addColumn(new ComponentRenderer<>(item -> {
             if (item.getStatus().isFinal() && item.getStartTimestamp() != null && item.getEndTimestamp() != null) {
@@ -429,7 +467,7 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
                 button.setDisableOnClick(true);
                 button.addClickListener(clickEvent -> {
                     this.evaluationService.deleteEvaluationTask(item.getTaskId());
-                    this.update(item.getTaskId());
+                    this.dataChanged(item.getTaskId());
                 });
                 return button;
             }
@@ -438,7 +476,7 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
             button.setDisableOnClick(true);
             button.addClickListener(clickEvent -> {
                 this.evaluationService.cancelEvaluationTaskAndNotifyView(item.getTaskId(), true);
-                this.update(item.getTaskId());
+                this.dataChanged(item.getTaskId());
             });
             return button;
         })).setHeader("Action");
@@ -517,31 +555,54 @@ public class EvaluationView extends VerticalLayout implements NotifiableComponen
     }
 
     @Override
-    public synchronized void dataChanged() {
-        this.updateAll();
+    public void dataChanged() {
+        this.refresh(true, Set.of());
     }
 
     @Override
-    public synchronized void dataChanged(final String taskId) {
-        this.update(taskId);
+    public void dataChanged(final String taskId) {
+        this.refresh(false, Set.of(taskId));
     }
 
-    private void update(final String taskId) {
-        final Optional<EvaluationResultEntity> evaluationResultEntity = evaluationResultRepository.findById(taskId);
-        if (evaluationResultEntity.isEmpty()) {
-            return;
-        }
-        getUI().ifPresent(ui -> ui.access(() -> {
-            if (this.grid.getListDataView().contains(evaluationResultEntity.get())) {
-                this.grid.getListDataView().refreshItem(evaluationResultEntity.get());
-            } else {
-                this.grid.setItems(evaluationResultRepository.findAll());
-            }
-        }));
+    @Override
+    public void dataChanged(final Set<String> taskIds) {
+        this.refresh(false, taskIds);
     }
 
-    private void updateAll() {
-        getUI().ifPresent(ui -> ui.access(() -> this.grid.setItems(evaluationResultRepository.findAll())));
+    private Stream<EvaluationResultEntity> fetchEvaluationResults(final Query<EvaluationResultEntity, Void> query) {
+        final PageRequest pageRequest = PageRequest.of(query.getPage(), query.getPageSize(),
+                toSpringDataSort(query).and(DEFAULT_SORT));
+        final String filterText = filter.getValue().trim();
+        return evaluationResultRepository.findByNameContainingIgnoreCaseOrTaskIdContaining(filterText, filterText, pageRequest)
+                .stream();
+    }
+
+    private int countEvaluationResults(final Query<EvaluationResultEntity, Void> query) {
+        final String filterText = filter.getValue().trim();
+        return Math.toIntExact(evaluationResultRepository.countByNameContainingIgnoreCaseOrTaskIdContaining(filterText, filterText));
+    }
+
+    /**
+     * Sends the rows of the changed evaluations. Only if evaluations were added or removed, the grid fetches the
+     * visible page again.
+     */
+    private void refresh(final boolean allChanged, final Set<String> taskIds) {
+        try {
+            final long currentNumberOfEvaluations = evaluationResultRepository.count();
+            final boolean refreshAll = allChanged || currentNumberOfEvaluations != numberOfEvaluations;
+            numberOfEvaluations = currentNumberOfEvaluations;
+            final List<EvaluationResultEntity> changedEntities = refreshAll ? List.of() : evaluationResultRepository.findAllById(taskIds);
+
+            getUI().ifPresent(ui -> ui.access(() -> {
+                if (refreshAll) {
+                    this.dataProvider.refreshAll();
+                } else {
+                    changedEntities.forEach(this.dataProvider::refreshItem);
+                }
+            }));
+        } catch (final Exception e) {
+            log.error("Failed to refresh the evaluation view", e);
+        }
     }
 
 }
@@ -1,12 +1,15 @@
 package com.github.kudeplatform.evaluationengine.view;
 
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceRepository;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventRepository;
 import com.github.kudeplatform.evaluationengine.service.HintsService;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.H2;
+import com.vaadin.flow.component.html.H3;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.router.BeforeEvent;
@@ -15,7 +18,11 @@ import com.vaadin.flow.router.Route;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @author timo.buechert
@@ -26,6 +33,9 @@ public class JobView extends VerticalLayout implements HasUrlParameter<String>,
     @Autowired
     private EvaluationEventRepository evaluationEventRepository;
 
+    @Autowired
+    private EvaluationEventInstanceRepository evaluationEventInstanceRepository;
+
     @Autowired
     private HintsService hintsService;
 
@@ -35,6 +45,10 @@ public class JobView extends VerticalLayout implements HasUrlParameter<String>,
 
     private Grid<EvaluationEventEntity> grid;
 
+    private Grid<EvaluationEventInstanceEntity> timelineGrid;
+
+    private Map<String, String> podIndicesByType = Map.of();
+
     private DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd.MM.uuuu HH:mm:ss", Locale.GERMAN);
 
     public JobView() {
@@ -59,7 +73,8 @@ public class JobView extends VerticalLayout implements HasUrlParameter<String>,
 
     private void addEvaluationTable() {
         this.grid = new Grid<>(EvaluationEventEntity.class, false);
-        grid.addColumn(EvaluationEventEntity::getIndex).setHeader("Instance Index");
+        grid.addColumn(evaluationEventEntity -> podIndicesByType.getOrDefault(evaluationEventEntity.getType(), evaluationEventEntity.getIndex()))
+                .setHeader("Instance Index");
         grid.addColumn(evaluationResultEntity -> dateTimeFormatter.format(evaluationResultEntity.getTimestamp())).setHeader("Timestamp");
         grid.addColumn(EvaluationEventEntity::getType).setHeader("Type");
         grid.addColumn(EvaluationEventEntity::getMessage).setHeader("Message");
@@ -67,10 +82,31 @@ public class JobView extends VerticalLayout implements HasUrlParameter<String>,
 
         grid.addThemeVariants(GridVariant.LUMO_WRAP_CELL_CONTENT);
         this.add(grid);
+
+        this.timelineGrid = new Grid<>(EvaluationEventInstanceEntity.class, false);
+        timelineGrid.addColumn(instance -> instance.getId().getPodIndex()).setHeader("Instance Index");
+        timelineGrid.addColumn(instance -> dateTimeFormatter.format(instance.getTimestamp())).setHeader("Timestamp");
+        timelineGrid.addColumn(instance -> instance.getId().getType()).setHeader("Type");
+        this.add(new H3("Instance Timeline"), timelineGrid);
     }
 
     public void update() {
-        getUI().ifPresent(ui -> ui.access(() -> this.grid.setItems(this.evaluationEventRepository.findByTaskId(this.jobName))));
+        getUI().ifPresent(ui -> ui.access(() -> {
+            final List<EvaluationEventInstanceEntity> instances = this.evaluationEventInstanceRepository.findByIdTaskIdOrderByTimestampAsc(this.jobName);
+            this.podIndicesByType = instances.stream()
+                    .collect(Collectors.groupingBy(instance -> instance.getId().getType(),
+                            Collectors.mapping(instance -> instance.getId().getPodIndex(), Collectors.toList())))
+                    .entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> joinPodIndices(entry.getValue())));
+            this.grid.setItems(this.evaluationEventRepository.findByTaskId(this.jobName));
+            this.timelineGrid.setItems(instances);
+        }));
+    }
+
+    private static String joinPodIndices(final List<String> podIndices) {
+        return podIndices.stream()
+                .sorted(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.joining(","));
     }
 
 
@@ -1,5 +1,7 @@
 package com.github.kudeplatform.evaluationengine.view;
 
+import java.util.Set;
+
 /**
  * @author timo.buechert
  */
@@ -8,5 +10,12 @@ public interface NotifiableComponent {
     void dataChanged();
 
     void dataChanged(String taskId);
+
+    /**
+     * Called with all keys that changed since the previous notification of the component.
+     */
+    default void dataChanged(final Set<String> taskIds) {
+        taskIds.forEach(this::dataChanged);
+    }
     
 }
@@ -1,26 +1,32 @@
 package com.github.kudeplatform.evaluationengine.view;
 
+import com.github.kudeplatform.evaluationengine.domain.NotificationTopic;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismComparison;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
+import com.github.kudeplatform.evaluationengine.service.NotificationBus;
 import com.github.kudeplatform.evaluationengine.service.PlagiarismService;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.Text;
 import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.checkbox.Checkbox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.H2;
+import com.vaadin.flow.component.html.H3;
 import com.vaadin.flow.component.html.Hr;
 import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.router.Route;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-
-import java.util.List;
 
+import static com.github.kudeplatform.evaluationengine.api.DownloadController.PLAGIARISM_COMPARISONS_DOWNLOAD_PATH_FULL;
 import static com.github.kudeplatform.evaluationengine.api.DownloadController.PLAGIARISM_RESULTS_DOWNLOAD_PATH_FULL;
 
-
 /**
  * @author timo.buechert
  */
@@ -31,31 +37,44 @@ public class PlagiarismView extends VerticalLayout implements NotifiableComponen
 
     private final TextArea massUploadTextArea = new TextArea();
 
+    private final Checkbox incrementalCheckbox = new Checkbox("Only compare changed submissions again", true);
+
     private final Button checkButton = new Button("Check");
 
     private final Anchor downloadAnchor = new Anchor();
 
     private final Text statusText = new Text("Status: Idle");
 
+    private final Grid<PlagiarismComparison> topComparisonsGrid = new Grid<>();
+
     private final PlagiarismService plagiarismService;
 
-    private final List<NotifiableComponent> activePlagiarismViewComponents;
+    private final NotificationBus notificationBus;
 
     @Autowired
     public PlagiarismView(final PlagiarismService plagiarismService,
-                          @Qualifier(value = "activePlagiarismViewComponents") final List<NotifiableComponent> activePlagiarismViewComponents) {
+                          final NotificationBus notificationBus) {
         final H2 title = new H2("Plagiarism");
-        final Anchor anchor = new Anchor();
-        anchor.setText("Results Download");
-        anchor.setHref(PLAGIARISM_RESULTS_DOWNLOAD_PATH_FULL);
-        anchor.getElement().setAttribute("download", true);
+        final HorizontalLayout resultAnchors = new HorizontalLayout();
+        for (final PlagiarismLanguage language : PlagiarismLanguage.values()) {
+            final Anchor anchor = new Anchor();
+            anchor.setText("Results Download (" + language.getDisplayName() + ")");
+            anchor.setHref(PLAGIARISM_RESULTS_DOWNLOAD_PATH_FULL + "/" + language.getIdentifier());
+            anchor.getElement().setAttribute("download", true);
+            resultAnchors.add(anchor);
+        }
+        final Anchor comparisonsAnchor = new Anchor();
+        comparisonsAnchor.setText("All Comparisons (CSV)");
+        comparisonsAnchor.setHref(PLAGIARISM_COMPARISONS_DOWNLOAD_PATH_FULL);
+        comparisonsAnchor.getElement().setAttribute("download", true);
 
-        final Text explanationText = new Text("To view the results of the plagiarism check, click the download link above and use the JPlag UI under the following link: ");
+        final Text explanationText = new Text("To view the results of the plagiarism check, click the download link of a language above and use the JPlag UI under the following link. " +
+                "Every language detected in the submissions is checked separately, its JPlag results only contain the submissions of the most similar pairs, the CSV file contains all comparisons: ");
         final Anchor jplagAnchor = new Anchor("https://jplag.github.io/JPlag/", "JPlag");
         jplagAnchor.setTarget("_blank");
 
         this.plagiarismService = plagiarismService;
-        this.activePlagiarismViewComponents = activePlagiarismViewComponents;
+        this.notificationBus = notificationBus;
 
         this.baseCodeTextField.setPlaceholder("Enter base code repository here");
         this.baseCodeTextField.setWidth("25%");
@@ -65,29 +84,39 @@ public class PlagiarismView extends VerticalLayout implements NotifiableComponen
         this.massUploadTextArea.setSizeFull();
         this.checkButton.addClickListener(event -> this.performCheck());
 
-        this.add(title, anchor, explanationText, jplagAnchor, new Hr(), this.statusText, this.checkButton, this.baseCodeTextField, this.massUploadTextArea);
+        this.topComparisonsGrid.addColumn(comparison -> comparison.language().getDisplayName()).setHeader("Language");
+        this.topComparisonsGrid.addColumn(PlagiarismComparison::firstSubmission).setHeader("First submission");
+        this.topComparisonsGrid.addColumn(PlagiarismComparison::secondSubmission).setHeader("Second submission");
+        this.topComparisonsGrid.addColumn(comparison -> formatPercent(comparison.similarity())).setHeader("Similarity");
+        this.topComparisonsGrid.addColumn(comparison -> formatPercent(comparison.maximumSimilarity())).setHeader("Maximum similarity");
+        this.topComparisonsGrid.addColumn(comparison -> comparison.reused() ? "Earlier check" : "This check").setHeader("Compared in");
+        this.topComparisonsGrid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES);
+        this.topComparisonsGrid.setAllRowsVisible(true);
+
+        this.add(title, resultAnchors, comparisonsAnchor, explanationText, jplagAnchor, new Hr(), this.statusText, this.checkButton,
+                this.incrementalCheckbox, this.baseCodeTextField, this.massUploadTextArea, new H3("Most similar submissions"),
+                this.topComparisonsGrid);
     }
 
     @Override
     protected void onAttach(AttachEvent attachEvent) {
         super.onAttach(attachEvent);
-        synchronized (this.activePlagiarismViewComponents) {
-            this.activePlagiarismViewComponents.add(this);
-        }
+        this.notificationBus.subscribe(NotificationTopic.PLAGIARISM, this);
 
         this.dataChanged();
     }
 
     @Override
     protected void onDetach(DetachEvent detachEvent) {
-        synchronized (this.activePlagiarismViewComponents) {
-            this.activePlagiarismViewComponents.remove(this);
-        }
+        this.notificationBus.unsubscribe(NotificationTopic.PLAGIARISM, this);
     }
 
     @Override
     public void dataChanged() {
-        getUI().ifPresent(ui -> ui.access(() -> this.statusText.setText(plagiarismService.getCurrentStatus())));
+        getUI().ifPresent(ui -> ui.access(() -> {
+            this.statusText.setText(plagiarismService.getCurrentStatus());
+            this.topComparisonsGrid.setItems(plagiarismService.getTopComparisons());
+        }));
     }
 
     @Override
@@ -95,9 +124,14 @@ public class PlagiarismView extends VerticalLayout implements NotifiableComponen
         this.dataChanged();
     }
 
+    private static String formatPercent(final double fraction) {
+        return String.format("%.1f %%", fraction * 100);
+    }
+
     private void performCheck() {
         try {
-            this.plagiarismService.checkPlagiarism(this.baseCodeTextField.getValue(), this.massUploadTextArea.getValue());
+            this.plagiarismService.checkPlagiarism(this.baseCodeTextField.getValue(), this.massUploadTextArea.getValue(),
+                    this.incrementalCheckbox.getValue());
         } catch (final Exception e) {
             Notification.show("An error occurred while checking for plagiarism: " + e.getMessage(), 5000, Notification.Position.MIDDLE);
         }
@@ -33,7 +33,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -393,25 +395,37 @@ public class SettingsView extends VerticalLayout {
                 memoryLimitBinder.writeBeanIfValid(memoryLimitValue);
                 modeBinder.writeBeanIfValid(mode.getValue());
 
-                settingsService.setTimeoutInSeconds(timeoutInSecondsValue);
-                try {
-                    evaluationService.updateNumberOfParallelJobs(Integer.parseInt(replicationFactorValue), Integer.parseInt(maxJobsPerNodeValue));
-                    settingsService.setReplicationFactor(replicationFactorValue);
-                    settingsService.setMaxJobsPerNode(maxJobsPerNodeValue);
-                } catch (IllegalStateException e) {
-                    Notification.show("Could not update replication factor because evaluations are currently active", 5000,
+                final Map<String, String> newSettings = new HashMap<>();
+                newSettings.put(SettingsService.KEY_TIMEOUT_IN_SECONDS, timeoutInSecondsValue);
+                final boolean parallelismChanged = !replicationFactorValue.equals(String.valueOf(settingsService.getReplicationFactor()))
+                        || !maxJobsPerNodeValue.equals(String.valueOf(settingsService.getMaxJobsPerNode()))
+                        || !cpuRequestValue.equals(settingsService.getCpuRequest())
+                        || !memoryRequestValue.equals(settingsService.getMemoryRequest());
+                if (parallelismChanged && !evaluationService.isNoJobRunning()) {
+                    Notification.show("Could not update replication factor, max jobs per node or resource requests because evaluations are currently active", 5000,
                             Notification.Position.MIDDLE);
-                    this.replicationFactor.setValue(String.valueOf(settingsService.getReplicationFactor()));
-                    this.maxJobsPerNode.setValue(String.valueOf(settingsService.getMaxJobsPerNode()));
+                    this.resetParallelismSettings();
+                } else {
+                    // the evaluation service resizes its evaluation threads when it is notified about the change
+                    newSettings.put(SettingsService.KEY_REPLICATION_FACTOR, replicationFactorValue);
+                    newSettings.put(SettingsService.KEY_MAX_JOBS_PER_NODE, maxJobsPerNodeValue);
+                    newSettings.put(SettingsService.KEY_CPU_REQUEST, cpuRequestValue);
+                    newSettings.put(SettingsService.KEY_MEMORY_REQUEST, memoryRequestValue);
+                }
+                newSettings.put(SettingsService.KEY_GIT_USERNAME, gitUsernameValue);
+                newSettings.put(SettingsService.KEY_GIT_TOKEN, gitTokenValue);
+                newSettings.put(SettingsService.KEY_EVALUATION_IMAGE, evaluationImageValue);
+                newSettings.put(SettingsService.KEY_CPU_LIMIT, cpuLimitValue);
+                newSettings.put(SettingsService.KEY_MEMORY_LIMIT, memoryLimitValue);
+                newSettings.put(SettingsService.KEY_MODE, mode.getValue());
+                try {
+                    settingsService.setSettings(newSettings);
+                } catch (final RuntimeException e) {
+                    // e.g. an evaluation was started in the meantime, the previous settings have been restored
+                    Notification.show("Could not save settings: " + e.getMessage(), 5000, Notification.Position.MIDDLE);
+                    this.resetParallelismSettings();
+                    return;
                 }
-                settingsService.setGitUsername(gitUsernameValue);
-                settingsService.setGitToken(gitTokenValue);
-                settingsService.setEvaluationImage(evaluationImageValue);
-                settingsService.setCpuRequest(cpuRequestValue);
-                settingsService.setCpuLimit(cpuLimitValue);
-                settingsService.setMemoryRequest(memoryRequestValue);
-                settingsService.setMemoryLimit(memoryLimitValue);
-                settingsService.setMode(mode.getValue());
 
                 Notification.show("Saved settings", 5000, Notification.Position.TOP_CENTER);
             }
@@ -423,6 +437,13 @@ public class SettingsView extends VerticalLayout {
         this.updateGrid();
     }
 
+    private void resetParallelismSettings() {
+        this.replicationFactor.setValue(String.valueOf(settingsService.getReplicationFactor()));
+        this.maxJobsPerNode.setValue(String.valueOf(settingsService.getMaxJobsPerNode()));
+        this.cpuRequest.setValue(settingsService.getCpuRequest());
+        this.memoryRequest.setValue(settingsService.getMemoryRequest());
+    }
+
     private void updateGrid() {
         grid.setItems(this.logEventDefinitionRepository.findAll());
     }
@@ -0,0 +1,76 @@
+package com.github.kudeplatform.evaluationengine.api;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author timo.buechert
+ */
+class IngestedEventBatchReaderTest {
+
+    private static final String NDJSON = """
+            {"evaluationId":"a","index":"0","events":[{"type":"BUILD_COMPLETED","level":"INFO","message":"ok"}]}
+            {"evaluationId":"b","index":"1","events":[{"type":"JOB_COMPLETED","level":"INFO","durationInSeconds":"12"}]}
+            """;
+
+    private final IngestedEventBatchReader ingestedEventBatchReader = new IngestedEventBatchReader(new ObjectMapper());
+
+    @Test
+    void read_ndjson() throws IOException {
+        // given
+        final List<IngestedEvent> ingestedEvents = new ArrayList<>();
+
+        // when
+        final int count = ingestedEventBatchReader.read(toStream(NDJSON.getBytes(StandardCharsets.UTF_8)), false, ingestedEvents::add);
+
+        // then
+        assertThat(count).isEqualTo(2);
+        assertThat(ingestedEvents).extracting(IngestedEvent::getEvaluationId).containsExactly("a", "b");
+        assertThat(ingestedEvents.get(1).getEvents().get(0).getDurationInSeconds()).isEqualTo("12");
+    }
+
+    @Test
+    void read_gzippedJsonArray() throws IOException {
+        // given
+        final String jsonArray = "[" + String.join(",", NDJSON.strip().split("\n")) + "]";
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(jsonArray.getBytes(StandardCharsets.UTF_8));
+        }
+        final List<IngestedEvent> ingestedEvents = new ArrayList<>();
+
+        // when
+        final int count = ingestedEventBatchReader.read(toStream(compressed.toByteArray()), true, ingestedEvents::add);
+
+        // then
+        assertThat(count).isEqualTo(2);
+        assertThat(ingestedEvents).extracting(IngestedEvent::getIndex).containsExactly("0", "1");
+    }
+
+    @Test
+    void read_malformed() {
+        // given
+        final String malformed = NDJSON + "42\n";
+
+        // when / then
+        assertThatThrownBy(() -> ingestedEventBatchReader.read(toStream(malformed.getBytes(StandardCharsets.UTF_8)), false, ingestedEvent -> {
+        })).isInstanceOf(JacksonException.class);
+    }
+
+    private static ByteArrayInputStream toStream(final byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+}
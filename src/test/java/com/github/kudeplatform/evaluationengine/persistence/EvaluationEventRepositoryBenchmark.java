@@ -0,0 +1,102 @@
+package com.github.kudeplatform.evaluationengine.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Measures the lookups of {@link EvaluationEventRepository} on H2 with and without the indexes declared on
+ * {@link EvaluationEventEntity}. The table and its indexes are created by Hibernate from the entity, the rows are
+ * inserted with a single statement. Excluded from the regular test run, execute with {@code ./gradlew benchmark}.
+ *
+ * @author timo.buechert
+ */
+@Tag("benchmark")
+@Slf4j
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EvaluationEventRepositoryBenchmark {
+
+    private static final int EVENTS_PER_TASK = 100;
+
+    private static final int EVENT_TYPES = 25;
+
+    private static final int INDEXED_LOOKUPS = 2_000;
+
+    private static final int SCAN_LOOKUPS = 20;
+
+    @Autowired
+    private EvaluationEventRepository evaluationEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(42);
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE evaluation_event_entity");
+        createIndexes();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {100_000, 1_000_000, 5_000_000})
+    void lookupLatency(final int rows) {
+        // given
+        final int tasks = rows / EVENTS_PER_TASK;
+        insertRows(rows);
+
+        // when
+        final double indexedByType = measure(INDEXED_LOOKUPS, taskId -> evaluationEventRepository.findByTaskIdAndType(taskId, "TYPE_" + random.nextInt(EVENT_TYPES)), tasks);
+        final double indexedLatestError = measure(INDEXED_LOOKUPS, taskId -> evaluationEventRepository.findLatestEventTypeByLevel(taskId, "FATAL"), tasks);
+        dropIndexes();
+        final double scanByType = measure(SCAN_LOOKUPS, taskId -> evaluationEventRepository.findByTaskIdAndType(taskId, "TYPE_" + random.nextInt(EVENT_TYPES)), tasks);
+        final double scanLatestError = measure(SCAN_LOOKUPS, taskId -> evaluationEventRepository.findLatestEventTypeByLevel(taskId, "FATAL"), tasks);
+
+        // then
+        log.info(String.format("%,10d rows | findByTaskIdAndType: %,12.1f us scan, %,8.1f us indexed | "
+                        + "findLatestEventTypeByLevel: %,12.1f us scan, %,8.1f us indexed",
+                rows, scanByType, indexedByType, scanLatestError, indexedLatestError));
+    }
+
+    private void insertRows(final int rows) {
+        jdbcTemplate.execute("INSERT INTO evaluation_event_entity (id, timestamp, task_id, index, status, message, type, level) "
+                + "SELECT x, DATEADD('SECOND', x, TIMESTAMP WITH TIME ZONE '2025-01-01 00:00:00+00'), "
+                + "'task-' || (x / " + EVENTS_PER_TASK + "), CAST(MOD(x, 8) AS VARCHAR), 2, 'message', "
+                + "'TYPE_' || MOD(x, " + EVENT_TYPES + "), "
+                + "CASE MOD(x, 10) WHEN 0 THEN 'FATAL' WHEN 1 THEN 'ERROR' ELSE 'INFO' END "
+                + "FROM SYSTEM_RANGE(0, " + (rows - 1) + ")");
+    }
+
+    private void createIndexes() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_event_task_type ON evaluation_event_entity (task_id, type)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_event_task_level_timestamp ON evaluation_event_entity (task_id, level, timestamp, type)");
+    }
+
+    private void dropIndexes() {
+        jdbcTemplate.execute("DROP INDEX idx_event_task_type");
+        jdbcTemplate.execute("DROP INDEX idx_event_task_level_timestamp");
+    }
+
+    /**
+     * @return the average latency of a lookup in microseconds
+     */
+    private double measure(final int lookups, final Consumer<String> lookup, final int tasks) {
+        final long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            lookup.accept("task-" + random.nextInt(tasks));
+        }
+        return (System.nanoTime() - start) / 1_000.0 / lookups;
+    }
+
+}
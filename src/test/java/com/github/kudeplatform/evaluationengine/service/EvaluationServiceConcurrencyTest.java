@@ -0,0 +1,290 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.api.Event;
+import com.github.kudeplatform.evaluationengine.api.IngestedEvent;
+import com.github.kudeplatform.evaluationengine.domain.EvaluationEvent;
+import com.github.kudeplatform.evaluationengine.domain.EvaluationStatus;
+import com.github.kudeplatform.evaluationengine.mapper.EvaluationEventMapperImpl;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceId;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceRepository;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventRepository;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultRepository;
+import com.github.kudeplatform.evaluationengine.util.StripedLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Stress tests for the per-task locking of {@link EvaluationService}. The repositories are backed by maps that hand
+ * out copies, so lost updates and duplicate inserts become visible just like with a real database.
+ *
+ * @author timo.buechert
+ */
+class EvaluationServiceConcurrencyTest {
+
+    private static final int NUMBER_OF_TASKS = 300;
+
+    private static final int NUMBER_OF_PODS = 8;
+
+    private static final List<String> EVENT_TYPES = List.of("BUILD_COMPLETED", "JOB_STARTED", "JOB_COMPLETED");
+
+    private final Map<String, EvaluationResultEntity> results = new ConcurrentHashMap<>();
+
+    private final Map<Long, EvaluationEventEntity> events = new ConcurrentHashMap<>();
+
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private final Map<EvaluationEventInstanceId, EvaluationEventInstanceEntity> eventInstances = new ConcurrentHashMap<>();
+
+    private final Map<String, CountDownLatch> blockedTaskIds = new ConcurrentHashMap<>();
+
+    private final CountDownLatch slowWriteStarted = new CountDownLatch(1);
+
+    EvaluationService evaluationService;
+
+    @BeforeEach
+    void setUp() {
+        final EvaluationResultRepository evaluationResultRepository = mock(EvaluationResultRepository.class);
+        final EvaluationEventRepository evaluationEventRepository = mock(EvaluationEventRepository.class);
+        stubResultRepository(evaluationResultRepository);
+        stubEventRepository(evaluationEventRepository);
+        final EvaluationEventInstanceRepository evaluationEventInstanceRepository = mock(EvaluationEventInstanceRepository.class);
+        stubEventInstanceRepository(evaluationEventInstanceRepository);
+
+        evaluationService = new EvaluationService(null, null, evaluationEventRepository,
+                evaluationEventInstanceRepository, evaluationResultRepository, null, new EvaluationEventMapperImpl(), null, null,
+                null, null, new FifoEvaluationTaskQueue(10), null, new NotificationBus(500, 1000),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new EvaluationStateStore(), null, null);
+
+        final ApplicationContext applicationContext = mock(ApplicationContext.class);
+        lenient().when(applicationContext.getBean(EvaluationService.class)).thenReturn(evaluationService);
+        evaluationService.setApplicationContext(applicationContext);
+    }
+
+    @Test
+    void saveIngestedEvents_interleavedEventsForManyTasks() throws Exception {
+        // given
+        final List<String> taskIds = IntStream.range(0, NUMBER_OF_TASKS).mapToObj(i -> "task-" + i).toList();
+        taskIds.forEach(this::createResult);
+
+        final List<IngestedEvent> ingestedEvents = new ArrayList<>();
+        for (final String taskId : taskIds) {
+            for (int pod = 0; pod < NUMBER_OF_PODS; pod++) {
+                for (final String type : EVENT_TYPES) {
+                    ingestedEvents.add(ingestedEvent(taskId, pod, type, EvaluationEvent.LEVEL_INFO));
+                }
+            }
+        }
+        taskIds.stream().filter(taskId -> taskId.hashCode() % 3 == 0)
+                .forEach(taskId -> ingestedEvents.add(ingestedEvent(taskId, 1, "OOM", EvaluationEvent.LEVEL_ERROR)));
+        Collections.shuffle(ingestedEvents, new Random(42));
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(32);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < ingestedEvents.size(); i += 10) {
+            final List<IngestedEvent> chunk = ingestedEvents.subList(i, Math.min(i + 10, ingestedEvents.size()));
+            if ((i / 10) % 2 == 0) {
+                futures.add(executorService.submit(() -> evaluationService.saveIngestedEventsAndNotifyView(chunk)));
+            } else {
+                chunk.forEach(ingestedEvent -> futures.add(executorService.submit(() -> evaluationService.saveIngestedEventAndNotifyView(ingestedEvent))));
+            }
+        }
+        for (final Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        // then
+        final Set<String> allPodIndices = IntStream.range(0, NUMBER_OF_PODS).mapToObj(String::valueOf).collect(Collectors.toSet());
+        for (final String taskId : taskIds) {
+            final Map<String, List<EvaluationEventEntity>> eventsByType = events.values().stream()
+                    .filter(event -> event.getTaskId().equals(taskId))
+                    .collect(Collectors.groupingBy(EvaluationEventEntity::getType));
+
+            for (final String type : EVENT_TYPES) {
+                assertThat(eventsByType.get(type)).as("events of type %s for %s", type, taskId).hasSize(1);
+                assertThat(eventInstances.keySet().stream()
+                        .filter(id -> id.getTaskId().equals(taskId) && id.getType().equals(type))
+                        .map(EvaluationEventInstanceId::getPodIndex)
+                        .collect(Collectors.toSet())).isEqualTo(allPodIndices);
+            }
+
+            final EvaluationResultEntity result = results.get(taskId);
+            assertThat(result.getPodIndicesCompleted()).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7);
+            assertThat(result.getNetEvaluationDurationInSeconds()).isEqualTo("42");
+            assertThat(result.getMessage()).isEqualTo(taskId.hashCode() % 3 == 0 ? "OOM" : "");
+        }
+    }
+
+    @Test
+    void updateTaskStatus_slowWriteDoesNotBlockOtherTask() throws Exception {
+        // given
+        final StripedLock stripedLock = new StripedLock(EvaluationService.TASK_LOCK_STRIPES);
+        final String slowTaskId = "task-slow";
+        final String fastTaskId = IntStream.range(0, 100).mapToObj(i -> "task-fast-" + i)
+                .filter(taskId -> stripedLock.stripeIndex(taskId) != stripedLock.stripeIndex(slowTaskId))
+                .findFirst().orElseThrow();
+        createResult(slowTaskId);
+        createResult(fastTaskId);
+
+        final CountDownLatch releaseSlowWrite = new CountDownLatch(1);
+        blockedTaskIds.put(slowTaskId, releaseSlowWrite);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(3);
+
+        // when
+        final Future<?> slowUpdate = executorService.submit(() -> evaluationService.updateTaskStatus(slowTaskId, EvaluationStatus.RUNNING));
+        assertThat(slowWriteStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        blockedTaskIds.remove(slowTaskId);
+
+        final Future<?> secondSlowUpdate = executorService.submit(() -> evaluationService.updateTaskStatus(slowTaskId, EvaluationStatus.FAILED));
+        final Future<?> fastUpdate = executorService.submit(() -> evaluationService.updateTaskStatus(fastTaskId, EvaluationStatus.RUNNING));
+
+        // then
+        fastUpdate.get(5, TimeUnit.SECONDS);
+        assertThat(results.get(fastTaskId).getStatus()).isEqualTo(EvaluationStatus.RUNNING);
+        Thread.sleep(200);
+        assertThat(secondSlowUpdate.isDone()).isFalse();
+
+        releaseSlowWrite.countDown();
+        slowUpdate.get(5, TimeUnit.SECONDS);
+        secondSlowUpdate.get(5, TimeUnit.SECONDS);
+        assertThat(results.get(slowTaskId).getStatus()).isEqualTo(EvaluationStatus.FAILED);
+        executorService.shutdown();
+    }
+
+    private void createResult(final String taskId) {
+        final EvaluationResultEntity result = new EvaluationResultEntity();
+        result.setTaskId(taskId);
+        result.setStatus(EvaluationStatus.PENDING);
+        result.setPodIndicesCompleted(new ArrayList<>());
+        results.put(taskId, result);
+    }
+
+    private static IngestedEvent ingestedEvent(final String taskId, final int pod, final String type, final String level) {
+        final Event event = new Event();
+        event.setType(type);
+        event.setLevel(level);
+        event.setMessage(type + " on pod " + pod);
+        event.setDurationInSeconds("42");
+
+        final IngestedEvent ingestedEvent = new IngestedEvent();
+        ingestedEvent.setEvaluationId(taskId);
+        ingestedEvent.setIndex(String.valueOf(pod));
+        ingestedEvent.setEvents(List.of(event));
+        return ingestedEvent;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubResultRepository(final EvaluationResultRepository evaluationResultRepository) {
+        lenient().when(evaluationResultRepository.findById(anyString())).thenAnswer(invocation -> {
+            final String taskId = invocation.getArgument(0);
+            final CountDownLatch latch = blockedTaskIds.get(taskId);
+            if (latch != null) {
+                slowWriteStarted.countDown();
+                latch.await();
+            }
+            return Optional.ofNullable(results.get(taskId)).map(EvaluationServiceConcurrencyTest::copy);
+        });
+        lenient().when(evaluationResultRepository.findAllById(any())).thenAnswer(invocation -> {
+            final List<EvaluationResultEntity> found = new ArrayList<>();
+            ((Iterable<String>) invocation.getArgument(0)).forEach(taskId ->
+                    Optional.ofNullable(results.get(taskId)).map(EvaluationServiceConcurrencyTest::copy).ifPresent(found::add));
+            return found;
+        });
+        lenient().when(evaluationResultRepository.save(any())).thenAnswer(invocation -> {
+            final EvaluationResultEntity result = invocation.getArgument(0);
+            results.put(result.getTaskId(), copy(result));
+            return result;
+        });
+        lenient().when(evaluationResultRepository.saveAll(any())).thenAnswer(invocation -> {
+            ((Iterable<EvaluationResultEntity>) invocation.getArgument(0)).forEach(result -> results.put(result.getTaskId(), copy(result)));
+            return List.of();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubEventRepository(final EvaluationEventRepository evaluationEventRepository) {
+        lenient().when(evaluationEventRepository.findByTaskId(anyString())).thenAnswer(invocation ->
+                findEvents(event -> event.getTaskId().equals(invocation.getArgument(0))));
+        lenient().when(evaluationEventRepository.findByTaskIdAndType(anyString(), anyString())).thenAnswer(invocation ->
+                findEvents(event -> event.getTaskId().equals(invocation.getArgument(0)) && event.getType().equals(invocation.getArgument(1))));
+        lenient().when(evaluationEventRepository.findLatestEventTypeByLevel(anyString(), anyString())).thenAnswer(invocation ->
+                findEvents(event -> event.getTaskId().equals(invocation.getArgument(0)) && event.getLevel().equals(invocation.getArgument(1)))
+                        .stream()
+                        .max(Comparator.comparing(EvaluationEventEntity::getTimestamp).thenComparing(EvaluationEventEntity::getId))
+                        .map(EvaluationEventEntity::getType));
+        lenient().when(evaluationEventRepository.save(any())).thenAnswer(invocation -> {
+            saveEvent(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        lenient().when(evaluationEventRepository.saveAll(any())).thenAnswer(invocation -> {
+            ((Iterable<EvaluationEventEntity>) invocation.getArgument(0)).forEach(this::saveEvent);
+            return List.of();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubEventInstanceRepository(final EvaluationEventInstanceRepository evaluationEventInstanceRepository) {
+        lenient().doAnswer(invocation -> {
+            ((Collection<EvaluationEventInstanceEntity>) invocation.getArgument(0))
+                    .forEach(instance -> eventInstances.putIfAbsent(instance.getId(), instance));
+            return null;
+        }).when(evaluationEventInstanceRepository).insertIfAbsent(any());
+    }
+
+    private List<EvaluationEventEntity> findEvents(final Predicate<EvaluationEventEntity> filter) {
+        return events.values().stream()
+                .filter(filter)
+                .sorted(Comparator.comparing(EvaluationEventEntity::getId))
+                .map(EvaluationServiceConcurrencyTest::copy)
+                .collect(Collectors.toList());
+    }
+
+    private void saveEvent(final EvaluationEventEntity event) {
+        if (event.getId() == null) {
+            event.setId(eventIds.incrementAndGet());
+        }
+        events.put(event.getId(), copy(event));
+    }
+
+    private static EvaluationEventEntity copy(final EvaluationEventEntity event) {
+        return new EvaluationEventEntity(event.getId(), event.getTimestamp(), event.getTaskId(), event.getIndex(),
+                event.getStatus(), event.getMessage(), event.getType(), event.getLevel());
+    }
+
+    private static EvaluationResultEntity copy(final EvaluationResultEntity result) {
+        final EvaluationResultEntity copy = new EvaluationResultEntity();
+        copy.setTaskId(result.getTaskId());
+        copy.setStatus(result.getStatus());
+        copy.setMessage(result.getMessage());
+        copy.setNetEvaluationDurationInSeconds(result.getNetEvaluationDurationInSeconds());
+        copy.setLogsAvailable(result.isLogsAvailable());
+        copy.setResultsAvailable(result.isResultsAvailable());
+        copy.setStartTimestamp(result.getStartTimestamp());
+        copy.setEndTimestamp(result.getEndTimestamp());
+        copy.setPodIndicesCompleted(new ArrayList<>(result.getPodIndicesCompleted()));
+        return copy;
+    }
+
+}
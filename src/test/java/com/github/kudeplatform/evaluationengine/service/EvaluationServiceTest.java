@@ -1,17 +1,38 @@
 package com.github.kudeplatform.evaluationengine.service;
 
+import com.github.kudeplatform.evaluationengine.domain.EvaluationEvent;
+import com.github.kudeplatform.evaluationengine.domain.EvaluationState;
+import com.github.kudeplatform.evaluationengine.domain.EvaluationStatus;
+import com.github.kudeplatform.evaluationengine.domain.ExpectedSolutionIndex;
+import com.github.kudeplatform.evaluationengine.domain.GitEvaluationTask;
+import com.github.kudeplatform.evaluationengine.domain.NodeResources;
 import com.github.kudeplatform.evaluationengine.domain.ResultsEvaluation;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceRepository;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventRepository;
 import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -20,16 +41,24 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class EvaluationServiceTest {
 
+    private static final long GIB = 1024L * 1024 * 1024;
+
     @Mock
     SettingsService settingsService;
 
+    @Mock
+    EvaluationEventRepository evaluationEventRepository;
+
+    @Mock
+    EvaluationEventInstanceRepository evaluationEventInstanceRepository;
+
     EvaluationService evaluationService;
 
     @BeforeEach
     void setUp() {
-        evaluationService = new EvaluationService(null, null, null,
+        evaluationService = new EvaluationService(null, null, evaluationEventRepository, evaluationEventInstanceRepository,
                 null, null, null, null, null,
-                settingsService, null, null, null, List.of());
+                settingsService, null, null, null, new NotificationBus(500, 1000), null, new EvaluationStateStore(), null, null);
     }
 
     @Test
@@ -55,7 +84,7 @@ class EvaluationServiceTest {
                 tpch_customer -> tpch_nation: [C_PHONE, C_PHONE] c [N_NATIONKEY, N_NAME]    
                                     
                 """;
-        when(settingsService.getExpectedSolution()).thenReturn(solution);
+        when(settingsService.getExpectedSolutionIndex()).thenReturn(ExpectedSolutionIndex.compile(solution));
 
 
         // when
@@ -91,7 +120,7 @@ class EvaluationServiceTest {
                 tpch_orders -> tpch_customer: [O_ORDER, O_CLERK] c [C_ADDRESS, C_PHONE]  
                                     
                 """;
-        when(settingsService.getExpectedSolution()).thenReturn(solution);
+        when(settingsService.getExpectedSolutionIndex()).thenReturn(ExpectedSolutionIndex.compile(solution));
 
 
         // when
@@ -105,6 +134,34 @@ class EvaluationServiceTest {
         assertThat(resultsEvaluation.resultProportion()).isEqualTo("6/6/7");
     }
 
+    @Test
+    void areResultsCorrect_duplicateAndUnexpectedLines() throws IOException {
+        // given
+        final String solution = """
+                tpch_customer -> tpch_orders: [C_COMMENT, C_COMMENT] c [O_TOTALPRICE, O_ORDERPRIORITY]
+                tpch_part -> tpch_lineitem: [P_COMMENT, P_TYPE] c [L_LINENUMBER, L_LINESTATUS]
+                """;
+
+        final String results = """
+                tpch_customer -> tpch_orders: [C_COMMENT, C_COMMENT] c [O_TOTALPRICE, O_ORDERPRIORITY]
+                  tpch_customer -> tpch_orders: [C_COMMENT, C_COMMENT] c [O_TOTALPRICE, O_ORDERPRIORITY]
+                tpch_part -> tpch_lineitem: [P_COMMENT, P_TYPE] c [L_LINENUMBER, L_LINESTATUS]
+                tpch_region -> tpch_nation: [R_REGIONKEY] c [N_REGIONKEY]
+                tpch_region -> tpch_nation: [R_REGIONKEY] c [N_REGIONKEY]
+                """;
+        when(settingsService.getExpectedSolutionIndex()).thenReturn(ExpectedSolutionIndex.compile(solution));
+
+        // when
+        final ResultsEvaluation resultsEvaluation = evaluationService.areResultsCorrect(new BufferedReader(new StringReader(results)));
+
+        // then
+        assertThat(resultsEvaluation.correct()).isFalse();
+        assertThat(resultsEvaluation.correctActual()).isEqualTo(2);
+        assertThat(resultsEvaluation.correctExpected()).isEqualTo(2);
+        assertThat(resultsEvaluation.totalActual()).isEqualTo(3);
+        assertThat(resultsEvaluation.resultProportion()).isEqualTo("2/3/2");
+    }
+
     @Test
     void getGrafanaLogsUrl() {
         // given
@@ -151,4 +208,62 @@ class EvaluationServiceTest {
         // then
         assertThat(grafanaUrl).isEqualTo("http://pi14.local:32300/d/ee9ya50i64u80c?orgId=1&from=1737228302161&to=1737228539922&tz=Europe%2FZurich&theme=light&var-jobName=ddm-akka-c0129853-2de1-46ce-a5e3-f50a7baf28a3.*");
     }
-}
\ No newline at end of file
+
+    @Test
+    void prepare_deploysTheNextTaskWhileAllRunSlotsAreBusy() {
+        // given
+        final OrchestrationService orchestrationService = mock(OrchestrationService.class);
+        final EvaluationResultRepository evaluationResultRepository = mock(EvaluationResultRepository.class);
+        final EvaluationService preparingEvaluationService = new EvaluationService(null, null, evaluationEventRepository,
+                evaluationEventInstanceRepository, evaluationResultRepository, null, null, null, null,
+                settingsService, null, null, null, new NotificationBus(500, 1000),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new EvaluationStateStore(), orchestrationService, null);
+        final ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean(EvaluationService.class)).thenReturn(preparingEvaluationService);
+        preparingEvaluationService.setApplicationContext(applicationContext);
+
+        final PlacementPlanner planner = new PlacementPlanner(List.of(new NodeResources("node-1", 4000, 8 * GIB)), 1);
+        planner.tryAcquire("running", 1, 1000, GIB).orElseThrow();
+        ReflectionTestUtils.setField(preparingEvaluationService, "placementPlanner", planner);
+
+        final GitEvaluationTask task = new GitEvaluationTask("https://example.invalid/team.git", "prepared",
+                List.of("start"), "team", "main", "dataset");
+        when(settingsService.getReplicationFactor()).thenReturn(1);
+        when(settingsService.getMaxJobsPerNode()).thenReturn(1);
+        when(evaluationResultRepository.findById("prepared")).thenReturn(Optional.of(new EvaluationResultEntity()));
+
+        // when
+        preparingEvaluationService.prepare(task);
+
+        // then
+        verify(orchestrationService).deployTask(task, settingsService, false);
+        assertThat(preparingEvaluationService.preparedTasks).containsExactly(task);
+        assertThat(preparingEvaluationService.tasksInPreparation).containsExactly("prepared");
+        assertThat(planner.getNumberOfAdmittedEvaluations()).isEqualTo(1);
+    }
+
+    @Test
+    void restoreEvaluationState_rebuildsPodsOfAllReplicasFromEventInstances() {
+        // given
+        final String taskId = "c0129853-2de1-46ce-a5e3-f50a7baf28a3";
+        final ZonedDateTime start = ZonedDateTime.parse("2025-01-18T19:25:02Z");
+        final EvaluationResultEntity evaluationResultEntity = new EvaluationResultEntity();
+        evaluationResultEntity.setTaskId(taskId);
+        when(evaluationEventRepository.findByTaskId(taskId)).thenReturn(List.of(
+                new EvaluationEventEntity(1L, start, taskId, "1", EvaluationStatus.RUNNING, "", EvaluationState.TYPE_BUILD_COMPLETED, EvaluationEvent.LEVEL_INFO),
+                new EvaluationEventEntity(2L, start.plusSeconds(60), taskId, "2", EvaluationStatus.RUNNING, "", EvaluationState.TYPE_JOB_COMPLETED, EvaluationEvent.LEVEL_INFO)));
+        when(evaluationEventInstanceRepository.findByIdTaskIdOrderByTimestampAsc(taskId)).thenReturn(List.of(
+                new EvaluationEventInstanceEntity(taskId, EvaluationState.TYPE_BUILD_COMPLETED, "1", start),
+                new EvaluationEventInstanceEntity(taskId, EvaluationState.TYPE_BUILD_COMPLETED, "0", start.plusSeconds(1)),
+                new EvaluationEventInstanceEntity(taskId, EvaluationState.TYPE_BUILD_COMPLETED, "2", start.plusSeconds(2)),
+                new EvaluationEventInstanceEntity(taskId, EvaluationState.TYPE_JOB_COMPLETED, "2", start.plusSeconds(60)),
+                new EvaluationEventInstanceEntity(taskId, EvaluationState.TYPE_JOB_COMPLETED, "0", start.plusSeconds(61))));
+
+        // when
+        final EvaluationState evaluationState = evaluationService.restoreEvaluationState(evaluationResultEntity, 3);
+
+        // then
+        assertThat(evaluationState.areAllPodsReadyToRun()).isTrue();
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.EvaluationPriority;
+import com.github.kudeplatform.evaluationengine.domain.EvaluationTask;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FairShareEvaluationTaskQueueTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+    private final FairShareEvaluationTaskQueue queue = new FairShareEvaluationTaskQueue(10, Duration.ofMinutes(30),
+            Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void take_prefersInteractiveOverMassSubmissions() throws InterruptedException {
+        // given
+        queue.add(task("mass-1", "team-a", EvaluationPriority.MASS, 0));
+        queue.add(task("mass-2", "team-b", EvaluationPriority.MASS, 0));
+        queue.add(task("interactive", "team-c", EvaluationPriority.INTERACTIVE, 0));
+
+        // when
+        final List<String> order = takeAll();
+
+        // then
+        assertThat(order).containsExactly("interactive", "mass-1", "mass-2");
+    }
+
+    @Test
+    void take_servesSubmittersRoundRobin() throws InterruptedException {
+        // given
+        queue.add(task("a-1", "team-a", EvaluationPriority.INTERACTIVE, 0));
+        queue.add(task("a-2", "team-a", EvaluationPriority.INTERACTIVE, 0));
+        queue.add(task("a-3", "team-a", EvaluationPriority.INTERACTIVE, 0));
+        queue.add(task("b-1", "team-b", EvaluationPriority.INTERACTIVE, 0));
+
+        // when
+        final List<String> order = takeAll();
+
+        // then
+        assertThat(order).containsExactly("a-1", "b-1", "a-2", "a-3");
+    }
+
+    @Test
+    void take_promotesAgedMassSubmissions() throws InterruptedException {
+        // given
+        queue.add(task("b-1", "team-b", EvaluationPriority.INTERACTIVE, 0));
+        queue.add(task("b-2", "team-b", EvaluationPriority.INTERACTIVE, 0));
+        queue.add(task("aged", "team-a", EvaluationPriority.MASS, 45));
+        queue.add(task("fresh", "team-c", EvaluationPriority.MASS, 5));
+
+        // when
+        final List<String> order = takeAll();
+
+        // then
+        assertThat(order).containsExactly("b-1", "aged", "b-2", "fresh");
+    }
+
+    @Test
+    void getPositionInQueue_matchesTakeOrder() throws InterruptedException {
+        // given
+        queue.add(task("mass", "team-a", EvaluationPriority.MASS, 0));
+        queue.add(task("a-1", "team-a", EvaluationPriority.INTERACTIVE, 0));
+        queue.add(task("a-2", "team-a", EvaluationPriority.INTERACTIVE, 0));
+        queue.add(task("b-1", "team-b", EvaluationPriority.INTERACTIVE, 0));
+
+        // when
+        final int positionOfMass = queue.getPositionInQueue("mass");
+        final int positionOfB = queue.getPositionInQueue("b-1");
+        queue.remove("a-1");
+        final int positionOfBAfterRemoval = queue.getPositionInQueue("b-1");
+
+        // then
+        assertThat(positionOfMass).isEqualTo(4);
+        assertThat(positionOfB).isEqualTo(2);
+        assertThat(positionOfBAfterRemoval).isEqualTo(2);
+        assertThat(queue.getPositionInQueue("unknown")).isEqualTo(-1);
+        assertThat(takeAll()).containsExactly("a-2", "b-1", "mass");
+    }
+
+    @Test
+    void getPositionInQueue_keepsPositionsOfAnAgedQueueUntilTheNextPromotion() {
+        // given
+        queue.add(task("b-1", "team-b", EvaluationPriority.INTERACTIVE, 0));
+        queue.add(task("aged", "team-a", EvaluationPriority.MASS, 45));
+        queue.add(task("fresh", "team-c", EvaluationPriority.MASS, 5));
+
+        // when
+        final int positionOfAged = queue.getPositionInQueue("aged");
+
+        // then
+        assertThat(positionOfAged).isEqualTo(2);
+        assertThat(queue.getPositionsValidUntil()).isEqualTo(NOW.plus(Duration.ofMinutes(25)));
+    }
+
+    @Test
+    void add_rejectsTasksWhenFull() {
+        // given
+        for (int i = 0; i < 10; i++) {
+            queue.add(task("task-" + i, "team-a", EvaluationPriority.MASS, 0));
+        }
+
+        // when / then
+        assertThatThrownBy(() -> queue.add(task("task-10", "team-a", EvaluationPriority.MASS, 0)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private List<String> takeAll() throws InterruptedException {
+        final List<String> order = new ArrayList<>();
+        while (queue.size() > 0) {
+            order.add(queue.take().taskId());
+        }
+        return order;
+    }
+
+    private static EvaluationTask task(final String taskId, final String name, final EvaluationPriority priority,
+                                       final int minutesAgo) {
+        final EvaluationTask task = new EvaluationTask(taskId, List.of("start"), name, "dataset");
+        task.setPriority(priority);
+        task.setSubmittedTimestamp(ZonedDateTime.ofInstant(NOW.minus(Duration.ofMinutes(minutesAgo)), ZoneOffset.UTC));
+        return task;
+    }
+
+}
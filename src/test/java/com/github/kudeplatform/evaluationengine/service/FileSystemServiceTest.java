@@ -4,9 +4,12 @@ import com.github.kudeplatform.evaluationengine.domain.EvaluationResultWithEvent
 import com.github.kudeplatform.evaluationengine.domain.EvaluationStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -87,4 +90,20 @@ class FileSystemServiceTest {
         
         Files.delete(resultFile.toPath());
     }
+
+    @Test
+    void saveMultipartUpload_storesFileWithoutLeavingTemporaryFiles() throws Exception {
+        // given
+        final MockMultipartFile file = new MockMultipartFile("file", "results.txt", "text/plain",
+                "result".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        final Path storedFile = fileSystemService.saveMultipartUpload(file, "results-multipart-test.txt");
+
+        // then
+        assertThat(storedFile).hasFileName("results-multipart-test.txt").hasContent("result");
+        assertThat(storedFile.getParent().toFile().list((dir, name) -> name.startsWith("upload-"))).isEmpty();
+
+        Files.delete(storedFile);
+    }
 }
\ No newline at end of file
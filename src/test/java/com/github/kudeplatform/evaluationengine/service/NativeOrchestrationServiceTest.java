@@ -0,0 +1,142 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.GitEvaluationTask;
+import io.kubernetes.client.openapi.models.V1Container;
+import io.kubernetes.client.openapi.models.V1EnvVar;
+import io.kubernetes.client.openapi.models.V1Job;
+import io.kubernetes.client.openapi.models.V1PodSpec;
+import io.kubernetes.client.openapi.models.V1Service;
+import io.kubernetes.client.openapi.models.V1VolumeMount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keeps the manifests of {@link NativeOrchestrationService} in sync with the helm chart they are built after.
+ *
+ * @author timo.buechert
+ */
+class NativeOrchestrationServiceTest {
+
+    private static final Path JOB_TEMPLATE = Path.of("helm", "ddm-akka", "templates", "job.yaml");
+
+    private static final String NAME = "ddm-akka-task";
+
+    private static final String DATASET = "TPCH";
+
+    private final GitEvaluationTask task = new GitEvaluationTask("https://example.invalid/team.git", "task",
+            List.of("master", "worker"), "team", "main", DATASET);
+
+    private SettingsService settingsService;
+
+    private NativeOrchestrationService nativeOrchestrationService;
+
+    private String template;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        final KubernetesService kubernetesService = mock(KubernetesService.class);
+        when(kubernetesService.getEvaluationEngineHost()).thenReturn("localhost");
+        when(kubernetesService.getEvaluationEnginePort()).thenReturn("8080");
+
+        settingsService = mock(SettingsService.class);
+        when(settingsService.getReplicationFactor()).thenReturn(2);
+        when(settingsService.getEvaluationImageOrDefault()).thenReturn("image");
+        when(settingsService.getCpuRequest()).thenReturn("500m");
+        when(settingsService.getCpuLimit()).thenReturn("1");
+        when(settingsService.getMemoryRequest()).thenReturn("1Gi");
+        when(settingsService.getMemoryLimit()).thenReturn("2Gi");
+
+        nativeOrchestrationService = new NativeOrchestrationService(null, null, kubernetesService, false, 120);
+        // commented out entries of the chart are not rendered
+        template = Files.readAllLines(JOB_TEMPLATE).stream()
+                .filter(line -> !line.trim().startsWith("#"))
+                .map(line -> line.replace("{{ .Values.datasetName }}", DATASET).replace("{{ .Values.name }}", NAME))
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Test
+    void createJob_setsTheEnvironmentOfTheChart() {
+        // given
+        final List<String> chartEnvironment = findAll("- name: \"(\\w+)\"");
+        chartEnvironment.addAll(List.of("START_COMMAND_0", "START_COMMAND_1"));
+
+        // when
+        final V1Job job = nativeOrchestrationService.createJob(NAME, task, settingsService, false);
+
+        // then
+        assertThat(getContainer(job).getEnv()).extracting(V1EnvVar::getName).containsExactlyInAnyOrderElementsOf(chartEnvironment);
+    }
+
+    @Test
+    void createJob_usesThePortsVolumesAndSettingsOfTheChart() {
+        // when
+        final V1Job job = nativeOrchestrationService.createJob(NAME, task, settingsService, false);
+
+        // then
+        final V1PodSpec podSpec = job.getSpec().getTemplate().getSpec();
+        assertThat(getContainer(job).getPorts()).extracting(port -> port.getContainerPort() + " " + port.getName())
+                .containsExactlyElementsOf(findAll("containerPort: (\\d+)\\s+name: ([\\w-]+)"));
+        assertThat(getContainer(job).getVolumeMounts()).extracting(V1VolumeMount::getMountPath)
+                .containsExactlyElementsOf(findAll("mountPath: (\\S+)"));
+        assertThat(podSpec.getVolumes()).extracting(volume -> volume.getHostPath().getPath())
+                .containsExactlyElementsOf(findAll("(?m)^\\s+path: (\\S+)$"));
+        assertThat(podSpec.getNodeSelector()).isEqualTo(Map.of("role", "worker"));
+        assertThat(podSpec.getRestartPolicy()).isEqualTo(findValue("restartPolicy"));
+        assertThat(podSpec.getDnsPolicy()).isEqualTo(findValue("dnsPolicy"));
+        assertThat(job.getSpec().getCompletionMode()).isEqualTo(findValue("completionMode"));
+        assertThat(job.getSpec().getBackoffLimit()).hasToString(findValue("backoffLimit"));
+        assertThat(job.getSpec().getTtlSecondsAfterFinished()).hasToString(findValue("ttlSecondsAfterFinished"));
+        assertThat(job.getMetadata().getLabels()).containsKeys("app", "evaluation-id");
+    }
+
+    @Test
+    void createService_matchesTheHeadlessServiceOfTheChart() {
+        // when
+        final V1Service service = nativeOrchestrationService.createService(NAME, task.taskId());
+
+        // then
+        assertThat(service.getMetadata().getName()).isEqualTo(NAME + "-headless-svc");
+        assertThat(service.getSpec().getClusterIP()).isEqualTo(findValue("clusterIP"));
+        assertThat(service.getSpec().getSelector()).isEqualTo(Map.of("job-name", NAME));
+        assertThat(service.getMetadata().getLabels()).containsKeys("app", "evaluation-id");
+    }
+
+    private static V1Container getContainer(final V1Job job) {
+        return job.getSpec().getTemplate().getSpec().getContainers().get(0);
+    }
+
+    /**
+     * @return the groups of every match joined by a space
+     */
+    private List<String> findAll(final String regex) {
+        final List<String> matches = new ArrayList<>();
+        final Matcher matcher = Pattern.compile(regex).matcher(template);
+        while (matcher.find()) {
+            final List<String> groups = new ArrayList<>();
+            for (int i = 1; i <= matcher.groupCount(); i++) {
+                groups.add(matcher.group(i));
+            }
+            matches.add(String.join(" ", groups));
+        }
+        return matches;
+    }
+
+    private String findValue(final String key) {
+        return findAll("(?m)^\\s+" + key + ": (\\S+)$").get(0);
+    }
+
+}
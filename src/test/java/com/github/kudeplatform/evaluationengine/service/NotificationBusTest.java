@@ -0,0 +1,106 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.NotificationTopic;
+import com.github.kudeplatform.evaluationengine.view.NotifiableComponent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationBusTest {
+
+    private final ExecutorService deliveryExecutor = Executors.newSingleThreadExecutor();
+
+    private final NotificationBus notificationBus = new NotificationBus(500, 3, deliveryExecutor);
+
+    @Test
+    void dispatch_coalescesChangesPerSubscriber() throws InterruptedException {
+        // given
+        final RecordingComponent component = new RecordingComponent();
+        notificationBus.subscribe(NotificationTopic.EVALUATIONS, component);
+        notificationBus.publish(NotificationTopic.EVALUATIONS, "task-1");
+        notificationBus.publish(NotificationTopic.EVALUATIONS, "task-2");
+        notificationBus.publish(NotificationTopic.EVALUATIONS, "task-1");
+        notificationBus.publish(NotificationTopic.DATASETS, "dataset");
+
+        // when
+        notificationBus.dispatch();
+        awaitDeliveries();
+
+        // then
+        assertThat(component.notifications).containsExactly(Set.of("task-1", "task-2"));
+        assertThat(component.fullRefreshes).isZero();
+    }
+
+    @Test
+    void dispatch_fallsBackToFullRefreshWhenTooManyKeysArePending() throws InterruptedException {
+        // given
+        final RecordingComponent component = new RecordingComponent();
+        notificationBus.subscribe(NotificationTopic.EVALUATIONS, component);
+        for (int i = 0; i < 4; i++) {
+            notificationBus.publish(NotificationTopic.EVALUATIONS, "task-" + i);
+        }
+
+        // when
+        notificationBus.dispatch();
+        awaitDeliveries();
+
+        // then
+        assertThat(component.notifications).isEmpty();
+        assertThat(component.fullRefreshes).isEqualTo(1);
+    }
+
+    @Test
+    void dispatch_skipsUnsubscribedComponents() throws InterruptedException {
+        // given
+        final RecordingComponent component = new RecordingComponent();
+        notificationBus.subscribe(NotificationTopic.EVALUATIONS, component);
+        notificationBus.unsubscribe(NotificationTopic.EVALUATIONS, component);
+        notificationBus.publishAll(NotificationTopic.EVALUATIONS);
+
+        // when
+        notificationBus.dispatch();
+        awaitDeliveries();
+
+        // then
+        assertThat(component.fullRefreshes).isZero();
+        assertThat(notificationBus.getNumberOfSubscribers(NotificationTopic.EVALUATIONS)).isZero();
+    }
+
+    private void awaitDeliveries() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        deliveryExecutor.execute(latch::countDown);
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static class RecordingComponent implements NotifiableComponent {
+
+        private final List<Set<String>> notifications = new ArrayList<>();
+
+        private int fullRefreshes;
+
+        @Override
+        public void dataChanged() {
+            fullRefreshes++;
+        }
+
+        @Override
+        public void dataChanged(final String taskId) {
+            notifications.add(Set.of(taskId));
+        }
+
+        @Override
+        public void dataChanged(final Set<String> taskIds) {
+            notifications.add(taskIds);
+        }
+
+    }
+
+}
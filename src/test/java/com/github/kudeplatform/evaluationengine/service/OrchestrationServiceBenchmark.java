@@ -0,0 +1,133 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.GitEvaluationTask;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.apis.BatchV1Api;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.util.Config;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the deploy-to-running latency of {@link HelmOrchestrationService} and {@link NativeOrchestrationService}
+ * against the cluster of the current kubeconfig. Excluded from the regular test run, execute with
+ * {@code BENCHMARK_KUBERNETES=true ./gradlew benchmark}.
+ *
+ * @author timo.buechert
+ */
+@Tag("benchmark")
+@Slf4j
+class OrchestrationServiceBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static final int REPLICAS = 1;
+
+    private KubernetesInformerCache kubernetesInformerCache;
+
+    private KubernetesService kubernetesService;
+
+    private BatchV1Api batchV1Api;
+
+    private CoreV1Api coreV1Api;
+
+    private SettingsService settingsService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        assumeTrue(Boolean.parseBoolean(System.getenv("BENCHMARK_KUBERNETES")), "requires a cluster");
+
+        final ApiClient apiClient = Config.defaultClient();
+        batchV1Api = new BatchV1Api(apiClient);
+        coreV1Api = new CoreV1Api(apiClient);
+        kubernetesInformerCache = new KubernetesInformerCache(apiClient, batchV1Api, coreV1Api, 0);
+        kubernetesInformerCache.start();
+
+        kubernetesService = new KubernetesService();
+        ReflectionTestUtils.setField(kubernetesService, "coreV1Api", coreV1Api);
+        ReflectionTestUtils.setField(kubernetesService, "kubernetesInformerCache", kubernetesInformerCache);
+        ReflectionTestUtils.setField(kubernetesService, "evaluationEngineHost", "localhost");
+        ReflectionTestUtils.setField(kubernetesService, "evaluationEnginePort", "8080");
+
+        settingsService = mock(SettingsService.class);
+        when(settingsService.getReplicationFactor()).thenReturn(REPLICAS);
+        when(settingsService.getTimeoutInSeconds()).thenReturn(60);
+        when(settingsService.getEvaluationImageOrDefault()).thenReturn(System.getenv().getOrDefault("BENCHMARK_IMAGE", SettingsService.DEFAULT_AKKA_EVALUATION_IMAGE));
+        when(settingsService.getCpuRequest()).thenReturn("100m");
+        when(settingsService.getCpuLimit()).thenReturn("500m");
+        when(settingsService.getMemoryRequest()).thenReturn("64Mi");
+        when(settingsService.getMemoryLimit()).thenReturn("256Mi");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (kubernetesInformerCache != null) {
+            kubernetesInformerCache.stop();
+        }
+    }
+
+    @Test
+    void deployToRunningLatency() throws InterruptedException {
+        // given
+        final OrchestrationService helm = new HelmOrchestrationService(kubernetesService, false);
+        final OrchestrationService nativeOrchestration = new NativeOrchestrationService(batchV1Api, coreV1Api, kubernetesService, false, 120);
+
+        // when
+        final List<Long> helmLatencies = measure(helm);
+        final List<Long> nativeLatencies = measure(nativeOrchestration);
+
+        // then
+        log.info("helm:   median deploy-to-running {} ms, median teardown {} ms", median(helmLatencies, 0), median(helmLatencies, 1));
+        log.info("native: median deploy-to-running {} ms, median teardown {} ms", median(nativeLatencies, 0), median(nativeLatencies, 1));
+        assertThat(helmLatencies).hasSize(2 * ROUNDS);
+        assertThat(nativeLatencies).hasSize(2 * ROUNDS);
+    }
+
+    /**
+     * @return alternating deploy-to-running and teardown latencies in milliseconds
+     */
+    private List<Long> measure(final OrchestrationService orchestrationService) throws InterruptedException {
+        final List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            final String taskId = UUID.randomUUID().toString();
+            final GitEvaluationTask task = new GitEvaluationTask("https://example.invalid/benchmark.git", taskId,
+                    List.of("sleep 3600"), "benchmark", null, "benchmark");
+
+            final long deployStart = System.nanoTime();
+            orchestrationService.deployTask(task, settingsService, true);
+            // a job that already finished has been running as well, the image may not honour the start command
+            kubernetesService.waitForJobStatus(taskId, REPLICAS, status -> status.isRunning() || status.isFinal());
+            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deployStart));
+
+            final long teardownStart = System.nanoTime();
+            orchestrationService.deleteTask(taskId);
+            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - teardownStart));
+        }
+        return latencies;
+    }
+
+    private static long median(final List<Long> latencies, final int offset) {
+        final List<Long> values = new ArrayList<>();
+        for (int i = offset; i < latencies.size(); i += 2) {
+            values.add(latencies.get(i));
+        }
+        values.sort(Long::compareTo);
+        return values.get(values.size() / 2);
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.NodeResources;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PlacementPlannerTest {
+
+    private static final long GIB = 1024L * 1024 * 1024;
+
+    private static final List<NodeResources> NODES = List.of(
+            new NodeResources("node-1", 4000, 8 * GIB),
+            new NodeResources("node-2", 4000, 8 * GIB),
+            new NodeResources("node-3", 4000, 8 * GIB));
+
+    @Test
+    void tryAcquire_fillsNodesBeforeUsingTheNextOne() {
+        // given
+        final PlacementPlanner planner = new PlacementPlanner(NODES, 4);
+
+        // when
+        final List<String> first = planner.tryAcquire("task-1", 2, 1000, 2 * GIB).orElseThrow();
+        final List<String> second = planner.tryAcquire("task-2", 2, 1000, 2 * GIB).orElseThrow();
+
+        // then
+        assertThat(first).containsExactly("node-1", "node-1");
+        assertThat(second).containsExactly("node-1", "node-1");
+    }
+
+    @Test
+    void getCapacity_countsEvaluationsThatFitOnTheEmptyNodes() {
+        // given
+        final PlacementPlanner planner = new PlacementPlanner(NODES, 4);
+
+        // when
+        final int smallCapacity = planner.getCapacity(2, 1000, 2 * GIB);
+        final int cpuBoundCapacity = planner.getCapacity(3, 1500, 2 * GIB);
+        final int tooLargeCapacity = planner.getCapacity(1, 5000, 2 * GIB);
+
+        // then
+        assertThat(smallCapacity).isEqualTo(6);
+        assertThat(cpuBoundCapacity).isEqualTo(2);
+        assertThat(tooLargeCapacity).isZero();
+        assertThat(planner.isIdle()).isTrue();
+    }
+
+    @Test
+    void tryAcquire_usesFragmentsLeftByLargerEvaluations() {
+        // given
+        final PlacementPlanner planner = new PlacementPlanner(NODES, 2);
+        planner.tryAcquire("large", 3, 3000, 6 * GIB).orElseThrow();
+
+        // when
+        final var small = planner.tryAcquire("small", 3, 1000, 2 * GIB);
+        final var tooLarge = planner.tryAcquire("too-large", 1, 2000, 2 * GIB);
+
+        // then
+        assertThat(small).contains(List.of("node-1", "node-2", "node-3"));
+        assertThat(tooLarge).isEmpty();
+    }
+
+    @Test
+    void tryAcquire_respectsMaxPodsPerNode() {
+        // given
+        final PlacementPlanner planner = new PlacementPlanner(NODES, 1);
+        planner.tryAcquire("task-1", 2, 100, GIB).orElseThrow();
+
+        // when
+        final var second = planner.tryAcquire("task-2", 2, 100, GIB);
+
+        // then
+        assertThat(second).isEmpty();
+        assertThat(planner.getNumberOfAdmittedEvaluations()).isEqualTo(1);
+    }
+
+    @Test
+    void acquire_blocksUntilResourcesAreReleased() throws Exception {
+        // given
+        final PlacementPlanner planner = new PlacementPlanner(NODES, 1);
+        planner.tryAcquire("task-1", 3, 4000, 8 * GIB).orElseThrow();
+
+        // when
+        final CompletableFuture<List<String>> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return planner.acquire("task-2", 1, 1000, GIB);
+            } catch (final InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        final boolean admittedBeforeRelease = waiting.isDone();
+        planner.release("task-1");
+
+        // then
+        assertThat(admittedBeforeRelease).isFalse();
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).containsExactly("node-1");
+        assertThat(planner.isIdle()).isFalse();
+        planner.release("task-2");
+        assertThat(planner.isIdle()).isTrue();
+    }
+
+    @Test
+    void acquire_rejectsEvaluationsThatNeverFit() {
+        // given
+        final PlacementPlanner planner = new PlacementPlanner(NODES, 1);
+
+        // when / then
+        assertThatThrownBy(() -> planner.acquire("task-1", 4, 1000, GIB))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.ClonedRepository;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismPass;
+import de.jplag.java.JavaLanguage;
+import de.jplag.scala.ScalaLanguage;
+import de.jplag.text.NaturalLanguage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author timo.buechert
+ */
+class PlagiarismComparisonEngineTest {
+
+    @Test
+    void createLanguage_returnsANewJPlagLanguagePerCall() {
+        // when / then
+        assertThat(PlagiarismComparisonEngine.createLanguage(PlagiarismLanguage.JAVA)).isInstanceOf(JavaLanguage.class);
+        assertThat(PlagiarismComparisonEngine.createLanguage(PlagiarismLanguage.SCALA)).isInstanceOf(ScalaLanguage.class);
+        assertThat(PlagiarismComparisonEngine.createLanguage(PlagiarismLanguage.BUILD_FILES)).isInstanceOf(NaturalLanguage.class);
+        assertThat(PlagiarismComparisonEngine.createLanguage(PlagiarismLanguage.JAVA))
+                .isNotSameAs(PlagiarismComparisonEngine.createLanguage(PlagiarismLanguage.JAVA));
+    }
+
+    @Test
+    void getComponents_groupsSubmissionsConnectedByCandidatePairs() {
+        // given
+        final Set<List<Integer>> candidatePairs = Set.of(List.of(0, 1), List.of(1, 2), List.of(4, 5), List.of(6, 4));
+
+        // when
+        final List<List<Integer>> components = PlagiarismComparisonEngine.getComponents(8, candidatePairs);
+
+        // then
+        assertThat(components).containsExactlyInAnyOrder(List.of(0, 1, 2), List.of(4, 5, 6));
+    }
+
+    @Test
+    void planShards_comparesEveryCandidatePairExactlyOnce() {
+        // given
+        final List<ClonedRepository> changed = submissions("changed", 17);
+        final List<ClonedRepository> unchanged = submissions("unchanged", 5);
+        final PlagiarismPass pass = new PlagiarismPass(PlagiarismLanguage.JAVA, false, changed, unchanged, Map.of());
+        final Random random = new Random(42);
+        final Set<Set<String>> candidatePairs = new HashSet<>();
+        final Map<ClonedRepository, Set<ClonedRepository>> candidates = new HashMap<>();
+        for (int i = 0; i < changed.size(); i++) {
+            for (int j = i + 1; j < changed.size() + unchanged.size(); j++) {
+                final ClonedRepository other = j < changed.size() ? changed.get(j) : unchanged.get(j - changed.size());
+                if (random.nextInt(4) == 0) {
+                    addCandidatePair(candidates, changed.get(i), other);
+                    candidatePairs.add(Set.of(changed.get(i).name(), other.name()));
+                }
+            }
+        }
+
+        // when
+        final List<PlagiarismComparisonEngine.Shard> shards = PlagiarismComparisonEngine.planShards(pass, changed, candidates, 30);
+
+        // then
+        final Map<Set<String>, Integer> comparedPairs = new HashMap<>();
+        for (final PlagiarismComparisonEngine.Shard shard : shards) {
+            final List<Set<String>> pairsOfShard = getComparedPairs(shard);
+            assertThat(shard.numberOfComparisons()).isEqualTo(pairsOfShard.size());
+            assertThat(shard.numberOfComparisons() <= 30 || shard.newSubmissions().size() == 1).isTrue();
+            pairsOfShard.forEach(pair -> comparedPairs.merge(pair, 1, Integer::sum));
+        }
+        assertThat(shards).hasSizeGreaterThan(1);
+        assertThat(comparedPairs.keySet()).containsAll(candidatePairs);
+        assertThat(comparedPairs.values()).containsOnly(1);
+        assertThat(comparedPairs.keySet()).noneMatch(pair -> pair.stream().allMatch(name -> name.startsWith("unchanged")));
+        assertThat(comparedPairs).hasSizeLessThan(17 * 16 / 2 + 17 * 5);
+    }
+
+    @Test
+    void planShards_passesOnlyTheCandidateNeighboursAsOldSubmissions() {
+        // given
+        final List<ClonedRepository> changed = submissions("changed", 3);
+        final List<ClonedRepository> unchanged = submissions("unchanged", 3);
+        final PlagiarismPass pass = new PlagiarismPass(PlagiarismLanguage.JAVA, false, changed, unchanged, Map.of());
+        final Map<ClonedRepository, Set<ClonedRepository>> candidates = new HashMap<>();
+        addCandidatePair(candidates, changed.get(0), changed.get(1));
+        addCandidatePair(candidates, changed.get(1), unchanged.get(0));
+        addCandidatePair(candidates, changed.get(2), unchanged.get(2));
+
+        // when
+        final List<PlagiarismComparisonEngine.Shard> shards = PlagiarismComparisonEngine.planShards(pass, changed, candidates, 2);
+
+        // then
+        assertThat(shards).extracting(PlagiarismComparisonEngine.Shard::newSubmissions)
+                .containsExactly(List.of(changed.get(0)), List.of(changed.get(1)), List.of(changed.get(2)));
+        assertThat(shards).extracting(PlagiarismComparisonEngine.Shard::oldSubmissions)
+                .containsExactly(List.of(changed.get(1)), List.of(unchanged.get(0)), List.of(unchanged.get(2)));
+        assertThat(shards).extracting(PlagiarismComparisonEngine.Shard::numberOfComparisons).containsExactly(1L, 1L, 1L);
+    }
+
+    @Test
+    void planShards_keepsASingleSubmissionThatExceedsTheLimitInItsOwnShard() {
+        // given
+        final List<ClonedRepository> changed = submissions("changed", 3);
+        final List<ClonedRepository> unchanged = submissions("unchanged", 10);
+        final PlagiarismPass pass = new PlagiarismPass(PlagiarismLanguage.JAVA, false, changed, unchanged, Map.of());
+        final Map<ClonedRepository, Set<ClonedRepository>> candidates = new HashMap<>();
+        for (int i = 0; i < changed.size(); i++) {
+            for (int j = i + 1; j < changed.size(); j++) {
+                addCandidatePair(candidates, changed.get(i), changed.get(j));
+            }
+            for (final ClonedRepository unchangedSubmission : unchanged) {
+                addCandidatePair(candidates, changed.get(i), unchangedSubmission);
+            }
+        }
+
+        // when
+        final List<PlagiarismComparisonEngine.Shard> shards = PlagiarismComparisonEngine.planShards(pass, changed, candidates, 5);
+
+        // then
+        assertThat(shards).extracting(shard -> shard.newSubmissions().size()).containsExactly(1, 1, 1);
+        assertThat(shards).extracting(PlagiarismComparisonEngine.Shard::numberOfComparisons).containsExactly(12L, 11L, 10L);
+    }
+
+    /**
+     * JPlag compares the new submissions with each other and with the old submissions, but not the old ones with each
+     * other.
+     */
+    private static List<Set<String>> getComparedPairs(final PlagiarismComparisonEngine.Shard shard) {
+        final List<Set<String>> pairs = new ArrayList<>();
+        final List<ClonedRepository> newSubmissions = shard.newSubmissions();
+        for (int i = 0; i < newSubmissions.size(); i++) {
+            for (int j = i + 1; j < newSubmissions.size(); j++) {
+                pairs.add(Set.of(newSubmissions.get(i).name(), newSubmissions.get(j).name()));
+            }
+            for (final ClonedRepository oldSubmission : shard.oldSubmissions()) {
+                pairs.add(Set.of(newSubmissions.get(i).name(), oldSubmission.name()));
+            }
+        }
+        return pairs;
+    }
+
+    private static void addCandidatePair(final Map<ClonedRepository, Set<ClonedRepository>> candidates,
+                                         final ClonedRepository first, final ClonedRepository second) {
+        candidates.computeIfAbsent(first, submission -> new LinkedHashSet<>()).add(second);
+        candidates.computeIfAbsent(second, submission -> new LinkedHashSet<>()).add(first);
+    }
+
+    private static List<ClonedRepository> submissions(final String prefix, final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new ClonedRepository(prefix + "-" + i, "commit-" + i, Path.of(prefix + "-" + i)))
+                .toList();
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author timo.buechert
+ */
+class PlagiarismPreFilterTest {
+
+    private final PlagiarismPreFilter preFilter = new PlagiarismPreFilter(8, 128, 0.1);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void tokenize_ignoresCommentsAndNames() {
+        // when
+        final List<String> tokens = PlagiarismPreFilter.tokenize("int count = 1; // counter", PlagiarismLanguage.JAVA);
+        final List<String> renamedTokens = PlagiarismPreFilter.tokenize("/* renamed */ int total = 2;", PlagiarismLanguage.JAVA);
+
+        // then
+        assertThat(tokens).containsExactly("int", "<identifier>", "=", "<number>", ";");
+        assertThat(renamedTokens).isEqualTo(tokens);
+    }
+
+    @Test
+    void tokenize_keepsOnlyTheKeywordsOfTheLanguage() {
+        // when
+        final List<String> javaTokens = PlagiarismPreFilter.tokenize("Object type = match;", PlagiarismLanguage.JAVA);
+        final List<String> scalaTokens = PlagiarismPreFilter.tokenize("val result = value match", PlagiarismLanguage.SCALA);
+        final List<String> buildFileTokens = PlagiarismPreFilter.tokenize("version = 1.0", PlagiarismLanguage.BUILD_FILES);
+
+        // then
+        assertThat(javaTokens).containsExactly("<identifier>", "<identifier>", "=", "<identifier>", ";");
+        assertThat(scalaTokens).containsExactly("val", "<identifier>", "=", "<identifier>", "match");
+        assertThat(buildFileTokens).containsExactly("version", "=", "1.0");
+    }
+
+    @Test
+    void shingles_onlyReadsFilesOfTheLanguage() throws IOException {
+        // given
+        signature("mixed", "Counter", "count");
+        Files.writeString(tempDir.resolve("mixed").resolve("build.sbt"), "name := \"mixed\"\nversion := \"1.0\"\nscalaVersion := \"3.3.1\"");
+
+        // when
+        final Set<Long> scalaShingles = preFilter.shingles(tempDir.resolve("mixed"), PlagiarismLanguage.SCALA);
+        final Set<Long> buildFileShingles = preFilter.shingles(tempDir.resolve("mixed"), PlagiarismLanguage.BUILD_FILES);
+
+        // then
+        assertThat(scalaShingles).isEmpty();
+        assertThat(buildFileShingles).isNotEmpty()
+                .doesNotContainAnyElementsOf(preFilter.shingles(tempDir.resolve("mixed"), PlagiarismLanguage.JAVA));
+    }
+
+    @Test
+    void candidatePairs_pairsRenamedCopyButNotUnrelatedSubmission() throws IOException {
+        // given
+        final long[] original = signature("original", "Counter", "count");
+        final long[] copy = signature("copy", "Tally", "total");
+        final long[] unrelated = signature("unrelated", null, null);
+
+        // when
+        final Set<List<Integer>> candidatePairs = preFilter.candidatePairs(List.of(original, copy, unrelated), new boolean[]{true, true, true});
+
+        // then
+        assertThat(candidatePairs).containsExactly(List.of(0, 1));
+    }
+
+    @Test
+    void candidatePairs_skipsPairsOfUnchangedSubmissions() throws IOException {
+        // given
+        final long[] original = signature("original", "Counter", "count");
+        final long[] copy = signature("copy", "Tally", "total");
+
+        // when
+        final Set<List<Integer>> candidatePairs = preFilter.candidatePairs(List.of(original, copy), new boolean[]{false, false});
+
+        // then
+        assertThat(candidatePairs).isEmpty();
+    }
+
+    private long[] signature(final String name, final String className, final String fieldName) throws IOException {
+        final Path directory = Files.createDirectories(tempDir.resolve(name));
+        final String source = className == null
+                ? "public record Point(double x, double y) { Point { if (x < 0 || y < 0) throw new IllegalArgumentException(); } }"
+                : "public class " + className + " { private int " + fieldName + "; public void add(int value) { for (int i = 0; i < value; i++) { "
+                + fieldName + "++; } } public int get() { return " + fieldName + "; } }";
+        Files.writeString(directory.resolve("Main.java"), source);
+        return preFilter.signature(preFilter.shingles(directory, PlagiarismLanguage.JAVA), Set.of());
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismComparisonRepository;
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismSubmissionEntity;
+import com.github.kudeplatform.evaluationengine.persistence.PlagiarismSubmissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author timo.buechert
+ */
+@ExtendWith(MockitoExtension.class)
+class PlagiarismResultStoreTest {
+
+    @Mock
+    PlagiarismSubmissionRepository plagiarismSubmissionRepository;
+
+    @Mock
+    PlagiarismComparisonRepository plagiarismComparisonRepository;
+
+    PlagiarismResultStore plagiarismResultStore;
+
+    @BeforeEach
+    void setUp() {
+        plagiarismResultStore = new PlagiarismResultStore(plagiarismSubmissionRepository, plagiarismComparisonRepository);
+    }
+
+    @Test
+    void selectUnchangedSubmissions_selectsLargestGroupOfTheSameCheck() {
+        // given
+        when(plagiarismSubmissionRepository.findAllById(any()))
+                .thenReturn(List.of(submission("a", "check-2"), submission("b", "check-2"), submission("c", "check-1")));
+
+        // when
+        final Set<String> unchangedSubmissionKeys = plagiarismResultStore.selectUnchangedSubmissions(List.of("a", "b", "c", "new"));
+
+        // then
+        assertThat(unchangedSubmissionKeys).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void getSubmissionKey_dependsOnCommitOfBaseCode() {
+        // when
+        final String key = PlagiarismResultStore.getSubmissionKey("team-a", "commit", "base-1", "java");
+        final String otherKey = PlagiarismResultStore.getSubmissionKey("team-a", "commit", "base-2", "java");
+
+        // then
+        assertThat(key).isNotEqualTo(otherKey);
+    }
+
+    @Test
+    void save_deletesOlderSubmissionsOfTheSameNameAndLanguage() {
+        // given
+        final PlagiarismSubmissionEntity latest = new PlagiarismSubmissionEntity("a-2", "a", "commit-2", "base", "java", "check-2", null);
+        when(plagiarismSubmissionRepository.findByNameIn(Set.of("a"))).thenReturn(List.of(
+                new PlagiarismSubmissionEntity("a-1", "a", "commit-1", "base", "java", "check-1", null),
+                new PlagiarismSubmissionEntity("a-scala", "a", "commit-1", "base", "scala", "check-1", null),
+                latest));
+
+        // when
+        plagiarismResultStore.save(List.of(latest), List.of());
+
+        // then
+        verify(plagiarismComparisonRepository).deleteByIdFirstSubmissionKeyInOrIdSecondSubmissionKeyIn(Set.of("a-1"), Set.of("a-1"));
+        verify(plagiarismSubmissionRepository).deleteAllById(Set.of("a-1"));
+        verify(plagiarismSubmissionRepository).saveAll(List.of(latest));
+    }
+
+    @Test
+    void save_keepsSubmissionsWithoutNewerVersion() {
+        // given
+        final List<PlagiarismSubmissionEntity> submissions = List.of(submission("a", "check-1"), submission("b", "check-1"));
+        when(plagiarismSubmissionRepository.findByNameIn(submissions.stream().map(PlagiarismSubmissionEntity::getName).collect(Collectors.toSet())))
+                .thenReturn(submissions);
+
+        // when
+        plagiarismResultStore.save(submissions, List.of());
+
+        // then
+        verify(plagiarismSubmissionRepository, never()).deleteAllById(any());
+    }
+
+    private static PlagiarismSubmissionEntity submission(final String key, final String checkId) {
+        return new PlagiarismSubmissionEntity(key, key, "commit", "base", "java", checkId, null);
+    }
+
+}
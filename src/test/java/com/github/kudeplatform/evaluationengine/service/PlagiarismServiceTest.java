@@ -0,0 +1,56 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.PlagiarismLanguage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author timo.buechert
+ */
+class PlagiarismServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void detectLanguages_findsSourceAndBuildFiles() throws IOException {
+        // given
+        Files.createDirectories(tempDir.resolve("src/main/scala"));
+        Files.writeString(tempDir.resolve("src/main/scala/Main.scala"), "object Main");
+        Files.writeString(tempDir.resolve("build.sbt"), "name := \"solution\"");
+
+        // when / then
+        assertThat(PlagiarismService.detectLanguages(tempDir))
+                .containsExactlyInAnyOrder(PlagiarismLanguage.SCALA, PlagiarismLanguage.BUILD_FILES);
+    }
+
+    @Test
+    void detectLanguages_ignoresOtherXmlAndConfigurationFiles() throws IOException {
+        // given
+        Files.createDirectories(tempDir.resolve("src/main/resources"));
+        Files.writeString(tempDir.resolve("src/main/resources/logback.xml"), "<configuration/>");
+        Files.writeString(tempDir.resolve("src/main/resources/application.conf"), "akka {}");
+        Files.writeString(tempDir.resolve("src/main/resources/application.properties"), "server.port=8080");
+        Files.writeString(tempDir.resolve("Main.java"), "class Main {}");
+
+        // when / then
+        assertThat(PlagiarismService.detectLanguages(tempDir)).containsExactly(PlagiarismLanguage.JAVA);
+    }
+
+    @Test
+    void detectLanguages_findsMavenAndGradleBuildFiles() throws IOException {
+        // given
+        Files.writeString(tempDir.resolve("pom.xml"), "<project/>");
+        Files.writeString(tempDir.resolve("build.gradle.kts"), "plugins { java }");
+
+        // when / then
+        assertThat(PlagiarismService.detectLanguages(tempDir)).containsExactly(PlagiarismLanguage.BUILD_FILES);
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.ClonedRepository;
+import com.github.kudeplatform.evaluationengine.domain.Repository;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_SUBMISSION_CHECKOUTS_PATH;
+import static com.github.kudeplatform.evaluationengine.service.FileSystemService.KUDE_SUBMISSION_MIRRORS_PATH;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author timo.buechert
+ */
+class RepositoryCloneServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getMirrorName_isReadableAndUniquePerUrl() {
+        // when
+        final String first = RepositoryCloneService.getMirrorName("https://github.com/team-a/akka-solution.git");
+        final String second = RepositoryCloneService.getMirrorName("https://github.com/team-b/akka-solution/");
+
+        // then
+        assertThat(first).startsWith("akka-solution-").endsWith(".git");
+        assertThat(second).startsWith("akka-solution-").endsWith(".git");
+        assertThat(first).isNotEqualTo(second);
+        assertThat(RepositoryCloneService.getMirrorName("https://github.com/team-a/akka-solution.git")).isEqualTo(first);
+    }
+
+    @Test
+    void cloneRepositories_fetchesNewCommitsIntoTheMirrorAndChecksThemOut() throws Exception {
+        // given
+        final Path remote = tempDir.resolve("remote");
+        final String targetDirectory = "test-" + UUID.randomUUID();
+        final RepositoryCloneService repositoryCloneService = new RepositoryCloneService(2);
+        try (Git git = Git.init().setDirectory(remote.toFile()).setInitialBranch("main").call()) {
+            Files.writeString(remote.resolve("Main.java"), "class Main {}");
+            Files.writeString(remote.resolve("Old.java"), "class Old {}");
+            git.add().addFilepattern(".").call();
+            final RevCommit firstCommit = git.commit().setMessage("first").setSign(false).call();
+            final Repository repository = new Repository("solution", remote.toUri().toString(), null, null);
+            final File mirror = new File(KUDE_SUBMISSION_MIRRORS_PATH + RepositoryCloneService.getMirrorName(repository.url()));
+
+            try {
+                // when
+                final List<ClonedRepository> firstClone = repositoryCloneService.cloneRepositories(List.of(repository), targetDirectory, status -> {
+                });
+                Files.writeString(remote.resolve("Main.java"), "class Main { int changed; }");
+                git.rm().addFilepattern("Old.java").call();
+                git.add().addFilepattern(".").call();
+                final RevCommit secondCommit = git.commit().setMessage("second").setSign(false).call();
+                final List<ClonedRepository> secondClone = repositoryCloneService.cloneRepositories(List.of(repository), targetDirectory, status -> {
+                });
+
+                // then
+                assertThat(firstClone).singleElement().extracting(ClonedRepository::commitId).isEqualTo(firstCommit.getName());
+                assertThat(secondClone).singleElement().extracting(ClonedRepository::commitId).isEqualTo(secondCommit.getName());
+                final Path checkout = secondClone.get(0).directory();
+                assertThat(Files.readString(checkout.resolve("Main.java"))).isEqualTo("class Main { int changed; }");
+                assertThat(checkout.resolve("Old.java")).doesNotExist();
+                assertThat(checkout.resolve(".git")).doesNotExist();
+                try (Git mirrorGit = Git.open(mirror)) {
+                    final ObjectId mirrorHead = mirrorGit.getRepository().resolve(RepositoryCloneService.MIRROR_REF);
+                    assertThat(mirrorHead).isEqualTo(secondCommit.getId());
+                    assertThat(mirrorGit.getRepository().getObjectDatabase().has(firstCommit.getId())).isTrue();
+                }
+            } finally {
+                FileUtils.deleteDirectory(mirror);
+                FileUtils.deleteDirectory(new File(KUDE_SUBMISSION_CHECKOUTS_PATH + targetDirectory));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.domain.EvaluationStatus;
+import com.github.kudeplatform.evaluationengine.domain.ResultCacheMetrics;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventInstanceRepository;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationEventRepository;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultEntity;
+import com.github.kudeplatform.evaluationengine.persistence.EvaluationResultRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author timo.buechert
+ */
+@ExtendWith(MockitoExtension.class)
+class ResultCacheServiceTest {
+
+    @Mock
+    EvaluationResultRepository evaluationResultRepository;
+
+    @Mock
+    EvaluationEventRepository evaluationEventRepository;
+
+    @Mock
+    EvaluationEventInstanceRepository evaluationEventInstanceRepository;
+
+    @Mock
+    FileSystemService fileSystemService;
+
+    ResultCacheService resultCacheService;
+
+    @BeforeEach
+    void setUp() {
+        resultCacheService = new ResultCacheService(evaluationResultRepository, evaluationEventRepository,
+                evaluationEventInstanceRepository, null, fileSystemService, true);
+    }
+
+    @Test
+    void findCachedResult_countsHitsAndMisses() {
+        // given
+        final EvaluationResultEntity cachedResult = new EvaluationResultEntity();
+        cachedResult.setTaskId("cached");
+        when(evaluationResultRepository.findFirstByResultCacheKeyAndStatusAndTaskIdNotOrderByEndTimestampDesc("hit", EvaluationStatus.SUCCEEDED, "task-1"))
+                .thenReturn(Optional.of(cachedResult));
+        when(evaluationResultRepository.findFirstByResultCacheKeyAndStatusAndTaskIdNotOrderByEndTimestampDesc("miss", EvaluationStatus.SUCCEEDED, "task-2"))
+                .thenReturn(Optional.empty());
+
+        // when
+        final Optional<EvaluationResultEntity> hit = resultCacheService.findCachedResult("hit", "task-1", false);
+        final Optional<EvaluationResultEntity> miss = resultCacheService.findCachedResult("miss", "task-2", false);
+
+        // then
+        assertThat(hit).contains(cachedResult);
+        assertThat(miss).isEmpty();
+        final ResultCacheMetrics metrics = resultCacheService.getMetrics();
+        assertThat(metrics.hits()).isEqualTo(1);
+        assertThat(metrics.misses()).isEqualTo(1);
+        assertThat(metrics.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void findCachedResult_isBypassedByForceRerun() {
+        // when
+        final Optional<EvaluationResultEntity> result = resultCacheService.findCachedResult("key", "task-1", true);
+
+        // then
+        assertThat(result).isEmpty();
+        assertThat(resultCacheService.getMetrics().bypassed()).isEqualTo(1);
+        verifyNoInteractions(evaluationResultRepository);
+    }
+
+    @Test
+    void copyCachedResult_onlyMarksLogsAvailableIfTheLogFilesStillExist() throws IOException {
+        // given
+        final EvaluationResultEntity cachedResult = new EvaluationResultEntity();
+        cachedResult.setTaskId("cached");
+        cachedResult.setLogsAvailable(true);
+        final EvaluationResultEntity resultEntity = new EvaluationResultEntity();
+        resultEntity.setTaskId("task-1");
+        when(fileSystemService.hasLogsOfTask("task-1")).thenReturn(false);
+
+        // when
+        resultCacheService.copyCachedResult(cachedResult, resultEntity);
+
+        // then
+        verify(fileSystemService).copyTmpFilesOfTask("cached", "task-1");
+        assertThat(resultEntity.isLogsAvailable()).isFalse();
+        assertThat(resultEntity.getStatus()).isEqualTo(EvaluationStatus.SUCCEEDED);
+        assertThat(resultEntity.getCachedFromTaskId()).isEqualTo("cached");
+    }
+
+    @Test
+    void hash_separatesKeyParts() {
+        // when
+        final String first = ResultCacheService.hash(List.of("ab", "c"));
+        final String second = ResultCacheService.hash(List.of("a", "bc"));
+
+        // then
+        assertThat(first).hasSize(64).isNotEqualTo(second);
+        assertThat(ResultCacheService.hash(List.of("ab", "c"))).isEqualTo(first);
+    }
+
+}
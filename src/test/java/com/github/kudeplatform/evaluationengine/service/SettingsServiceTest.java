@@ -0,0 +1,64 @@
+package com.github.kudeplatform.evaluationengine.service;
+
+import com.github.kudeplatform.evaluationengine.persistence.SettingsEntity;
+import com.github.kudeplatform.evaluationengine.persistence.SettingsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author timo.buechert
+ */
+@ExtendWith(MockitoExtension.class)
+class SettingsServiceTest {
+
+    @Mock
+    SettingsRepository settingsRepository;
+
+    @Mock
+    KubernetesService kubernetesService;
+
+    SettingsService settingsService;
+
+    @BeforeEach
+    void setUp() {
+        settingsService = new SettingsService(settingsRepository, kubernetesService);
+    }
+
+    @Test
+    void setSettings_restoresPreviousValuesIfListenerFails() {
+        // given
+        settingsService.setSettings(Map.of(SettingsService.KEY_REPLICATION_FACTOR, "3"));
+        settingsService.addSettingsChangeListener(changedKeys -> {
+            throw new IllegalStateException("Cannot update number of parallel jobs while jobs are running");
+        });
+
+        // when / then
+        assertThatThrownBy(() -> settingsService.setSettings(Map.of(SettingsService.KEY_REPLICATION_FACTOR, "4",
+                SettingsService.KEY_MAX_JOBS_PER_NODE, "2")))
+                .isInstanceOf(IllegalStateException.class);
+
+        // then
+        assertThat(settingsService.getReplicationFactor()).isEqualTo(3);
+        assertThat(settingsService.getMaxJobsPerNode()).isEqualTo(1);
+        final ArgumentCaptor<SettingsEntity> savedSettings = ArgumentCaptor.forClass(SettingsEntity.class);
+        verify(settingsRepository, times(5)).save(savedSettings.capture());
+        assertThat(savedSettings.getAllValues().subList(3, 5))
+                .extracting(SettingsEntity::getSettingsKey, SettingsEntity::getSettingsValue)
+                .containsExactlyInAnyOrder(
+                        tuple(SettingsService.KEY_REPLICATION_FACTOR, "3"),
+                        tuple(SettingsService.KEY_MAX_JOBS_PER_NODE, null));
+    }
+
+}
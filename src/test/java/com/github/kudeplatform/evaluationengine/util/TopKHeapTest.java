@@ -0,0 +1,27 @@
+package com.github.kudeplatform.evaluationengine.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author timo.buechert
+ */
+class TopKHeapTest {
+
+    @Test
+    void offer_keepsGreatestElements() {
+        // given
+        final TopKHeap<Integer> topKHeap = new TopKHeap<>(3, Comparator.naturalOrder());
+
+        // when
+        topKHeap.offerAll(List.of(5, 1, 9, 3, 7));
+
+        // then
+        assertThat(topKHeap.toSortedList()).containsExactly(9, 7, 5);
+    }
+
+}